@@ -1,19 +1,24 @@
 package com.eder.reservas.controllers;
 
+import com.eder.reservas.domain.user.User;
 import com.eder.reservas.dtos.auth.LoginDTO;
 import com.eder.reservas.dtos.auth.RegisterDTO;
 import com.eder.reservas.dtos.auth.ResponseDTO;
+import com.eder.reservas.infra.tenant.CurrentRestaurant;
 import com.eder.reservas.services.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.UUID;
+
 @RestController
 @RequestMapping("/users")
 public class AuthController {
@@ -22,8 +27,8 @@ public class AuthController {
 
     @Transactional
     @PostMapping("/register")
-    public ResponseEntity<ResponseDTO> register(@Valid @RequestBody RegisterDTO data) {
-        ResponseDTO response = authService.register(data);
+    public ResponseEntity<ResponseDTO> register(@CurrentRestaurant(requireMembership = false) UUID restaurantId, @Valid @RequestBody RegisterDTO data, @AuthenticationPrincipal User user) {
+        ResponseDTO response = authService.register(restaurantId, data, user);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
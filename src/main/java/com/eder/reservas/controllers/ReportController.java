@@ -0,0 +1,39 @@
+package com.eder.reservas.controllers;
+
+import com.eder.reservas.domain.occupancy.OccupancyGranularity;
+import com.eder.reservas.dtos.report.OccupancyBackfillDTO;
+import com.eder.reservas.dtos.report.OccupancyReportDTO;
+import com.eder.reservas.infra.tenant.CurrentRestaurant;
+import com.eder.reservas.services.OccupancyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/reports")
+public class ReportController {
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @GetMapping("/occupancy")
+    public ResponseEntity<List<OccupancyReportDTO>> getOccupancy(
+            @CurrentRestaurant UUID restaurantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "HOUR") OccupancyGranularity granularity) {
+        return ResponseEntity.ok(occupancyService.getOccupancy(restaurantId, from, to, granularity));
+    }
+
+    @PostMapping("/occupancy/backfill")
+    public ResponseEntity<OccupancyBackfillDTO> backfillOccupancy(
+            @CurrentRestaurant UUID restaurantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(occupancyService.backfill(restaurantId, from, to));
+    }
+}
@@ -1,17 +1,30 @@
 package com.eder.reservas.controllers;
 
 import com.eder.reservas.domain.user.User;
+import com.eder.reservas.dtos.reservation.ReservationAssignDTO;
+import com.eder.reservas.dtos.reservation.ReservationPageDTO;
 import com.eder.reservas.dtos.reservation.ReservationRegisterDTO;
 import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.dtos.reservation.ReservationTicketDTO;
+import com.eder.reservas.dtos.reservation.WaitlistEntryDTO;
+import com.eder.reservas.infra.tenant.CurrentRestaurant;
+import com.eder.reservas.services.BookingSequencer;
+import com.eder.reservas.services.IdempotencyService;
+import com.eder.reservas.services.ReservationExportService;
 import com.eder.reservas.services.ReservationService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,26 +33,85 @@ import java.util.UUID;
 public class ReservationController {
     @Autowired
     private ReservationService reservationService;
+    @Autowired
+    private BookingSequencer bookingSequencer;
+    @Autowired
+    private ReservationExportService reservationExportService;
+    @Autowired
+    private IdempotencyService idempotencyService;
 
-    @Transactional
     @PostMapping
-    public ResponseEntity<ReservationResponseDTO> createReservation(@Valid @RequestBody ReservationRegisterDTO data, @AuthenticationPrincipal User user) {
+    public ResponseEntity<ReservationResponseDTO> createReservation(@CurrentRestaurant UUID restaurantId, @Valid @RequestBody ReservationRegisterDTO data, @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey, @AuthenticationPrincipal User user) {
+        if(idempotencyKey != null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(idempotencyService.createReservation(restaurantId, data, user, idempotencyKey));
+        }
+        String email = user.getEmail();
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.createReservation(restaurantId, data, email));
+    }
+
+    @Transactional
+    @PostMapping("/assign")
+    public ResponseEntity<ReservationResponseDTO> assignReservation(@CurrentRestaurant UUID restaurantId, @Valid @RequestBody ReservationAssignDTO data, @AuthenticationPrincipal User user) {
         String email = user.getEmail();
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.createReservation(data, email));
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.assignReservation(restaurantId, data, email));
     }
 
     @Transactional
+    @PostMapping("/batch")
+    public ResponseEntity<List<ReservationResponseDTO>> createReservations(@CurrentRestaurant UUID restaurantId, @RequestBody List<@Valid ReservationRegisterDTO> data, @AuthenticationPrincipal User user) {
+        String email = user.getEmail();
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.createReservations(restaurantId, data, email));
+    }
+
+    @PostMapping("/async")
+    public ResponseEntity<ReservationTicketDTO> createReservationAsync(@CurrentRestaurant UUID restaurantId, @Valid @RequestBody ReservationRegisterDTO data, @AuthenticationPrincipal User user) {
+        ReservationTicketDTO ticket = bookingSequencer.submit(restaurantId, data, user.getEmail());
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/reservations/tickets/" + ticket.id()))
+                .body(ticket);
+    }
+
+    @GetMapping("/tickets/{id}")
+    public ResponseEntity<ReservationTicketDTO> getTicket(@PathVariable UUID id, @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(bookingSequencer.getTicket(id, user.getEmail()));
+    }
+
     @GetMapping
-    public ResponseEntity<List<ReservationResponseDTO>> getAllReservations(@AuthenticationPrincipal User user) {
+    public ResponseEntity<ReservationPageDTO> getAllReservations(@RequestParam(required = false) String after, @RequestParam(defaultValue = "20") int limit, @AuthenticationPrincipal User user) {
         String email = user.getEmail();
 
-        return ResponseEntity.ok(reservationService.getAllReservations(email));
+        return ResponseEntity.ok(reservationService.getAllReservations(email, after, limit));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportReservations(@CurrentRestaurant UUID restaurantId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(output -> reservationExportService.exportReservations(restaurantId, output));
+    }
+
+    @PostMapping("/waitlist")
+    public ResponseEntity<WaitlistEntryDTO> joinWaitlist(@CurrentRestaurant UUID restaurantId, @Valid @RequestBody ReservationRegisterDTO data, @AuthenticationPrincipal User user) {
+        String email = user.getEmail();
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.joinWaitlist(restaurantId, data, email));
+    }
+
+    @DeleteMapping("/waitlist/{id}")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable UUID id, @AuthenticationPrincipal User user) {
+        reservationService.leaveWaitlist(id, user.getId());
+
+        return ResponseEntity.noContent().build();
     }
 
     @Transactional
     @PatchMapping("/{id}/cancel")
-    public ResponseEntity<ReservationResponseDTO> patchReservation(@PathVariable UUID id) {
-        return ResponseEntity.ok(reservationService.patchReservation(id));
+    public ResponseEntity<ReservationResponseDTO> patchReservation(@CurrentRestaurant UUID restaurantId, @PathVariable UUID id,
+                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateTime) {
+        return ResponseEntity.ok(reservationService.patchReservation(restaurantId, id, dateTime));
     }
 }
@@ -0,0 +1,33 @@
+package com.eder.reservas.controllers;
+
+import com.eder.reservas.domain.user.User;
+import com.eder.reservas.dtos.restaurant.RestaurantRegisterDTO;
+import com.eder.reservas.dtos.restaurant.RestaurantResponseDTO;
+import com.eder.reservas.services.RestaurantService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/restaurants")
+public class RestaurantController {
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @GetMapping
+    public ResponseEntity<List<RestaurantResponseDTO>> getAllRestaurants() {
+        return ResponseEntity.ok(restaurantService.getAllRestaurants());
+    }
+
+    @Transactional
+    @PostMapping
+    public ResponseEntity<RestaurantResponseDTO> createRestaurant(@Valid @RequestBody RestaurantRegisterDTO data, @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(restaurantService.createRestaurant(data, user));
+    }
+}
@@ -1,16 +1,24 @@
 package com.eder.reservas.controllers;
 
+import com.eder.reservas.dtos.table.TableImportDTO;
 import com.eder.reservas.dtos.table.TablePatchDTO;
 import com.eder.reservas.dtos.table.TableRegisterDTO;
 import com.eder.reservas.dtos.table.TableResponseDTO;
+import com.eder.reservas.infra.tenant.CurrentRestaurant;
 import com.eder.reservas.services.TableService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,28 +28,54 @@ public class TableController {
     @Autowired
     private TableService tableService;
 
-    @Transactional
     @GetMapping
-    public ResponseEntity<List<TableResponseDTO>> getAllTables() {
-        return ResponseEntity.ok(tableService.getAllTables());
+    public ResponseEntity<byte[]> getAllTables(@CurrentRestaurant UUID restaurantId, WebRequest request) {
+        String eTag = tableService.getTablesETag(restaurantId);
+        if(request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(tableService.getAllTablesJson(restaurantId));
+    }
+
+    @GetMapping("/availability")
+    public ResponseEntity<List<TableResponseDTO>> getAvailableTables(
+            @CurrentRestaurant UUID restaurantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "1") int people) {
+        return ResponseEntity.ok(tableService.getAvailableTables(restaurantId, from, to, people));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTables(@CurrentRestaurant UUID restaurantId) {
+        return ResponseEntity.ok(tableService.streamTables(restaurantId));
     }
 
     @Transactional
     @PostMapping
-    public ResponseEntity<TableResponseDTO> createTable(@Valid @RequestBody TableRegisterDTO data) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(tableService.createTable(data));
+    public ResponseEntity<TableResponseDTO> createTable(@CurrentRestaurant UUID restaurantId, @Valid @RequestBody TableRegisterDTO data) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(tableService.createTable(restaurantId, data));
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<TableImportDTO> importTables(@CurrentRestaurant UUID restaurantId, InputStream body) {
+        List<TableRegisterDTO> tables = tableService.readImport(body);
+        return ResponseEntity.status(HttpStatus.CREATED).body(tableService.importTables(restaurantId, tables));
     }
 
     @Transactional
     @PatchMapping("/{id}")
-    public ResponseEntity<TableResponseDTO> patchTable(@PathVariable UUID id, @Valid @RequestBody TablePatchDTO data) {
-        return ResponseEntity.ok(tableService.patchTable(id, data));
+    public ResponseEntity<TableResponseDTO> patchTable(@CurrentRestaurant UUID restaurantId, @PathVariable UUID id, @Valid @RequestBody TablePatchDTO data) {
+        return ResponseEntity.ok(tableService.patchTable(restaurantId, id, data));
     }
 
     @Transactional
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTable(@PathVariable UUID id) {
-        tableService.deleteTable(id);
+    public ResponseEntity<Void> deleteTable(@CurrentRestaurant UUID restaurantId, @PathVariable UUID id) {
+        tableService.deleteTable(restaurantId, id);
         return ResponseEntity.noContent().build();
     }
 }
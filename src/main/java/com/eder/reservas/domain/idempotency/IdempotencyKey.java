@@ -0,0 +1,35 @@
+package com.eder.reservas.domain.idempotency;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@jakarta.persistence.Table(name = "idempotency_keys")
+@IdClass(IdempotencyKeyId.class)
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKey {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    @Column(name = "reservation_id")
+    private UUID reservationId;
+    @Column(name = "reservation_date_time")
+    private LocalDateTime reservationDateTime;
+    @Column(name = "request_hash")
+    private String requestHash;
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
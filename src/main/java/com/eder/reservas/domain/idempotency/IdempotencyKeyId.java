@@ -0,0 +1,7 @@
+package com.eder.reservas.domain.idempotency;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+public record IdempotencyKeyId(UUID userId, String key) implements Serializable {
+}
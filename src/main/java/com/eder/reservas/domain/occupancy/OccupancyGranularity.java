@@ -0,0 +1,20 @@
+package com.eder.reservas.domain.occupancy;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+@Getter
+public enum OccupancyGranularity {
+    HOUR(ChronoUnit.HOURS, Duration.ofDays(31)),
+    DAY(ChronoUnit.DAYS, Duration.ofDays(366));
+
+    private final ChronoUnit unit;
+    private final Duration maxRange;
+
+    OccupancyGranularity(ChronoUnit unit, Duration maxRange) {
+        this.unit = unit;
+        this.maxRange = maxRange;
+    }
+}
@@ -0,0 +1,34 @@
+package com.eder.reservas.domain.occupancy;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@jakarta.persistence.Table(name = "occupancy_hourly")
+@IdClass(OccupancyHourlyId.class)
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyHourly {
+    @Id
+    @Column(name = "table_id")
+    private UUID tableId;
+    @Id
+    @Column(name = "hour_start")
+    private LocalDateTime hourStart;
+
+    @Column(name = "restaurant_id")
+    private UUID restaurantId;
+
+    private int reservations;
+    private int people;
+    @Column(name = "occupied_seconds")
+    private int occupiedSeconds;
+}
@@ -0,0 +1,8 @@
+package com.eder.reservas.domain.occupancy;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record OccupancyHourlyId(UUID tableId, LocalDateTime hourStart) implements Serializable {
+}
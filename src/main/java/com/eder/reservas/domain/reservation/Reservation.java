@@ -23,6 +23,9 @@ public class Reservation {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
+    @Column(name = "restaurant_id")
+    private UUID restaurantId;
+
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -32,6 +35,8 @@ public class Reservation {
 
     @Column(name = "reservation_date_time")
     private LocalDateTime reservationDateTime;
+    @Column(name = "reservation_end")
+    private LocalDateTime reservationEnd;
     @Column(name = "number_of_people")
     private int numberOfPeople;
 
@@ -2,5 +2,6 @@ package com.eder.reservas.domain.reservation;
 
 public enum ReservationStatus {
     ACTIVE,
-    CANCELED
+    CANCELED,
+    COMPLETED
 }
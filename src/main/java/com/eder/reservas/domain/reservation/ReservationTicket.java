@@ -0,0 +1,57 @@
+package com.eder.reservas.domain.reservation;
+
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.dtos.reservation.ReservationTicketDTO;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@jakarta.persistence.Table(name = "reservation_tickets")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationTicket {
+    @Id
+    private UUID id;
+
+    private String email;
+
+    @Column(name = "restaurant_id")
+    private UUID restaurantId;
+    @Column(name = "table_number")
+    private int tableNumber;
+    @Column(name = "reservation_date_time")
+    private LocalDateTime reservationDateTime;
+    @Column(name = "number_of_people")
+    private int numberOfPeople;
+
+    @Enumerated(EnumType.STRING)
+    private ReservationTicketStatus status;
+
+    @Column(name = "reservation_id")
+    private UUID reservationId;
+    @Column(name = "user_id")
+    private UUID userId;
+    @Column(name = "table_id")
+    private UUID tableId;
+    private String message;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public ReservationTicketDTO toDTO() {
+        return switch(status) {
+            case PENDING -> ReservationTicketDTO.pending(id);
+            case CONFIRMED -> ReservationTicketDTO.confirmed(id, new ReservationResponseDTO(
+                    reservationId, userId, tableId, reservationDateTime, numberOfPeople, ReservationStatus.ACTIVE));
+            case REJECTED -> ReservationTicketDTO.rejected(id, message);
+        };
+    }
+}
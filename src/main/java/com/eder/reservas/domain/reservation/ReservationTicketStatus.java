@@ -0,0 +1,7 @@
+package com.eder.reservas.domain.reservation;
+
+public enum ReservationTicketStatus {
+    PENDING,
+    CONFIRMED,
+    REJECTED
+}
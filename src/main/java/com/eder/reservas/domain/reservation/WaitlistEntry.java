@@ -0,0 +1,35 @@
+package com.eder.reservas.domain.reservation;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@jakarta.persistence.Table(name = "waitlist_entries")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntry {
+    @Id
+    private UUID id;
+
+    @Column(name = "join_sequence", insertable = false, updatable = false)
+    private long joinSequence;
+
+    @Column(name = "restaurant_id")
+    private UUID restaurantId;
+    @Column(name = "table_id")
+    private UUID tableId;
+    @Column(name = "user_id")
+    private UUID userId;
+    @Column(name = "reservation_date_time")
+    private LocalDateTime reservationDateTime;
+    @Column(name = "number_of_people")
+    private int numberOfPeople;
+}
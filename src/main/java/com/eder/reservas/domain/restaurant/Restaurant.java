@@ -0,0 +1,30 @@
+package com.eder.reservas.domain.restaurant;
+
+import com.eder.reservas.dtos.restaurant.RestaurantRegisterDTO;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "restaurants")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Restaurant {
+    public static final UUID DEFAULT_ID = new UUID(0L, 0L);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    private String name;
+
+    public Restaurant(RestaurantRegisterDTO data) {
+        this.name = data.name();
+    }
+}
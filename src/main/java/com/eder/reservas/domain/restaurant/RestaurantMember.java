@@ -0,0 +1,25 @@
+package com.eder.reservas.domain.restaurant;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "restaurant_members")
+@IdClass(RestaurantMemberId.class)
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RestaurantMember {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+    @Id
+    @Column(name = "restaurant_id")
+    private UUID restaurantId;
+}
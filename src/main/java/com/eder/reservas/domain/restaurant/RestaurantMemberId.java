@@ -0,0 +1,7 @@
+package com.eder.reservas.domain.restaurant;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+public record RestaurantMemberId(UUID userId, UUID restaurantId) implements Serializable {
+}
@@ -20,13 +20,17 @@ public class Table {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
+    @Column(name = "restaurant_id")
+    private UUID restaurantId;
+
     private int number;
     private int capacity;
 
     @Enumerated(EnumType.STRING)
     private TableStatus status;
 
-    public Table(TableRegisterDTO data) {
+    public Table(UUID restaurantId, TableRegisterDTO data) {
+        this.restaurantId = restaurantId;
         this.number = data.number();
         this.capacity = data.capacity();
         this.status = data.status();
@@ -0,0 +1,7 @@
+package com.eder.reservas.domain.table;
+
+public enum TableEventType {
+    UPDATED,
+    DELETED,
+    BOOKINGS
+}
@@ -1,5 +1,6 @@
 package com.eder.reservas.domain.user;
 
+import com.eder.reservas.infra.security.PrincipalInvalidationListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -15,6 +16,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(PrincipalInvalidationListener.class)
 @Setter
 @Getter
 @NoArgsConstructor
@@ -0,0 +1,6 @@
+package com.eder.reservas.dtos.report;
+
+import java.time.LocalDateTime;
+
+public record OccupancyBackfillDTO(LocalDateTime from, LocalDateTime to, int rows) {
+}
@@ -0,0 +1,14 @@
+package com.eder.reservas.dtos.report;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record OccupancyReportDTO(
+        LocalDateTime period,
+        UUID tableId,
+        int tableNumber,
+        long reservations,
+        long people,
+        double occupancy
+) {
+}
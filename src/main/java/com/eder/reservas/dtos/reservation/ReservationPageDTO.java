@@ -0,0 +1,11 @@
+package com.eder.reservas.dtos.reservation;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public record ReservationPageDTO(
+        @NotNull(message = "Content can not be null") List<ReservationResponseDTO> content,
+        String nextCursor
+) {
+}
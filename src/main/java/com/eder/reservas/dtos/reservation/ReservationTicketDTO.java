@@ -0,0 +1,25 @@
+package com.eder.reservas.dtos.reservation;
+
+import com.eder.reservas.domain.reservation.ReservationTicketStatus;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record ReservationTicketDTO(
+        @NotNull(message = "Ticket id can not be null") UUID id,
+        @NotNull(message = "Ticket status can not be null") ReservationTicketStatus status,
+        ReservationResponseDTO reservation,
+        String message
+) {
+    public static ReservationTicketDTO pending(UUID id) {
+        return new ReservationTicketDTO(id, ReservationTicketStatus.PENDING, null, null);
+    }
+
+    public static ReservationTicketDTO confirmed(UUID id, ReservationResponseDTO reservation) {
+        return new ReservationTicketDTO(id, ReservationTicketStatus.CONFIRMED, reservation, null);
+    }
+
+    public static ReservationTicketDTO rejected(UUID id, String message) {
+        return new ReservationTicketDTO(id, ReservationTicketStatus.REJECTED, null, message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.eder.reservas.dtos.reservation;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record WaitlistEntryDTO(
+        UUID id,
+        int tableNumber,
+        LocalDateTime dateTime,
+        int people,
+        int position
+) {
+}
@@ -0,0 +1,6 @@
+package com.eder.reservas.dtos.restaurant;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RestaurantRegisterDTO(@NotBlank(message = "Restaurant name can not be blank") String name) {
+}
@@ -0,0 +1,12 @@
+package com.eder.reservas.dtos.restaurant;
+
+import com.eder.reservas.domain.restaurant.Restaurant;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record RestaurantResponseDTO(@NotNull(message = "Restaurant id can not be null") UUID id, @NotNull(message = "Restaurant name can not be null") String name) {
+    public static RestaurantResponseDTO from(Restaurant restaurant) {
+        return new RestaurantResponseDTO(restaurant.getId(), restaurant.getName());
+    }
+}
@@ -0,0 +1,29 @@
+package com.eder.reservas.dtos.table;
+
+import com.eder.reservas.domain.table.Table;
+import com.eder.reservas.domain.table.TableEventType;
+import com.eder.reservas.domain.table.TableStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TableEventDTO(
+        TableEventType type,
+        UUID id,
+        Integer number,
+        Integer capacity,
+        TableStatus status
+) {
+    public static TableEventDTO updated(Table table) {
+        return new TableEventDTO(TableEventType.UPDATED, table.getId(), table.getNumber(), table.getCapacity(), table.getStatus());
+    }
+
+    public static TableEventDTO deleted(UUID id) {
+        return new TableEventDTO(TableEventType.DELETED, id, null, null, null);
+    }
+
+    public static TableEventDTO bookings(UUID id) {
+        return new TableEventDTO(TableEventType.BOOKINGS, id, null, null, null);
+    }
+}
@@ -0,0 +1,4 @@
+package com.eder.reservas.dtos.table;
+
+public record TableImportDTO(int imported) {
+}
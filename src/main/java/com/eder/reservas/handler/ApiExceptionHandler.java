@@ -5,6 +5,8 @@ import com.eder.reservas.dtos.exception.InvalidFieldDTO;
 import com.eder.reservas.dtos.exception.ValidationExceptionDTO;
 import com.eder.reservas.exceptions.ApiException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -13,10 +15,14 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
 public class ApiExceptionHandler {
+    private static final Pattern RESERVATION_OVERLAP_CONSTRAINT = Pattern.compile("reservations(_\\w+)?_no_overlap");
+    private static final String IDEMPOTENCY_KEY_CONSTRAINT = "idempotency_keys_pkey";
+
     @ExceptionHandler(ApiException.class)
     public ResponseEntity<ApiExceptionDTO> handleApiException(ApiException exception, HttpServletRequest request) {
         ApiExceptionDTO body = new ApiExceptionDTO(
@@ -46,4 +52,31 @@ public class ApiExceptionHandler {
 
         return ResponseEntity.status(status).body(body);
     }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiExceptionDTO> handleDataIntegrityViolationException(DataIntegrityViolationException exception, HttpServletRequest request) {
+        HttpStatus status = HttpStatus.CONFLICT;
+        String constraint = constraintName(exception);
+        String message = constraint != null && RESERVATION_OVERLAP_CONSTRAINT.matcher(constraint).matches() ? "Table is unavailable"
+                : IDEMPOTENCY_KEY_CONSTRAINT.equals(constraint) ? "Request with this Idempotency-Key is already being processed"
+                : "Data integrity violation";
+
+        ApiExceptionDTO body = new ApiExceptionDTO(
+                Instant.now(),
+                status.value(),
+                message,
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(status).body(body);
+    }
+
+    private String constraintName(Throwable exception) {
+        for(Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if(cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName();
+            }
+        }
+        return null;
+    }
 }
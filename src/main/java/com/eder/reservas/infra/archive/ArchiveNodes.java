@@ -0,0 +1,93 @@
+package com.eder.reservas.infra.archive;
+
+import com.eder.reservas.infra.cluster.ClusterNotifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Component
+public class ArchiveNodes {
+    private static final Logger log = LoggerFactory.getLogger(ArchiveNodes.class);
+    private static final String MARKERS = ".nodes";
+    private static final int MISSED_HEARTBEATS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String node;
+    private final Path markers;
+    private final Duration interval;
+
+    public ArchiveNodes(JdbcTemplate jdbcTemplate,
+                        ClusterNotifier clusterNotifier,
+                        @Value("${api.reservations.archive.directory}") Path directory,
+                        @Value("${api.reservations.archive.rescan-interval}") Duration interval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.node = clusterNotifier.getNode();
+        this.markers = directory.resolve(MARKERS);
+        this.interval = interval;
+    }
+
+    @Scheduled(fixedDelayString = "${api.reservations.archive.rescan-interval}", initialDelayString = "${api.reservations.archive.rescan-interval}")
+    @EventListener(ApplicationReadyEvent.class)
+    public void heartbeat() {
+        try {
+            Files.createDirectories(markers);
+            Path marker = markers.resolve(node);
+            if(Files.exists(marker)) {
+                Files.setLastModifiedTime(marker, FileTime.from(Instant.now()));
+            } else {
+                Files.createFile(marker);
+            }
+        } catch (IOException exception) {
+            log.warn("Could not write archive marker under {}", markers, exception);
+        }
+        jdbcTemplate.update("""
+                insert into archive_nodes (node, seen_at) values (?, now())
+                on conflict (node) do update set seen_at = excluded.seen_at
+                """, node);
+    }
+
+    // Every live node heartbeats a row and a marker file. A live node whose marker is missing here reads
+    // another directory, so dropping a partition would lose the archived month for that node.
+    public boolean confirmShared() {
+        heartbeat();
+        jdbcTemplate.update("delete from archive_nodes where seen_at < now() - make_interval(secs => ?)", expiry());
+        List<String> live = jdbcTemplate.queryForList("select node from archive_nodes", String.class);
+
+        Set<String> missing = new HashSet<>(live);
+        try(Stream<Path> files = Files.list(markers)) {
+            for(Path marker : files.toList()) {
+                String name = marker.getFileName().toString();
+                missing.remove(name);
+                if(!live.contains(name)) Files.deleteIfExists(marker);
+            }
+        } catch (IOException exception) {
+            log.warn("Could not read archive markers under {}", markers, exception);
+            return false;
+        }
+
+        if(!missing.isEmpty()) {
+            log.error("Archive directory {} is not visible to nodes {}, point api.reservations.archive.directory at shared storage", markers.getParent(), missing);
+        }
+        return missing.isEmpty();
+    }
+
+    private double expiry() {
+        return interval.multipliedBy(MISSED_HEARTBEATS).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,259 @@
+package com.eder.reservas.infra.archive;
+
+import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+final class ArchiveSegment {
+    private static final int MAGIC = 0x52534732;
+    private static final byte HAS_MICROS = 1;
+    private static final int UUID_SIZE = 16;
+    private static final int MAX_TABLES = Character.MAX_VALUE + 1;
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+    private static final Comparator<ArchivedReservation> ORDER = Comparator.comparing(ArchivedReservation::userId)
+            .thenComparing(ArchivedReservation::start)
+            .thenComparing(ArchivedReservation::id);
+
+    @Getter
+    private final YearMonth month;
+    private final ByteBuffer buffer;
+    private final LocalDateTime base;
+    private final int rows;
+    private final int users;
+    private final int tables;
+    private final boolean micros;
+    private final ReservationStatus[] statuses;
+    private final int usersAt;
+    private final int offsetsAt;
+    private final int tablesAt;
+    private final int restaurantsAt;
+    private final int idsAt;
+    private final int tableIndexAt;
+    private final int startsAt;
+    private final int endsAt;
+    private final int startMicrosAt;
+    private final int endMicrosAt;
+    private final int peopleAt;
+    private final int statusAt;
+
+    private ArchiveSegment(Path path, ByteBuffer buffer) throws IOException {
+        if(buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a reservation archive segment: " + path);
+        }
+        this.buffer = buffer;
+        this.micros = (buffer.get() & HAS_MICROS) != 0;
+        this.base = LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC);
+        this.month = YearMonth.from(base);
+        this.rows = buffer.getInt();
+        this.users = buffer.getInt();
+        this.tables = buffer.getInt();
+        this.statuses = new ReservationStatus[buffer.get()];
+        for(int i = 0; i < statuses.length; i++) {
+            byte[] name = new byte[buffer.get()];
+            buffer.get(name);
+            statuses[i] = ReservationStatus.valueOf(new String(name, StandardCharsets.US_ASCII));
+        }
+
+        this.usersAt = buffer.position();
+        this.offsetsAt = usersAt + users * UUID_SIZE;
+        this.tablesAt = offsetsAt + (users + 1) * Integer.BYTES;
+        this.restaurantsAt = tablesAt + tables * UUID_SIZE;
+        this.idsAt = restaurantsAt + tables * UUID_SIZE;
+        this.tableIndexAt = idsAt + rows * UUID_SIZE;
+        this.startsAt = tableIndexAt + rows * Character.BYTES;
+        this.endsAt = startsAt + rows * Integer.BYTES;
+        this.startMicrosAt = endsAt + rows * Integer.BYTES;
+        this.endMicrosAt = startMicrosAt + (micros ? rows * Integer.BYTES : 0);
+        this.peopleAt = endMicrosAt + (micros ? rows * Integer.BYTES : 0);
+        this.statusAt = peopleAt + rows * Integer.BYTES;
+
+        if(buffer.limit() < statusAt + rows) {
+            throw new IOException("Truncated reservation archive segment: " + path);
+        }
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ArchiveSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static void write(Path path, YearMonth month, List<ArchivedReservation> reservations) throws IOException {
+        List<ArchivedReservation> sorted = reservations.stream().sorted(ORDER).toList();
+        List<UUID> users = sorted.stream().map(ArchivedReservation::userId).distinct().toList();
+        List<UUID> tables = sorted.stream().map(ArchivedReservation::tableId).distinct().sorted().toList();
+        if(tables.size() > MAX_TABLES) {
+            throw new IllegalStateException("Too many tables for one archive segment: " + tables.size());
+        }
+        Map<UUID, Integer> tableIndex = new HashMap<>();
+        for(int i = 0; i < tables.size(); i++) tableIndex.put(tables.get(i), i);
+        Map<UUID, UUID> tableRestaurants = new HashMap<>();
+        for(ArchivedReservation r : sorted) {
+            UUID restaurant = tableRestaurants.putIfAbsent(r.tableId(), r.restaurantId());
+            if(restaurant != null && !restaurant.equals(r.restaurantId())) {
+                throw new IllegalStateException("Table " + r.tableId() + " belongs to more than one restaurant");
+            }
+        }
+
+        LocalDateTime base = month.atDay(1).atStartOfDay();
+        boolean micros = sorted.stream().anyMatch(r -> r.start().getNano() != 0 || r.end().getNano() != 0);
+        byte[][] statusNames = new byte[STATUSES.length][];
+        int headerSize = Integer.BYTES + 1 + Long.BYTES + 3 * Integer.BYTES + 1;
+        for(int i = 0; i < STATUSES.length; i++) {
+            statusNames[i] = STATUSES[i].name().getBytes(StandardCharsets.US_ASCII);
+            headerSize += 1 + statusNames[i].length;
+        }
+        int rowSize = UUID_SIZE + Character.BYTES + 2 * Integer.BYTES + (micros ? 2 * Integer.BYTES : 0) + Integer.BYTES + 1;
+        int size = headerSize + users.size() * UUID_SIZE + (users.size() + 1) * Integer.BYTES + 2 * tables.size() * UUID_SIZE + sorted.size() * rowSize;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC)
+                .put(micros ? HAS_MICROS : 0)
+                .putLong(base.toEpochSecond(ZoneOffset.UTC))
+                .putInt(sorted.size())
+                .putInt(users.size())
+                .putInt(tables.size())
+                .put((byte) STATUSES.length);
+        for(byte[] name : statusNames) buffer.put((byte) name.length).put(name);
+
+        users.forEach(user -> putUuid(buffer, user));
+        int row = 0;
+        for(UUID user : users) {
+            buffer.putInt(row);
+            while(row < sorted.size() && sorted.get(row).userId().equals(user)) row++;
+        }
+        buffer.putInt(row);
+        tables.forEach(table -> putUuid(buffer, table));
+        tables.forEach(table -> putUuid(buffer, tableRestaurants.get(table)));
+
+        sorted.forEach(r -> putUuid(buffer, r.id()));
+        sorted.forEach(r -> buffer.putChar((char) (int) tableIndex.get(r.tableId())));
+        sorted.forEach(r -> buffer.putInt((int) ChronoUnit.SECONDS.between(base, r.start())));
+        sorted.forEach(r -> buffer.putInt((int) ChronoUnit.SECONDS.between(base, r.end())));
+        if(micros) {
+            sorted.forEach(r -> buffer.putInt(r.start().getNano() / 1000));
+            sorted.forEach(r -> buffer.putInt(r.end().getNano() / 1000));
+        }
+        sorted.forEach(r -> buffer.putInt(r.people()));
+        sorted.forEach(r -> buffer.put((byte) r.status().ordinal()));
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.flip();
+            while(buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    LocalDateTime getEnd() {
+        return base.plusMonths(1);
+    }
+
+    List<ReservationResponseDTO> findByUser(UUID userId, LocalDateTime dateTime, UUID id, int limit) {
+        int user = findUser(userId);
+        if(user < 0) return List.of();
+
+        int end = offset(user + 1);
+        int row = dateTime == null ? offset(user) : firstAfter(offset(user), end, dateTime, id);
+        List<ReservationResponseDTO> page = new ArrayList<>(Math.min(limit, end - row));
+        for(; row < end && page.size() < limit; row++) {
+            page.add(read(row, userId));
+        }
+        return page;
+    }
+
+    Stream<ReservationResponseDTO> stream(UUID restaurantId) {
+        boolean[] owned = new boolean[tables];
+        boolean any = false;
+        for(int table = 0; table < tables; table++) {
+            owned[table] = uuid(restaurantsAt, table).equals(restaurantId);
+            any |= owned[table];
+        }
+        if(!any) return Stream.empty();
+
+        return IntStream.range(0, users).boxed().flatMap(user -> {
+            UUID userId = uuid(usersAt, user);
+            return IntStream.range(offset(user), offset(user + 1))
+                    .filter(row -> owned[tableIndex(row)])
+                    .mapToObj(row -> read(row, userId));
+        });
+    }
+
+    private int findUser(UUID userId) {
+        int low = 0;
+        int high = users - 1;
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = uuid(usersAt, middle).compareTo(userId);
+            if(comparison < 0) low = middle + 1;
+            else if(comparison > 0) high = middle - 1;
+            else return middle;
+        }
+        return -1;
+    }
+
+    private int firstAfter(int low, int high, LocalDateTime dateTime, UUID id) {
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = start(middle).compareTo(dateTime);
+            if(comparison < 0 || comparison == 0 && uuid(idsAt, middle).compareTo(id) <= 0) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    private ReservationResponseDTO read(int row, UUID userId) {
+        return new ReservationResponseDTO(
+                uuid(idsAt, row),
+                userId,
+                uuid(tablesAt, tableIndex(row)),
+                start(row),
+                buffer.getInt(peopleAt + row * Integer.BYTES),
+                statuses[buffer.get(statusAt + row)]
+        );
+    }
+
+    private LocalDateTime start(int row) {
+        LocalDateTime start = base.plusSeconds(buffer.getInt(startsAt + row * Integer.BYTES));
+        return micros ? start.plusNanos(buffer.getInt(startMicrosAt + row * Integer.BYTES) * 1000L) : start;
+    }
+
+    private int tableIndex(int row) {
+        return buffer.getChar(tableIndexAt + row * Character.BYTES);
+    }
+
+    private int offset(int user) {
+        return buffer.getInt(offsetsAt + user * Integer.BYTES);
+    }
+
+    private UUID uuid(int section, int index) {
+        int position = section + index * UUID_SIZE;
+        return new UUID(buffer.getLong(position), buffer.getLong(position + Long.BYTES));
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+    }
+}
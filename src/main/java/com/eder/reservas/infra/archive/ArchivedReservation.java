@@ -0,0 +1,9 @@
+package com.eder.reservas.infra.archive;
+
+import com.eder.reservas.domain.reservation.ReservationStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record ArchivedReservation(UUID id, UUID restaurantId, UUID userId, UUID tableId, LocalDateTime start, LocalDateTime end, int people, ReservationStatus status) {
+}
@@ -0,0 +1,120 @@
+package com.eder.reservas.infra.archive;
+
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.infra.cluster.ClusterResync;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Component
+public class ReservationArchive {
+    private static final Logger log = LoggerFactory.getLogger(ReservationArchive.class);
+    private static final String PREFIX = "reservations-";
+    private static final String SUFFIX = ".seg";
+
+    @Value("${api.reservations.archive.directory}")
+    private Path directory;
+
+    private final Map<Path, Opened> opened = new HashMap<>();
+    private volatile List<ArchiveSegment> segments = List.of();
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if(!Files.isDirectory(directory)) {
+            opened.clear();
+            segments = List.of();
+            return;
+        }
+
+        Map<Path, Opened> current = new HashMap<>();
+        try(Stream<Path> files = Files.list(directory)) {
+            for(Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                Opened previous = opened.get(file);
+                current.put(file, previous != null && previous.matches(attributes)
+                        ? previous
+                        : new Opened(attributes.fileKey(), attributes.lastModifiedTime(), ArchiveSegment.open(file)));
+            }
+        }
+        opened.clear();
+        opened.putAll(current);
+        segments = sorted(current.values().stream().map(Opened::segment).toList());
+    }
+
+    @Scheduled(fixedDelayString = "${api.reservations.archive.rescan-interval}", initialDelayString = "${api.reservations.archive.rescan-interval}")
+    @EventListener({ClusterEvent.ArchiveChanged.class, ClusterResync.class})
+    public void rescan() {
+        try {
+            open();
+        } catch (IOException exception) {
+            log.warn("Could not rescan reservation archive {}", directory, exception);
+        }
+    }
+
+    public synchronized void write(YearMonth month, List<ArchivedReservation> reservations) {
+        try {
+            Files.createDirectories(directory);
+            Path path = directory.resolve(PREFIX + month + SUFFIX);
+            ArchiveSegment.write(path, month, reservations);
+            open();
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not write reservation archive segment", exception);
+        }
+    }
+
+    public Optional<LocalDateTime> getArchivedUntil() {
+        List<ArchiveSegment> current = segments;
+        return current.isEmpty() ? Optional.empty() : Optional.of(current.get(current.size() - 1).getEnd());
+    }
+
+    public List<ReservationResponseDTO> findPageByUser(UUID userId, LocalDateTime dateTime, UUID id, int limit) {
+        List<ReservationResponseDTO> page = new ArrayList<>();
+
+        for(ArchiveSegment segment : segments) {
+            if(page.size() >= limit) break;
+            if(dateTime != null && !segment.getEnd().isAfter(dateTime)) continue;
+
+            page.addAll(segment.findByUser(userId, dateTime, id, limit - page.size()));
+        }
+        return page;
+    }
+
+    public Stream<ReservationResponseDTO> streamAll(UUID restaurantId) {
+        return segments.stream().flatMap(segment -> segment.stream(restaurantId));
+    }
+
+    private List<ArchiveSegment> sorted(List<ArchiveSegment> segments) {
+        return segments.stream()
+                .sorted(Comparator.comparing(ArchiveSegment::getMonth))
+                .toList();
+    }
+
+    private record Opened(Object fileKey, FileTime modified, ArchiveSegment segment) {
+        private boolean matches(BasicFileAttributes attributes) {
+            return Objects.equals(fileKey, attributes.fileKey()) && modified.equals(attributes.lastModifiedTime());
+        }
+    }
+}
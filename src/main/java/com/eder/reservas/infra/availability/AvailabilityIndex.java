@@ -0,0 +1,277 @@
+package com.eder.reservas.infra.availability;
+
+import com.eder.reservas.domain.table.Table;
+import com.eder.reservas.domain.table.TableStatus;
+import com.eder.reservas.dtos.table.TableResponseDTO;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.repositories.ReservationRepository;
+import com.eder.reservas.repositories.TableRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+@Component
+public class AvailabilityIndex {
+    private static final Duration MAX_RESERVATION_LENGTH = Duration.ofDays(1);
+
+    @Autowired
+    private TableRepository tableRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Getter
+    @Value("${api.reservations.duration}")
+    private Duration reservationDuration;
+
+    private volatile State state = new State();
+    private volatile State building;
+
+    @PostConstruct
+    public void validate() {
+        if(reservationDuration.isNegative() || reservationDuration.isZero() || reservationDuration.compareTo(MAX_RESERVATION_LENGTH) > 0) {
+            throw new IllegalStateException("api.reservations.duration must be positive and at most " + MAX_RESERVATION_LENGTH + ": " + reservationDuration);
+        }
+    }
+
+    public synchronized void rebuild() {
+        State next = new State();
+        building = next;
+        try {
+            tableRepository.findAll().forEach(next::putTable);
+            LocalDateTime now = LocalDateTime.now();
+            reservationRepository.findActiveSlotsEndingAfter(now, now.minus(MAX_RESERVATION_LENGTH))
+                    .forEach(slot -> next.reserve(slot.getTableId(), slot.getId(), slot.getStart(), slot.getEnd()));
+            state = next;
+        } finally {
+            building = null;
+        }
+    }
+
+    @Transactional
+    @EventListener
+    public void onTablesChanged(ClusterEvent.TablesChanged event) {
+        List<Table> current = tableRepository.findAllByRestaurantId(event.restaurantId());
+        Set<UUID> ids = new HashSet<>();
+        current.forEach(table -> {
+            ids.add(table.getId());
+            putTable(table);
+        });
+        state.tables.forEach((id, slots) -> {
+            if(slots.restaurantId.equals(event.restaurantId()) && !ids.contains(id)) removeTable(id);
+        });
+    }
+
+    @EventListener
+    public void onSlotReserved(ClusterEvent.SlotReserved event) {
+        reserve(event.tableId(), event.reservationId(), event.start(), event.end());
+    }
+
+    @EventListener
+    public void onSlotReleased(ClusterEvent.SlotReleased event) {
+        release(event.tableId(), event.reservationId(), event.start());
+    }
+
+    public void putTable(Table table) {
+        apply(target -> target.putTable(table));
+    }
+
+    public void removeTable(UUID tableId) {
+        apply(target -> target.removeTable(tableId));
+    }
+
+    public void reserve(UUID tableId, UUID reservationId, LocalDateTime start, LocalDateTime end) {
+        apply(target -> target.reserve(tableId, reservationId, start, end));
+    }
+
+    public boolean isFree(UUID tableId, LocalDateTime start, LocalDateTime end) {
+        return state.isFree(tableId, start, end);
+    }
+
+    public void release(UUID tableId, UUID reservationId, LocalDateTime start) {
+        apply(target -> target.release(tableId, reservationId, start));
+    }
+
+    public void removeEndedBefore(LocalDateTime dateTime) {
+        apply(target -> target.removeEndedBefore(dateTime));
+    }
+
+    public List<TableResponseDTO> findAvailable(UUID restaurantId, LocalDateTime from, LocalDateTime to, int people) {
+        List<TableResponseDTO> available = findBestFit(restaurantId, from, to, people);
+        available.sort(TABLE_ORDER);
+
+        return available;
+    }
+
+    public List<TableResponseDTO> findBestFit(UUID restaurantId, LocalDateTime from, LocalDateTime to, int people) {
+        return state.findBestFit(restaurantId, from, to, people);
+    }
+
+    // Changes that land while a rebuild is loading go to both states, so the swap does not drop them.
+    private void apply(Consumer<State> change) {
+        State next = building;
+        change.accept(state);
+        if(next != null) change.accept(next);
+    }
+
+    private static final class State {
+        private final ConcurrentMap<UUID, TableSlots> tables = new ConcurrentHashMap<>();
+        private final ConcurrentMap<UUID, TreeMap<Integer, TreeSet<TableResponseDTO>>> byRestaurant = new ConcurrentHashMap<>();
+
+        private void putTable(Table table) {
+            TableResponseDTO metadata = TableResponseDTO.from(table);
+
+            tables.compute(table.getId(), (id, current) -> {
+                TableSlots slots = current == null ? new TableSlots(table.getRestaurantId()) : current;
+                TreeMap<Integer, TreeSet<TableResponseDTO>> byCapacity = byCapacity(slots.restaurantId);
+                synchronized(byCapacity) {
+                    if(slots.table != null) unindex(byCapacity, slots.table);
+                    if(metadata.status() == TableStatus.AVAILABLE) {
+                        byCapacity.computeIfAbsent(metadata.capacity(), c -> new TreeSet<>(TABLE_ORDER)).add(metadata);
+                    }
+                }
+                slots.table = metadata;
+                return slots;
+            });
+        }
+
+        private void removeTable(UUID tableId) {
+            tables.computeIfPresent(tableId, (id, slots) -> {
+                TreeMap<Integer, TreeSet<TableResponseDTO>> byCapacity = byCapacity(slots.restaurantId);
+                synchronized(byCapacity) {
+                    unindex(byCapacity, slots.table);
+                }
+                return null;
+            });
+        }
+
+        private void reserve(UUID tableId, UUID reservationId, LocalDateTime start, LocalDateTime end) {
+            TableSlots slots = tables.get(tableId);
+            if(slots == null) return;
+
+            synchronized(slots) {
+                slots.removeOverlapping(start, end);
+                slots.add(new Slot(start, end, reservationId));
+            }
+        }
+
+        private boolean isFree(UUID tableId, LocalDateTime start, LocalDateTime end) {
+            TableSlots slots = tables.get(tableId);
+            if(slots == null) return false;
+
+            synchronized(slots) {
+                return !slots.overlaps(start, end);
+            }
+        }
+
+        private void release(UUID tableId, UUID reservationId, LocalDateTime start) {
+            TableSlots slots = tables.get(tableId);
+            if(slots == null) return;
+
+            synchronized(slots) {
+                slots.remove(start, reservationId);
+            }
+        }
+
+        private void removeEndedBefore(LocalDateTime dateTime) {
+            for(TableSlots slots : tables.values()) {
+                synchronized(slots) {
+                    slots.removeEndedBefore(dateTime);
+                }
+            }
+        }
+
+        private List<TableResponseDTO> findBestFit(UUID restaurantId, LocalDateTime from, LocalDateTime to, int people) {
+            TreeMap<Integer, TreeSet<TableResponseDTO>> byCapacity = byRestaurant.get(restaurantId);
+            if(byCapacity == null) return new ArrayList<>();
+
+            List<TableResponseDTO> candidates = new ArrayList<>();
+            synchronized(byCapacity) {
+                byCapacity.tailMap(people, true).values().forEach(candidates::addAll);
+            }
+
+            List<TableResponseDTO> available = new ArrayList<>();
+            for(TableResponseDTO table : candidates) {
+                if(isFree(table.id(), from, to)) available.add(table);
+            }
+            return available;
+        }
+
+        private TreeMap<Integer, TreeSet<TableResponseDTO>> byCapacity(UUID restaurantId) {
+            return byRestaurant.computeIfAbsent(restaurantId, id -> new TreeMap<>());
+        }
+
+        private static void unindex(TreeMap<Integer, TreeSet<TableResponseDTO>> byCapacity, TableResponseDTO table) {
+            TreeSet<TableResponseDTO> sameCapacity = byCapacity.get(table.capacity());
+            if(sameCapacity == null) return;
+
+            sameCapacity.remove(table);
+            if(sameCapacity.isEmpty()) byCapacity.remove(table.capacity());
+        }
+    }
+
+    private record Slot(LocalDateTime start, LocalDateTime end, UUID reservationId) {
+    }
+
+    private static final Comparator<TableResponseDTO> TABLE_ORDER = Comparator
+            .comparingInt(TableResponseDTO::number)
+            .thenComparing(TableResponseDTO::id);
+
+    private static final Comparator<Slot> SLOT_ORDER = Comparator
+            .comparing(Slot::start)
+            .thenComparing(Slot::reservationId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private static final class TableSlots {
+        private final UUID restaurantId;
+        private volatile TableResponseDTO table;
+        private final TreeSet<Slot> slots = new TreeSet<>(SLOT_ORDER);
+        private Duration longest = Duration.ZERO;
+
+        private TableSlots(UUID restaurantId) {
+            this.restaurantId = restaurantId;
+        }
+
+        private boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            for(Slot slot : candidates(start, end)) {
+                if(slot.end().isAfter(start)) return true;
+            }
+            return false;
+        }
+
+        private void removeOverlapping(LocalDateTime start, LocalDateTime end) {
+            candidates(start, end).removeIf(slot -> slot.end().isAfter(start));
+        }
+
+        private NavigableSet<Slot> candidates(LocalDateTime start, LocalDateTime end) {
+            Slot from = new Slot(start.minus(longest), null, null);
+            Slot to = new Slot(end, null, null);
+
+            return slots.subSet(from, true, to, false);
+        }
+
+        private void add(Slot slot) {
+            slots.add(slot);
+            Duration length = Duration.between(slot.start(), slot.end());
+            if(length.compareTo(longest) > 0) longest = length;
+        }
+
+        private void remove(LocalDateTime start, UUID reservationId) {
+            slots.remove(new Slot(start, null, reservationId));
+        }
+
+        private void removeEndedBefore(LocalDateTime dateTime) {
+            Slot to = new Slot(dateTime, null, null);
+            slots.headSet(to).removeIf(slot -> !slot.end().isAfter(dateTime));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.eder.reservas.infra.availability;
+
+import com.eder.reservas.infra.cluster.ClusterResync;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+@RequiredArgsConstructor
+public class AvailabilityIndexLoader {
+    private final AvailabilityIndex availabilityIndex;
+
+    @Transactional
+    @EventListener(ClusterResync.class)
+    public void load() {
+        availabilityIndex.rebuild();
+    }
+}
@@ -0,0 +1,74 @@
+package com.eder.reservas.infra.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ExpiringCache<K, V> {
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public Optional<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        if(entry == null) return Optional.empty();
+
+        if(entry.isExpired(System.nanoTime())) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value());
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        if(entries.size() > maxSize) evict();
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Approximate eviction: drop expired entries met on the way, otherwise the one closest
+    // to expiring among the first few sampled, until the cache is back within its bound.
+    private void evict() {
+        while(entries.size() > maxSize) {
+            long now = System.nanoTime();
+            Map.Entry<K, Entry<V>> victim = null;
+            int sampled = 0;
+
+            for(Map.Entry<K, Entry<V>> candidate : entries.entrySet()) {
+                if(candidate.getValue().isExpired(now)) {
+                    victim = candidate;
+                    break;
+                }
+                if(victim == null || candidate.getValue().expiresAt() - victim.getValue().expiresAt() < 0) victim = candidate;
+                if(++sampled == EVICTION_SAMPLE) break;
+            }
+            if(victim == null) return;
+            entries.remove(victim.getKey(), victim.getValue());
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+        private boolean isExpired(long now) {
+            return expiresAt - now < 0;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.eder.reservas.infra.catalog;
+
+import com.eder.reservas.domain.table.Table;
+import com.eder.reservas.dtos.table.TableResponseDTO;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.infra.cluster.ClusterResync;
+import com.eder.reservas.repositories.TableRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class TableCatalog {
+    private final TableRepository tableRepository;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<UUID, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Snapshot empty;
+
+    public TableCatalog(TableRepository tableRepository, ObjectMapper objectMapper) {
+        this.tableRepository = tableRepository;
+        this.objectMapper = objectMapper;
+        this.empty = build(List.of());
+    }
+
+    @PostConstruct
+    public synchronized void reload() {
+        Map<UUID, List<TableResponseDTO>> byRestaurant = tableRepository.findAll().stream()
+                .collect(Collectors.groupingBy(Table::getRestaurantId, Collectors.mapping(TableResponseDTO::from, Collectors.toList())));
+
+        snapshots.keySet().forEach(restaurantId -> byRestaurant.putIfAbsent(restaurantId, List.of()));
+        byRestaurant.forEach((restaurantId, tables) -> snapshots.put(restaurantId, build(tables)));
+    }
+
+    public synchronized void reload(UUID restaurantId) {
+        List<TableResponseDTO> tables = tableRepository.findAllByRestaurantId(restaurantId).stream()
+                .map(TableResponseDTO::from)
+                .toList();
+
+        snapshots.put(restaurantId, build(tables));
+    }
+
+    @Transactional
+    @EventListener
+    public void onTablesChanged(ClusterEvent.TablesChanged event) {
+        reload(event.restaurantId());
+    }
+
+    @Transactional
+    @EventListener(ClusterResync.class)
+    public void onResync() {
+        reload();
+    }
+
+    public void put(UUID restaurantId, TableResponseDTO table) {
+        snapshots.compute(restaurantId, (id, current) -> {
+            List<TableResponseDTO> tables = new ArrayList<>(snapshot(current).tables());
+            tables.removeIf(t -> t.id().equals(table.id()));
+            tables.add(table);
+            return build(tables);
+        });
+    }
+
+    public void putAll(UUID restaurantId, Collection<TableResponseDTO> tables) {
+        snapshots.compute(restaurantId, (id, current) -> {
+            Map<UUID, TableResponseDTO> updated = new HashMap<>(snapshot(current).byId());
+            tables.forEach(t -> updated.put(t.id(), t));
+            return build(new ArrayList<>(updated.values()));
+        });
+    }
+
+    public void remove(UUID restaurantId, UUID id) {
+        snapshots.computeIfPresent(restaurantId, (key, current) -> {
+            List<TableResponseDTO> tables = new ArrayList<>(current.tables());
+            return tables.removeIf(t -> t.id().equals(id)) ? build(tables) : current;
+        });
+    }
+
+    public Optional<TableResponseDTO> findByNumber(UUID restaurantId, int number) {
+        return Optional.ofNullable(snapshot(restaurantId).byNumber().get(number));
+    }
+
+    public Optional<TableResponseDTO> findById(UUID restaurantId, UUID id) {
+        return Optional.ofNullable(snapshot(restaurantId).byId().get(id));
+    }
+
+    public List<TableResponseDTO> getTables(UUID restaurantId) {
+        return snapshot(restaurantId).tables();
+    }
+
+    public byte[] getJson(UUID restaurantId) {
+        return snapshot(restaurantId).json();
+    }
+
+    public String getETag(UUID restaurantId) {
+        return snapshot(restaurantId).eTag();
+    }
+
+    private Snapshot snapshot(UUID restaurantId) {
+        return snapshot(snapshots.get(restaurantId));
+    }
+
+    private Snapshot snapshot(Snapshot snapshot) {
+        return snapshot == null ? empty : snapshot;
+    }
+
+    private Snapshot build(List<TableResponseDTO> tables) {
+        List<TableResponseDTO> sorted = tables.stream()
+                .sorted(Comparator.comparingInt(TableResponseDTO::number))
+                .toList();
+        Map<UUID, TableResponseDTO> byId = sorted.stream()
+                .collect(Collectors.toUnmodifiableMap(TableResponseDTO::id, Function.identity()));
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(sorted);
+            return new Snapshot(sorted, new NumberIndex(sorted), byId, json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Could not serialize table catalog", exception);
+        }
+    }
+
+    private record Snapshot(List<TableResponseDTO> tables, NumberIndex byNumber, Map<UUID, TableResponseDTO> byId, byte[] json, String eTag) {
+    }
+
+    private static final class NumberIndex {
+        private final int[] numbers;
+        private final TableResponseDTO[] tables;
+        private final int mask;
+
+        private NumberIndex(List<TableResponseDTO> entries) {
+            int capacity = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+            numbers = new int[capacity];
+            tables = new TableResponseDTO[capacity];
+            mask = capacity - 1;
+
+            for(TableResponseDTO table : entries) {
+                int slot = slot(table.number());
+                while(tables[slot] != null) slot = (slot + 1) & mask;
+                numbers[slot] = table.number();
+                tables[slot] = table;
+            }
+        }
+
+        private TableResponseDTO get(int number) {
+            for(int slot = slot(number); tables[slot] != null; slot = (slot + 1) & mask) {
+                if(numbers[slot] == number) return tables[slot];
+            }
+            return null;
+        }
+
+        private int slot(int number) {
+            int hash = number * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
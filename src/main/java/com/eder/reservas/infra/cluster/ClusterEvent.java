@@ -0,0 +1,33 @@
+package com.eder.reservas.infra.cluster;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.UUID;
+
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = ClusterEvent.TablesChanged.class, name = "tables"),
+        @JsonSubTypes.Type(value = ClusterEvent.SlotReserved.class, name = "reserved"),
+        @JsonSubTypes.Type(value = ClusterEvent.SlotReleased.class, name = "released"),
+        @JsonSubTypes.Type(value = ClusterEvent.PrincipalChanged.class, name = "principal"),
+        @JsonSubTypes.Type(value = ClusterEvent.ArchiveChanged.class, name = "archive")
+})
+public sealed interface ClusterEvent {
+    record TablesChanged(UUID restaurantId) implements ClusterEvent {
+    }
+
+    record SlotReserved(UUID restaurantId, UUID tableId, UUID reservationId, LocalDateTime start, LocalDateTime end) implements ClusterEvent {
+    }
+
+    record SlotReleased(UUID restaurantId, UUID tableId, UUID reservationId, LocalDateTime start) implements ClusterEvent {
+    }
+
+    record PrincipalChanged(String email) implements ClusterEvent {
+    }
+
+    record ArchiveChanged(YearMonth month) implements ClusterEvent {
+    }
+}
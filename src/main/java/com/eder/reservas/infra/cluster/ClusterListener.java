@@ -0,0 +1,114 @@
+package com.eder.reservas.infra.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+@Component
+public class ClusterListener {
+    private static final Logger log = LoggerFactory.getLogger(ClusterListener.class);
+
+    private final HikariDataSource primaryDataSource;
+    private final ClusterNotifier clusterNotifier;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration heartbeat;
+    private final Duration retryInterval;
+    private volatile boolean running;
+    private Thread thread;
+
+    public ClusterListener(HikariDataSource primaryDataSource,
+                           ClusterNotifier clusterNotifier,
+                           ObjectMapper objectMapper,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${api.cluster.heartbeat}") Duration heartbeat,
+                           @Value("${api.cluster.retry-interval}") Duration retryInterval) {
+        this.primaryDataSource = primaryDataSource;
+        this.clusterNotifier = clusterNotifier;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.heartbeat = heartbeat;
+        this.retryInterval = retryInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if(running) return;
+        running = true;
+        thread = new Thread(this::run, "cluster-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if(thread != null) thread.interrupt();
+    }
+
+    private void run() {
+        while(running) {
+            try(Connection connection = primaryDataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + ClusterNotifier.CHANNEL);
+                eventPublisher.publishEvent(new ClusterResync());
+                listen(connection);
+            } catch (SQLException | RuntimeException exception) {
+                if(!running) return;
+                log.warn("Cluster listener lost its connection, resyncing in {}", retryInterval, exception);
+                sleep(retryInterval);
+            }
+        }
+    }
+
+    private void listen(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+        while(running) {
+            PGNotification[] notifications = pgConnection.getNotifications((int) heartbeat.toMillis());
+            if(notifications == null || notifications.length == 0) {
+                if(!connection.isValid((int) Math.max(1, heartbeat.toSeconds()))) {
+                    throw new SQLException("Cluster listener connection is no longer valid");
+                }
+                continue;
+            }
+            for(PGNotification notification : notifications) {
+                dispatch(notification.getParameter());
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        int separator = payload.indexOf(':');
+        if(separator < 0 || payload.substring(0, separator).equals(clusterNotifier.getNode())) return;
+
+        try {
+            eventPublisher.publishEvent(objectMapper.readValue(payload.substring(separator + 1), ClusterEvent.class));
+        } catch (JsonProcessingException exception) {
+            log.warn("Ignoring unreadable cluster event {}", payload);
+        }
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.eder.reservas.infra.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+public class ClusterNotifier {
+    static final String CHANNEL = "reservas_events";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    @Getter
+    private final String node = UUID.randomUUID().toString();
+
+    public ClusterNotifier(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void publish(ClusterEvent event) {
+        try {
+            jdbcTemplate.queryForList("select 1 from pg_notify(?, ?)", CHANNEL, node + ":" + objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Could not serialize cluster event", exception);
+        }
+    }
+}
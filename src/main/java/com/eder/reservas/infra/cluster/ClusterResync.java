@@ -0,0 +1,4 @@
+package com.eder.reservas.infra.cluster;
+
+public record ClusterResync() {
+}
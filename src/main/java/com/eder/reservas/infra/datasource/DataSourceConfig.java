@@ -0,0 +1,60 @@
+package com.eder.reservas.infra.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@Configuration
+public class DataSourceConfig {
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                                      DataSourceProperties properties,
+                                                      MeterRegistry meterRegistry,
+                                                      @Value("${api.datasource.replicas.urls}") List<String> urls,
+                                                      @Value("${api.datasource.replicas.max-lag}") Duration maxLag,
+                                                      @Value("${api.datasource.replicas.pool-size}") int poolSize) {
+        List<HikariDataSource> replicas = IntStream.range(0, urls.size())
+                .mapToObj(i -> replica(properties, urls.get(i), "replica-" + i, poolSize))
+                .toList();
+
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag);
+        meterRegistry.gauge("datasource.replicas.healthy", dataSource, ReplicaRoutingDataSource::getHealthyCount);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    private HikariDataSource replica(DataSourceProperties properties, String url, String name, int poolSize) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setJdbcUrl(url.trim());
+        replica.setUsername(properties.determineUsername());
+        replica.setPassword(properties.determinePassword());
+        replica.setPoolName(name);
+        replica.setMaximumPoolSize(poolSize);
+        replica.setReadOnly(true);
+        return replica;
+    }
+}
@@ -0,0 +1,108 @@
+package com.eder.reservas.infra.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String LAG_QUERY = """
+            select case when not pg_is_in_recovery() then 0
+                        when not exists (select 1 from pg_stat_wal_receiver where status = 'streaming') then null
+                        when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                        else extract(epoch from now() - pg_last_xact_replay_timestamp())
+                   end
+            """;
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<HikariDataSource> healthy = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        List<HikariDataSource> current = healthy;
+        if(current.isEmpty()) return primary.getConnection();
+
+        HikariDataSource replica = current.get(Math.floorMod(next.getAndIncrement(), current.size()));
+        try {
+            return replica.getConnection();
+        } catch (SQLException exception) {
+            log.warn("Replica {} is unavailable, reading from primary", replica.getPoolName(), exception);
+            markDown(replica);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    @Scheduled(fixedDelayString = "${api.datasource.replicas.check-interval}")
+    public void checkLag() {
+        if(replicas.isEmpty()) return;
+
+        List<HikariDataSource> current = healthy;
+        List<HikariDataSource> updated = replicas.stream().filter(this::isCaughtUp).toList();
+
+        updated.stream()
+                .filter(r -> !current.contains(r))
+                .forEach(r -> log.info("Replica {} is caught up, routing reads to it", r.getPoolName()));
+        healthy = updated;
+    }
+
+    public int getHealthyCount() {
+        return healthy.size();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    private boolean isCaughtUp(HikariDataSource replica) {
+        try(Connection connection = replica.getConnection();
+            Statement statement = connection.createStatement();
+            ResultSet result = statement.executeQuery(LAG_QUERY)) {
+            result.next();
+            double seconds = result.getDouble(1);
+            if(result.wasNull()) {
+                if(healthy.contains(replica)) log.warn("Replica {} is not streaming from primary, reading from primary", replica.getPoolName());
+                return false;
+            }
+
+            Duration lag = Duration.ofMillis(Math.round(seconds * 1000));
+            if(lag.compareTo(maxLag) <= 0) return true;
+
+            if(healthy.contains(replica)) log.warn("Replica {} is {} behind, reading from primary", replica.getPoolName(), lag);
+            return false;
+        } catch (SQLException exception) {
+            if(healthy.contains(replica)) log.warn("Replica {} is unavailable, reading from primary", replica.getPoolName(), exception);
+            return false;
+        }
+    }
+
+    private synchronized void markDown(HikariDataSource replica) {
+        healthy = healthy.stream().filter(r -> r != replica).toList();
+    }
+}
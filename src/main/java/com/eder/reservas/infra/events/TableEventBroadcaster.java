@@ -0,0 +1,279 @@
+package com.eder.reservas.infra.events;
+
+import com.eder.reservas.domain.table.TableEventType;
+import com.eder.reservas.dtos.table.TableEventDTO;
+import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class TableEventBroadcaster {
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<UUID, Set<Subscriber>> byRestaurant = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final Duration timeout;
+    private final Duration sendTimeout;
+    private final int bufferSize;
+    private final int maxSubscribers;
+
+    public TableEventBroadcaster(@Value("${api.tables.stream.timeout}") Duration timeout,
+                                 @Value("${api.tables.stream.buffer-size}") int bufferSize,
+                                 @Value("${api.tables.stream.max-subscribers}") int maxSubscribers,
+                                 @Value("${api.tables.stream.threads}") int threads,
+                                 @Value("${api.tables.stream.send-timeout}") Duration sendTimeout) {
+        this.timeout = timeout;
+        this.sendTimeout = sendTimeout;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+
+        AtomicInteger count = new AtomicInteger();
+        // Each subscriber has at most one drain running, and subscribers stay counted until it returns,
+        // so the pool never needs more threads than max-subscribers.
+        this.senders = new ThreadPoolExecutor(Math.min(threads, maxSubscribers), maxSubscribers, 1, TimeUnit.MINUTES, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "table-events-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe(UUID restaurantId) {
+        if(subscribers.size() >= maxSubscribers) {
+            throw new ApiException("Too many table stream subscribers", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(restaurantId, emitter);
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> remove(subscriber));
+        subscribers.add(subscriber);
+        byRestaurant.compute(restaurantId, (id, restaurantSubscribers) -> {
+            Set<Subscriber> updated = restaurantSubscribers == null ? ConcurrentHashMap.newKeySet() : restaurantSubscribers;
+            updated.add(subscriber);
+            return updated;
+        });
+
+        if(subscriber.resync()) schedule(subscriber);
+        return emitter;
+    }
+
+    public void publish(UUID restaurantId, TableEventDTO event) {
+        for(Subscriber subscriber : byRestaurant.getOrDefault(restaurantId, Set.of())) {
+            if(subscriber.offer(event, bufferSize)) schedule(subscriber);
+        }
+    }
+
+    public void resync(UUID restaurantId) {
+        for(Subscriber subscriber : byRestaurant.getOrDefault(restaurantId, Set.of())) {
+            if(subscriber.resync()) schedule(subscriber);
+        }
+    }
+
+    @EventListener
+    public void onSlotReserved(ClusterEvent.SlotReserved event) {
+        publish(event.restaurantId(), TableEventDTO.bookings(event.tableId()));
+    }
+
+    @EventListener
+    public void onSlotReleased(ClusterEvent.SlotReleased event) {
+        publish(event.restaurantId(), TableEventDTO.bookings(event.tableId()));
+    }
+
+    @EventListener
+    public void onTablesChanged(ClusterEvent.TablesChanged event) {
+        resync(event.restaurantId());
+    }
+
+    @Scheduled(fixedDelayString = "${api.tables.stream.heartbeat}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+
+        for(Subscriber subscriber : subscribers) {
+            if(subscriber.stalled(now, sendTimeout)) {
+                subscriber.expire();
+                remove(subscriber);
+            } else if(subscriber.ping()) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(s -> s.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private void schedule(Subscriber subscriber) {
+        try {
+            senders.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException exception) {
+            subscriber.expire();
+            subscriber.emitter.complete();
+            remove(subscriber);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            send(subscriber);
+        } finally {
+            if(subscriber.closed) subscribers.remove(subscriber);
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        Batch batch;
+
+        while((batch = subscriber.take()) != null) {
+            subscriber.startSending();
+            try {
+                if(batch.resync()) {
+                    subscriber.emitter.send(SseEmitter.event().name("resync").data(""));
+                }
+                for(TableEventDTO event : batch.events()) {
+                    subscriber.emitter.send(SseEmitter.event().name(event.type().name().toLowerCase()).data(event));
+                }
+                if(batch.ping()) {
+                    subscriber.emitter.send(SseEmitter.event().comment("ping"));
+                }
+            } catch (IOException | IllegalStateException exception) {
+                remove(subscriber);
+                return;
+            } finally {
+                subscriber.stopSending();
+            }
+        }
+        if(subscriber.expired) {
+            subscriber.emitter.complete();
+            remove(subscriber);
+        }
+    }
+
+    // A subscriber whose sender is still blocked keeps its slot until the send returns.
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        if(!subscriber.isSending()) subscribers.remove(subscriber);
+        byRestaurant.computeIfPresent(subscriber.restaurantId, (id, restaurantSubscribers) -> {
+            restaurantSubscribers.remove(subscriber);
+            return restaurantSubscribers.isEmpty() ? null : restaurantSubscribers;
+        });
+    }
+
+    private record Batch(boolean resync, List<TableEventDTO> events, boolean ping) {
+    }
+
+    private static final class Subscriber {
+        private final UUID restaurantId;
+        private final SseEmitter emitter;
+        private final LinkedHashMap<String, TableEventDTO> pending = new LinkedHashMap<>();
+        private boolean resync;
+        private boolean ping;
+        private boolean scheduled;
+        private volatile boolean expired;
+        private volatile boolean closed;
+        private volatile long sendingSince;
+        private Thread sender;
+
+        private Subscriber(UUID restaurantId, SseEmitter emitter) {
+            this.restaurantId = restaurantId;
+            this.emitter = emitter;
+        }
+
+        private synchronized boolean offer(TableEventDTO event, int bufferSize) {
+            if(!resync) {
+                String key = (event.type() == TableEventType.BOOKINGS ? "b:" : "t:") + event.id();
+                pending.remove(key);
+                pending.put(key, event);
+
+                if(pending.size() > bufferSize) {
+                    pending.clear();
+                    resync = true;
+                }
+            }
+            return schedule();
+        }
+
+        private synchronized boolean resync() {
+            pending.clear();
+            resync = true;
+            return schedule();
+        }
+
+        private synchronized boolean ping() {
+            ping = true;
+            return schedule();
+        }
+
+        private synchronized Batch take() {
+            if(expired || (!resync && !ping && pending.isEmpty())) {
+                scheduled = false;
+                return null;
+            }
+            Batch batch = new Batch(resync, List.copyOf(pending.values()), ping);
+            pending.clear();
+            resync = false;
+            ping = false;
+            return batch;
+        }
+
+        private synchronized void startSending() {
+            sender = Thread.currentThread();
+            sendingSince = System.nanoTime();
+        }
+
+        private void stopSending() {
+            synchronized(this) {
+                sender = null;
+                sendingSince = 0;
+            }
+            Thread.interrupted();
+        }
+
+        private synchronized boolean isSending() {
+            return sender != null;
+        }
+
+        private boolean stalled(long now, Duration sendTimeout) {
+            long since = sendingSince;
+            return since != 0 && now - since > sendTimeout.toNanos();
+        }
+
+        private synchronized void expire() {
+            expired = true;
+            pending.clear();
+            if(sender != null) sender.interrupt();
+        }
+
+        private boolean schedule() {
+            if(expired || scheduled) return false;
+            scheduled = true;
+            return true;
+        }
+    }
+}
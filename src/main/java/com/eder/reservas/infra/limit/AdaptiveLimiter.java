@@ -0,0 +1,89 @@
+package com.eder.reservas.infra.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AdaptiveLimiter {
+    private static final int PROBE_MULTIPLIER = 30;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private double estimatedLimit;
+    private long noLoadRtt;
+    private long windowRtt = Long.MAX_VALUE;
+    private long samplesUntilProbe;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+        this.samplesUntilProbe = (long) PROBE_MULTIPLIER * initialLimit;
+    }
+
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if(current >= limit) return false;
+        } while(!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(long rttNanos) {
+        update(rttNanos, inFlight.getAndDecrement());
+    }
+
+    public void drop() {
+        inFlight.decrementAndGet();
+        backOff();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    synchronized void backOff() {
+        estimatedLimit = Math.max(minLimit, estimatedLimit * DROP_BACKOFF);
+        limit = (int) estimatedLimit;
+    }
+
+    synchronized void update(long rtt, int inFlight) {
+        if(rtt <= 0) return;
+
+        windowRtt = Math.min(windowRtt, rtt);
+        if(--samplesUntilProbe <= 0) {
+            samplesUntilProbe = (long) PROBE_MULTIPLIER * limit;
+            noLoadRtt = windowRtt;
+            windowRtt = Long.MAX_VALUE;
+        }
+        if(noLoadRtt == 0 || rtt < noLoadRtt) {
+            noLoadRtt = rtt;
+            return;
+        }
+
+        double log = Math.max(1, Math.log10(estimatedLimit));
+        double queue = Math.ceil(estimatedLimit * (1 - (double) noLoadRtt / rtt));
+
+        if(queue >= 6 * log) {
+            estimatedLimit -= log;
+        } else if(queue <= 3 * log && inFlight * 2 >= estimatedLimit) {
+            estimatedLimit += log;
+        } else {
+            return;
+        }
+
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+}
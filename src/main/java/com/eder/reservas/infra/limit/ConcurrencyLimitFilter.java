@@ -0,0 +1,138 @@
+package com.eder.reservas.infra.limit;
+
+import com.eder.reservas.dtos.exception.ApiExceptionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final String OTHER_ROUTE = "other";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String retryAfter;
+    private final Map<String, RouteLimiter> reads = new HashMap<>();
+    private final Map<String, RouteLimiter> writes = new HashMap<>();
+
+    public ConcurrencyLimitFilter(ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  boolean enabled,
+                                  Duration retryAfter,
+                                  List<String> routes,
+                                  Supplier<AdaptiveLimiter> reads,
+                                  Supplier<AdaptiveLimiter> writes) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+
+        for(String route : routes.stream().map(String::trim).toList()) {
+            this.reads.put(route, RouteLimiter.register(meterRegistry, "reads", route, reads.get()));
+            this.writes.put(route, RouteLimiter.register(meterRegistry, "writes", route, writes.get()));
+        }
+        this.reads.putIfAbsent(OTHER_ROUTE, RouteLimiter.register(meterRegistry, "reads", OTHER_ROUTE, reads.get()));
+        this.writes.putIfAbsent(OTHER_ROUTE, RouteLimiter.register(meterRegistry, "writes", OTHER_ROUTE, writes.get()));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Map<String, RouteLimiter> limiters = isWrite(request) ? writes : reads;
+        RouteLimiter route = limiters.getOrDefault(routeOf(request), limiters.get(OTHER_ROUTE));
+        AdaptiveLimiter limiter = route.limiter();
+
+        if(!limiter.tryAcquire()) {
+            route.rejected().increment();
+            reject(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.DROPPED;
+        try {
+            filterChain.doFilter(request, response);
+            outcome = outcomeOf(request, response);
+        } finally {
+            switch(outcome) {
+                case SAMPLED -> limiter.release(System.nanoTime() - start);
+                case IGNORED -> limiter.release();
+                case DROPPED -> limiter.drop();
+            }
+        }
+    }
+
+    // Server errors and exceptions (pool timeouts included) mean the route is saturated and shrink the limit;
+    // client errors say nothing about its latency.
+    private Outcome outcomeOf(HttpServletRequest request, HttpServletResponse response) {
+        if(request.isAsyncStarted()) return Outcome.IGNORED;
+
+        HttpStatusCode status = HttpStatusCode.valueOf(response.getStatus());
+        if(status.is5xxServerError()) return Outcome.DROPPED;
+        if(status.is4xxClientError()) return Outcome.IGNORED;
+        return Outcome.SAMPLED;
+    }
+
+    private String routeOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private boolean isWrite(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        return !(HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method));
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        ApiExceptionDTO body = new ApiExceptionDTO(
+                Instant.now(),
+                status.value(),
+                "Server is overloaded, try again later",
+                request.getRequestURI()
+        );
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private enum Outcome {
+        SAMPLED,
+        IGNORED,
+        DROPPED
+    }
+
+    private record RouteLimiter(AdaptiveLimiter limiter, Counter rejected) {
+        private static RouteLimiter register(MeterRegistry meterRegistry, String type, String route, AdaptiveLimiter limiter) {
+            Tags tags = Tags.of("type", type, "route", route);
+            meterRegistry.gauge("limits.concurrency.limit", tags, limiter, AdaptiveLimiter::getLimit);
+            meterRegistry.gauge("limits.concurrency.in-flight", tags, limiter, AdaptiveLimiter::getInFlight);
+            return new RouteLimiter(limiter, meterRegistry.counter("limits.concurrency.rejected", tags));
+        }
+    }
+}
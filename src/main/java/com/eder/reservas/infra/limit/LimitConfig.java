@@ -0,0 +1,36 @@
+package com.eder.reservas.infra.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class LimitConfig {
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ObjectMapper objectMapper,
+                                                                                MeterRegistry meterRegistry,
+                                                                                @Value("${api.limits.concurrency.enabled}") boolean enabled,
+                                                                                @Value("${api.limits.concurrency.retry-after}") Duration retryAfter,
+                                                                                @Value("${api.limits.concurrency.routes}") List<String> routes,
+                                                                                @Value("${api.limits.concurrency.reads.initial}") int readsInitial,
+                                                                                @Value("${api.limits.concurrency.reads.min}") int readsMin,
+                                                                                @Value("${api.limits.concurrency.reads.max}") int readsMax,
+                                                                                @Value("${api.limits.concurrency.writes.initial}") int writesInitial,
+                                                                                @Value("${api.limits.concurrency.writes.min}") int writesMin,
+                                                                                @Value("${api.limits.concurrency.writes.max}") int writesMax) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(objectMapper, meterRegistry, enabled, retryAfter, routes,
+                () -> new AdaptiveLimiter(readsInitial, readsMin, readsMax),
+                () -> new AdaptiveLimiter(writesInitial, writesMin, writesMax));
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
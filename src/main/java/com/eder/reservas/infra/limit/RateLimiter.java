@@ -0,0 +1,68 @@
+package com.eder.reservas.infra.limit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+public class RateLimiter {
+    private static final int WAYS = 4;
+    private static final int FINGERPRINT_SHIFT = 48;
+    private static final long TIME_MASK = (1L << FINGERPRINT_SHIFT) - 1;
+
+    private final AtomicLongArray slots;
+    private final int setMask;
+    private final long interval;
+    private final long burst;
+    private final LongSupplier clock;
+
+    public RateLimiter(int capacity, Duration period, int slots) {
+        this(capacity, period, slots, monotonicMillis());
+    }
+
+    RateLimiter(int capacity, Duration period, int slots, LongSupplier clock) {
+        int size = Integer.highestOneBit(Math.max(WAYS, slots) - 1) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.setMask = size / WAYS - 1;
+        this.interval = Math.max(1, period.toMillis() / capacity);
+        this.burst = interval * capacity;
+        this.clock = clock;
+    }
+
+    public boolean tryAcquire(String key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        int set = ((hash ^ (hash >>> 16)) & setMask) * WAYS;
+        long fingerprint = (hash >>> 16) | 1;
+        long now = clock.getAsLong();
+
+        while(true) {
+            int index = find(set, fingerprint, now);
+            long slot = slots.get(index);
+            long owner = slot >>> FINGERPRINT_SHIFT;
+            long arrival = slot & TIME_MASK;
+            if(owner != fingerprint && arrival <= now) owner = fingerprint;
+
+            long next = Math.max(arrival, now) + interval;
+            if(next - now > burst) return false;
+            if(slots.compareAndSet(index, slot, owner << FINGERPRINT_SHIFT | next)) return true;
+        }
+    }
+
+    public long getRetryAfterMillis() {
+        return interval;
+    }
+
+    private int find(int set, long fingerprint, long now) {
+        int expired = -1;
+        for(int way = 0; way < WAYS; way++) {
+            long slot = slots.get(set + way);
+            if(slot >>> FINGERPRINT_SHIFT == fingerprint) return set + way;
+            if(expired < 0 && (slot & TIME_MASK) <= now) expired = set + way;
+        }
+        return expired >= 0 ? expired : set + (int) (fingerprint & (WAYS - 1));
+    }
+
+    private static LongSupplier monotonicMillis() {
+        long origin = System.nanoTime();
+        return () -> (System.nanoTime() - origin) / 1_000_000;
+    }
+}
@@ -1,7 +1,6 @@
 package com.eder.reservas.infra.security;
 
 import com.eder.reservas.domain.user.User;
-import com.eder.reservas.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -10,11 +9,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
-    private UserRepository userRepository;
+    private PrincipalCache principalCache;
 
     @Override
     public User loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByEmail(username)
+        return principalCache.find(username)
                 .orElseThrow(() -> new UsernameNotFoundException("No user found with the provided email"));
     }
 }
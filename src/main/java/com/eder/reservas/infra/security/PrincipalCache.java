@@ -0,0 +1,61 @@
+package com.eder.reservas.infra.security;
+
+import com.eder.reservas.domain.user.User;
+import com.eder.reservas.domain.user.UserRole;
+import com.eder.reservas.infra.cache.ExpiringCache;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.infra.cluster.ClusterResync;
+import com.eder.reservas.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+@Component
+public class PrincipalCache {
+    private final UserRepository userRepository;
+    private final ExpiringCache<String, Principal> principals;
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${api.security.principals.max-size}") int maxSize,
+                          @Value("${api.security.principals.ttl}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.principals = new ExpiringCache<>(maxSize, ttl);
+    }
+
+    public Optional<User> find(String email) {
+        Optional<Principal> cached = principals.get(email);
+        if(cached.isPresent()) return cached.map(Principal::toUser);
+
+        Optional<User> user = userRepository.findByEmail(email);
+        user.ifPresent(u -> principals.put(email, Principal.from(u)));
+        return user;
+    }
+
+    public void invalidate(String email) {
+        principals.invalidate(email);
+    }
+
+    @EventListener
+    public void onPrincipalChanged(ClusterEvent.PrincipalChanged event) {
+        invalidate(event.email());
+    }
+
+    @EventListener(ClusterResync.class)
+    public void onResync() {
+        principals.clear();
+    }
+
+    private record Principal(UUID id, String name, String email, String password, UserRole role) {
+        private static Principal from(User user) {
+            return new Principal(user.getId(), user.getName(), user.getEmail(), user.getPassword(), user.getRole());
+        }
+
+        private User toUser() {
+            return new User(id, name, email, password, role);
+        }
+    }
+}
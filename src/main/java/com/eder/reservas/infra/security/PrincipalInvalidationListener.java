@@ -0,0 +1,27 @@
+package com.eder.reservas.infra.security;
+
+import com.eder.reservas.domain.user.User;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.infra.cluster.ClusterNotifier;
+import com.eder.reservas.infra.transaction.TransactionHooks;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+public class PrincipalInvalidationListener {
+    private final ObjectProvider<PrincipalCache> principalCache;
+    private final ObjectProvider<ClusterNotifier> clusterNotifier;
+
+    public PrincipalInvalidationListener(ObjectProvider<PrincipalCache> principalCache, ObjectProvider<ClusterNotifier> clusterNotifier) {
+        this.principalCache = principalCache;
+        this.clusterNotifier = clusterNotifier;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void invalidate(User user) {
+        String email = user.getEmail();
+        clusterNotifier.ifAvailable(notifier -> notifier.publish(new ClusterEvent.PrincipalChanged(email)));
+        TransactionHooks.afterCommit(() -> principalCache.ifAvailable(cache -> cache.invalidate(email)));
+    }
+}
@@ -0,0 +1,184 @@
+package com.eder.reservas.infra.security;
+
+import com.eder.reservas.dtos.exception.ApiExceptionDTO;
+import com.eder.reservas.infra.limit.RateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Set;
+
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Set<String> LOGIN_PATHS = Set.of("/users/login", "/users/register");
+    private static final String ACCOUNT_LOGIN_PATH = "/users/login";
+    private static final String RESERVATIONS_PATH = "/reservations";
+    private static final int MAX_LOGIN_BODY_BYTES = 4096;
+
+    private final TokenService tokenService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final RateLimiter login;
+    private final RateLimiter account;
+    private final RateLimiter booking;
+
+    public RateLimitFilter(TokenService tokenService,
+                           ObjectMapper objectMapper,
+                           @Value("${api.limits.rate.enabled}") boolean enabled,
+                           @Value("${api.limits.rate.slots}") int slots,
+                           @Value("${api.limits.rate.login.capacity}") int loginCapacity,
+                           @Value("${api.limits.rate.login.period}") Duration loginPeriod,
+                           @Value("${api.limits.rate.account.capacity}") int accountCapacity,
+                           @Value("${api.limits.rate.account.period}") Duration accountPeriod,
+                           @Value("${api.limits.rate.booking.capacity}") int bookingCapacity,
+                           @Value("${api.limits.rate.booking.period}") Duration bookingPeriod) {
+        this.tokenService = tokenService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.login = new RateLimiter(loginCapacity, loginPeriod, slots);
+        this.account = new RateLimiter(accountCapacity, accountPeriod, slots);
+        this.booking = new RateLimiter(bookingCapacity, bookingPeriod, slots);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !enabled || HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+
+        if(LOGIN_PATHS.contains(path) && !login.tryAcquire(request.getRemoteAddr())) {
+            reject(request, response, login);
+            return;
+        }
+        if(path.equals(ACCOUNT_LOGIN_PATH)) {
+            byte[] body = request.getInputStream().readNBytes(MAX_LOGIN_BODY_BYTES + 1);
+            if(body.length > MAX_LOGIN_BODY_BYTES) {
+                writeError(request, response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+                return;
+            }
+            String email = submittedEmail(body);
+            if(email != null && !account.tryAcquire("email:" + email)) {
+                reject(request, response, account);
+                return;
+            }
+            request = new CachedBodyRequest(request, body);
+        }
+        if(isReservationPath(path) && !booking.tryAcquire(bookingKey(request))) {
+            reject(request, response, booking);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean isReservationPath(String path) {
+        return path.equals(RESERVATIONS_PATH) || path.startsWith(RESERVATIONS_PATH + "/");
+    }
+
+    private String bookingKey(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        TokenClaims claims = authHeader == null ? null : tokenService.validateToken(authHeader.replace("Bearer ", ""));
+
+        return claims == null ? "ip:" + request.getRemoteAddr() : "user:" + claims.subject();
+    }
+
+    private String submittedEmail(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch(IOException e) {
+            // malformed bodies are left to the controller, which answers 400
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, RateLimiter limiter) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString((limiter.getRetryAfterMillis() + 999) / 1000));
+        writeError(request, response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, try again later");
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        ApiExceptionDTO body = new ApiExceptionDTO(
+                Instant.now(),
+                status.value(),
+                message,
+                request.getRequestURI()
+        );
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
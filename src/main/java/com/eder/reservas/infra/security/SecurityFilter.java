@@ -1,23 +1,27 @@
 package com.eder.reservas.infra.security;
 
 import com.eder.reservas.domain.user.User;
-import com.eder.reservas.repositories.UserRepository;
+import com.eder.reservas.infra.tenant.CurrentRestaurantResolver;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class SecurityFilter extends OncePerRequestFilter {
     @Autowired
-    private UserRepository userRepository;
+    private PrincipalCache principalCache;
     @Autowired
     private TokenService tokenService;
 
@@ -26,11 +30,15 @@ public class SecurityFilter extends OncePerRequestFilter {
         String token = recoverToken(request);
 
         if(token != null) {
-            String email = tokenService.validateToken(token);
-            User user = userRepository.findByEmail(email)
+            TokenClaims claims = tokenService.validateToken(token);
+            User user = Optional.ofNullable(claims)
+                    .flatMap(c -> principalCache.find(c.subject()))
                     .orElseThrow(() -> new RuntimeException("User not found to this token"));
 
-            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+            List<GrantedAuthority> authorities = new ArrayList<>(user.getAuthorities());
+            claims.restaurants().forEach(restaurantId -> authorities.add(CurrentRestaurantResolver.memberAuthority(restaurantId)));
+
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, authorities);
             SecurityContextHolder.getContext().setAuthentication(authentication);
         }
         filterChain.doFilter(request, response);
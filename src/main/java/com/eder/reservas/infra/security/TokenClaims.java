@@ -0,0 +1,7 @@
+package com.eder.reservas.infra.security;
+
+import java.util.Set;
+import java.util.UUID;
+
+public record TokenClaims(String subject, Set<UUID> restaurants) {
+}
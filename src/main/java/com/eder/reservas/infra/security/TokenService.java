@@ -4,6 +4,7 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.eder.reservas.domain.user.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -11,19 +12,27 @@ import org.springframework.stereotype.Service;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class TokenService {
+    private static final String RESTAURANTS_CLAIM = "restaurants";
+
     @Value("${api.security.token.secret}")
     private String secret;
 
-    public String generateToken(User user) {
+    public String generateToken(User user, Collection<UUID> restaurantIds) {
         try {
             Algorithm algorithm = Algorithm.HMAC256(secret);
 
             String token = JWT.create()
                     .withIssuer("reservas-api")
                     .withSubject(user.getEmail())
+                    .withClaim(RESTAURANTS_CLAIM, restaurantIds.stream().map(UUID::toString).toList())
                     .withExpiresAt(this.generateExpirationDate())
                     .sign(algorithm);
 
@@ -33,16 +42,20 @@ public class TokenService {
         }
     }
 
-    public String validateToken(String token) {
+    public TokenClaims validateToken(String token) {
         try {
             Algorithm algorithm = Algorithm.HMAC256(secret);
 
-            return JWT.require(algorithm)
+            DecodedJWT decoded = JWT.require(algorithm)
                     .withIssuer("reservas-api")
                     .build()
-                    .verify(token)
-                    .getSubject();
-        } catch (JWTVerificationException exception){ return null; }
+                    .verify(token);
+            List<String> restaurants = decoded.getClaim(RESTAURANTS_CLAIM).asList(String.class);
+
+            return new TokenClaims(decoded.getSubject(), restaurants == null ? Set.of() : restaurants.stream()
+                    .map(UUID::fromString)
+                    .collect(Collectors.toUnmodifiableSet()));
+        } catch (JWTVerificationException | IllegalArgumentException exception){ return null; }
     }
 
     public Instant generateExpirationDate() {
@@ -0,0 +1,57 @@
+package com.eder.reservas.infra.tenant;
+
+import com.eder.reservas.domain.restaurant.Restaurant;
+import com.eder.reservas.exceptions.ApiException;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.UUID;
+
+public class CurrentRestaurantResolver implements HandlerMethodArgumentResolver {
+    public static final String HEADER = "X-Restaurant-Id";
+    public static final String MEMBER_AUTHORITY_PREFIX = "RESTAURANT_";
+
+    public static GrantedAuthority memberAuthority(UUID restaurantId) {
+        return new SimpleGrantedAuthority(MEMBER_AUTHORITY_PREFIX + restaurantId);
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentRestaurant.class) && parameter.getParameterType() == UUID.class;
+    }
+
+    @Override
+    public UUID resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer, NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        UUID restaurantId = parseHeader(webRequest.getHeader(HEADER));
+
+        if(parameter.getParameterAnnotation(CurrentRestaurant.class).requireMembership() && !isMember(restaurantId)) {
+            throw new ApiException("Not a member of this restaurant", HttpStatus.FORBIDDEN);
+        }
+        return restaurantId;
+    }
+
+    private UUID parseHeader(String restaurantId) {
+        if(restaurantId == null || restaurantId.isBlank()) {
+            return Restaurant.DEFAULT_ID;
+        }
+
+        try {
+            return UUID.fromString(restaurantId.strip());
+        } catch (IllegalArgumentException exception) {
+            throw new ApiException("Invalid restaurant id", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private boolean isMember(UUID restaurantId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().contains(memberAuthority(restaurantId));
+    }
+}
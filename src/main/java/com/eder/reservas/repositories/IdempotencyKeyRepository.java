@@ -0,0 +1,19 @@
+package com.eder.reservas.repositories;
+
+import com.eder.reservas.domain.idempotency.IdempotencyKey;
+import com.eder.reservas.domain.idempotency.IdempotencyKeyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, IdempotencyKeyId> {
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :dateTime")
+    int deleteCreatedBefore(@Param("dateTime") LocalDateTime dateTime);
+}
@@ -0,0 +1,86 @@
+package com.eder.reservas.repositories;
+
+import com.eder.reservas.domain.occupancy.OccupancyHourly;
+import com.eder.reservas.domain.occupancy.OccupancyHourlyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface OccupancyRepository extends JpaRepository<OccupancyHourly, OccupancyHourlyId> {
+    @Modifying
+    @Query(value = """
+            insert into occupancy_hourly (table_id, hour_start, restaurant_id, reservations, people, occupied_seconds)
+            select :tableId,
+                   h.hour_start,
+                   :restaurantId,
+                   case when h.hour_start = date_trunc('hour', cast(:start as timestamp)) then :sign else 0 end,
+                   case when h.hour_start = date_trunc('hour', cast(:start as timestamp)) then :sign * :people else 0 end,
+                   :sign * cast(extract(epoch from least(h.hour_start + interval '1 hour', cast(:end as timestamp)) - greatest(h.hour_start, cast(:start as timestamp))) as integer)
+            from pg_advisory_xact_lock_shared(hashtext('occupancy_hourly'), hashtext(cast(:restaurantId as text))),
+                 generate_series(date_trunc('hour', cast(:start as timestamp)), cast(:end as timestamp) - interval '1 microsecond', interval '1 hour') as h(hour_start)
+            on conflict (table_id, hour_start) do update set
+                reservations = occupancy_hourly.reservations + excluded.reservations,
+                people = occupancy_hourly.people + excluded.people,
+                occupied_seconds = occupancy_hourly.occupied_seconds + excluded.occupied_seconds
+            """, nativeQuery = true)
+    int apply(@Param("restaurantId") UUID restaurantId, @Param("tableId") UUID tableId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end, @Param("people") int people, @Param("sign") int sign);
+
+    @Query(value = "select 1 from pg_advisory_xact_lock(hashtext('occupancy_hourly'), hashtext(cast(:restaurantId as text)))", nativeQuery = true)
+    int lock(@Param("restaurantId") UUID restaurantId);
+
+    @Modifying
+    @Query("delete from OccupancyHourly o where o.restaurantId = :restaurantId and o.hourStart >= :from and o.hourStart < :to")
+    int deleteBetween(@Param("restaurantId") UUID restaurantId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query(value = """
+            insert into occupancy_hourly (table_id, hour_start, restaurant_id, reservations, people, occupied_seconds)
+            select r.table_id,
+                   h.hour_start,
+                   r.restaurant_id,
+                   sum(case when h.hour_start = date_trunc('hour', r.reservation_date_time) then 1 else 0 end),
+                   sum(case when h.hour_start = date_trunc('hour', r.reservation_date_time) then r.number_of_people else 0 end),
+                   sum(cast(extract(epoch from least(h.hour_start + interval '1 hour', r.reservation_end) - greatest(h.hour_start, r.reservation_date_time)) as integer))
+            from reservations r
+            cross join lateral generate_series(date_trunc('hour', r.reservation_date_time), r.reservation_end - interval '1 microsecond', interval '1 hour') as h(hour_start)
+            where r.restaurant_id = :restaurantId
+              and r.status in ('ACTIVE', 'COMPLETED')
+              and r.reservation_date_time >= cast(:from as timestamp) - interval '1 day'
+              and r.reservation_date_time < :to
+              and r.reservation_end > :from
+              and h.hour_start >= :from
+              and h.hour_start < :to
+            group by r.table_id, h.hour_start, r.restaurant_id
+            """, nativeQuery = true)
+    int rebuildBetween(@Param("restaurantId") UUID restaurantId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(value = """
+            select date_trunc(:unit, o.hour_start) as "period",
+                   o.table_id as "tableId",
+                   t.number as "tableNumber",
+                   sum(o.reservations) as "reservations",
+                   sum(o.people) as "people",
+                   sum(o.occupied_seconds) as "occupiedSeconds"
+            from occupancy_hourly o
+            join restaurant_tables t on t.id = o.table_id
+            where o.restaurant_id = :restaurantId and o.hour_start >= :from and o.hour_start < :to
+            group by 1, 2, 3
+            having sum(o.occupied_seconds) > 0
+            order by 1, 3
+            """, nativeQuery = true)
+    List<OccupancyRow> findReport(@Param("restaurantId") UUID restaurantId, @Param("unit") String unit, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    interface OccupancyRow {
+        LocalDateTime getPeriod();
+        UUID getTableId();
+        int getTableNumber();
+        long getReservations();
+        long getPeople();
+        long getOccupiedSeconds();
+    }
+}
@@ -1,12 +1,157 @@
 package com.eder.reservas.repositories;
 
 import com.eder.reservas.domain.reservation.Reservation;
-import com.eder.reservas.domain.user.User;
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface ReservationRepository extends JpaRepository<Reservation, UUID> {
-    List<Reservation> findAllByUser(User user);
+    @Query("""
+            select new com.eder.reservas.dtos.reservation.ReservationResponseDTO(
+                r.id, r.user.id, r.table.id, r.reservationDateTime, r.numberOfPeople, r.status)
+            from Reservation r
+            where r.user.id = :userId
+            order by r.reservationDateTime, r.id
+            """)
+    List<ReservationResponseDTO> findPageByUser(@Param("userId") UUID userId, Limit limit);
+
+    @Query("""
+            select new com.eder.reservas.dtos.reservation.ReservationResponseDTO(
+                r.id, r.user.id, r.table.id, r.reservationDateTime, r.numberOfPeople, r.status)
+            from Reservation r
+            where r.user.id = :userId
+              and r.reservationDateTime >= :dateTime
+              and (r.reservationDateTime > :dateTime or r.id > :id)
+            order by r.reservationDateTime, r.id
+            """)
+    List<ReservationResponseDTO> findPageByUserAfter(@Param("userId") UUID userId, @Param("dateTime") LocalDateTime dateTime, @Param("id") UUID id, Limit limit);
+
+    @Query("""
+            select new com.eder.reservas.dtos.reservation.ReservationResponseDTO(
+                r.id, r.user.id, r.table.id, r.reservationDateTime, r.numberOfPeople, r.status)
+            from Reservation r
+            where r.id = :id and r.reservationDateTime = :dateTime
+            """)
+    Optional<ReservationResponseDTO> findResponse(@Param("id") UUID id, @Param("dateTime") LocalDateTime dateTime);
+
+    Optional<Reservation> findByIdAndReservationDateTime(UUID id, LocalDateTime reservationDateTime);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            update reservations set status = 'CANCELED'
+            where id = :id and reservation_date_time = :dateTime and status = 'ACTIVE'
+            """, nativeQuery = true)
+    int cancel(@Param("id") UUID id, @Param("dateTime") LocalDateTime dateTime);
+
+    @Query(value = """
+            select exists(
+                select 1 from reservations r
+                where r.table_id = :tableId
+                  and r.status = 'ACTIVE'
+                  and r.reservation_date_time >= cast(:start as timestamp) - interval '1 day'
+                  and r.reservation_date_time < :end
+                  and r.reservation_end > :start
+            )
+            """, nativeQuery = true)
+    boolean existsOverlapping(@Param("tableId") UUID tableId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('reservations_table'), hashtext(cast(:tableId as text)))", nativeQuery = true)
+    boolean tryLockTable(@Param("tableId") UUID tableId);
+
+    @Query(value = """
+            select r.table_id as "tableId",
+                   r.id as "id",
+                   r.reservation_date_time as "start",
+                   r.reservation_end as "end"
+            from reservations r
+            where r.status = 'ACTIVE' and r.reservation_end > :now
+              and r.reservation_date_time > :startAfter
+            """, nativeQuery = true)
+    List<SlotRow> findActiveSlotsEndingAfter(@Param("now") LocalDateTime now, @Param("startAfter") LocalDateTime startAfter);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.eder.reservas.dtos.reservation.ReservationResponseDTO(
+                r.id, r.user.id, r.table.id, r.reservationDateTime, r.numberOfPeople, r.status)
+            from Reservation r
+            where r.restaurantId = :restaurantId
+            """)
+    Stream<ReservationResponseDTO> streamAllForExport(@Param("restaurantId") UUID restaurantId);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            update reservations set status = 'COMPLETED'
+            where reservation_date_time < :now
+              and (id, reservation_date_time) in (
+                select id, reservation_date_time from reservations
+                where status = 'ACTIVE' and reservation_end <= :now and reservation_date_time < :now
+                limit :batchSize
+                for update skip locked
+            )
+            """, nativeQuery = true)
+    int completeEndedBefore(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+
+    @Transactional
+    @Query(value = "select create_reservations_partitions(:monthsAhead)", nativeQuery = true)
+    int createPartitions(@Param("monthsAhead") int monthsAhead);
+
+    @Query("select min(r.reservationDateTime) from Reservation r where r.reservationDateTime < :before")
+    Optional<LocalDateTime> findOldestStartBefore(@Param("before") LocalDateTime before);
+
+    @Query(value = """
+            select r.id as "id",
+                   r.restaurant_id as "restaurantId",
+                   r.user_id as "userId",
+                   r.table_id as "tableId",
+                   r.reservation_date_time as "start",
+                   r.reservation_end as "end",
+                   r.number_of_people as "people",
+                   r.status as "status"
+            from reservations r
+            where r.reservation_date_time >= :from and r.reservation_date_time < :to
+            for update
+            """, nativeQuery = true)
+    List<ArchiveRow> lockAllStartingBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('reservations_archiver'))", nativeQuery = true)
+    boolean tryLockArchiver();
+
+    @Query(value = "select drop_reservations_partition(:monthStart)", nativeQuery = true)
+    boolean dropPartition(@Param("monthStart") LocalDate monthStart);
+
+    interface SlotRow {
+        UUID getTableId();
+        UUID getId();
+        LocalDateTime getStart();
+        LocalDateTime getEnd();
+    }
+
+    interface ArchiveRow {
+        UUID getId();
+        UUID getRestaurantId();
+        UUID getUserId();
+        UUID getTableId();
+        LocalDateTime getStart();
+        LocalDateTime getEnd();
+        int getPeople();
+        String getStatus();
+    }
 }
@@ -0,0 +1,63 @@
+package com.eder.reservas.repositories;
+
+import com.eder.reservas.domain.reservation.ReservationTicket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ReservationTicketRepository extends JpaRepository<ReservationTicket, UUID> {
+    Optional<ReservationTicket> findByIdAndEmail(UUID id, String email);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert into reservation_tickets (id, email, restaurant_id, table_number, reservation_date_time, number_of_people, status, created_at)
+            values (:id, :email, :restaurantId, :tableNumber, :dateTime, :people, 'PENDING', :createdAt)
+            """, nativeQuery = true)
+    int insertPending(@Param("id") UUID id,
+                      @Param("email") String email,
+                      @Param("restaurantId") UUID restaurantId,
+                      @Param("tableNumber") int tableNumber,
+                      @Param("dateTime") LocalDateTime dateTime,
+                      @Param("people") int people,
+                      @Param("createdAt") LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update ReservationTicket t
+            set t.status = com.eder.reservas.domain.reservation.ReservationTicketStatus.CONFIRMED,
+                t.reservationId = :reservationId, t.userId = :userId, t.tableId = :tableId
+            where t.id = :id and t.status = com.eder.reservas.domain.reservation.ReservationTicketStatus.PENDING
+            """)
+    int confirm(@Param("id") UUID id, @Param("reservationId") UUID reservationId, @Param("userId") UUID userId, @Param("tableId") UUID tableId);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update ReservationTicket t
+            set t.status = com.eder.reservas.domain.reservation.ReservationTicketStatus.REJECTED, t.message = :message
+            where t.id = :id and t.status = com.eder.reservas.domain.reservation.ReservationTicketStatus.PENDING
+            """)
+    int reject(@Param("id") UUID id, @Param("message") String message);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update ReservationTicket t
+            set t.status = com.eder.reservas.domain.reservation.ReservationTicketStatus.REJECTED, t.message = :message
+            where t.createdAt < :dateTime and t.status = com.eder.reservas.domain.reservation.ReservationTicketStatus.PENDING
+            """)
+    int rejectPendingCreatedBefore(@Param("dateTime") LocalDateTime dateTime, @Param("message") String message);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ReservationTicket t where t.createdAt < :dateTime")
+    int deleteCreatedBefore(@Param("dateTime") LocalDateTime dateTime);
+}
@@ -0,0 +1,23 @@
+package com.eder.reservas.repositories;
+
+import com.eder.reservas.domain.restaurant.RestaurantMember;
+import com.eder.reservas.domain.restaurant.RestaurantMemberId;
+import com.eder.reservas.domain.user.UserRole;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface RestaurantMemberRepository extends JpaRepository<RestaurantMember, RestaurantMemberId> {
+    @Query("select m.restaurantId from RestaurantMember m where m.userId = :userId")
+    List<UUID> findRestaurantIdsByUserId(@Param("userId") UUID userId);
+
+    @Query("""
+            select count(m) > 0 from RestaurantMember m
+            join User u on u.id = m.userId
+            where m.restaurantId = :restaurantId and u.role = :role
+            """)
+    boolean existsByRestaurantIdAndRole(@Param("restaurantId") UUID restaurantId, @Param("role") UserRole role);
+}
@@ -0,0 +1,9 @@
+package com.eder.reservas.repositories;
+
+import com.eder.reservas.domain.restaurant.Restaurant;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface RestaurantRepository extends JpaRepository<Restaurant, UUID> {
+}
@@ -2,10 +2,21 @@ package com.eder.reservas.repositories;
 
 import com.eder.reservas.domain.table.Table;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface TableRepository extends JpaRepository<Table, UUID> {
-    Optional<Table> findByNumber(int number);
+    List<Table> findAllByRestaurantId(UUID restaurantId);
+
+    Optional<Table> findByIdAndRestaurantId(UUID id, UUID restaurantId);
+
+    boolean existsByIdAndRestaurantId(UUID id, UUID restaurantId);
+
+    @Query("select t.number from Table t where t.restaurantId = :restaurantId and t.number in :numbers")
+    List<Integer> findNumbersIn(@Param("restaurantId") UUID restaurantId, @Param("numbers") Collection<Integer> numbers);
 }
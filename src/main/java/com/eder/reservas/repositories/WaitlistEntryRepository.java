@@ -0,0 +1,70 @@
+package com.eder.reservas.repositories;
+
+import com.eder.reservas.domain.reservation.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, UUID> {
+    @Modifying
+    @Query(value = """
+            insert into waitlist_entries (id, restaurant_id, table_id, user_id, reservation_date_time, number_of_people)
+            values (:id, :restaurantId, :tableId, :userId, :dateTime, :people)
+            on conflict (table_id, reservation_date_time, user_id) do nothing
+            """, nativeQuery = true)
+    int insert(@Param("id") UUID id,
+               @Param("restaurantId") UUID restaurantId,
+               @Param("tableId") UUID tableId,
+               @Param("userId") UUID userId,
+               @Param("dateTime") LocalDateTime dateTime,
+               @Param("people") int people);
+
+    @Query("""
+            select count(e) from WaitlistEntry e, WaitlistEntry mine
+            where mine.id = :id
+              and e.tableId = mine.tableId
+              and e.reservationDateTime = mine.reservationDateTime
+              and e.joinSequence < mine.joinSequence
+            """)
+    long countAhead(@Param("id") UUID id);
+
+    @Query("""
+            select e from WaitlistEntry e
+            where e.tableId = :tableId and e.reservationDateTime > :from and e.reservationDateTime < :to
+            order by e.joinSequence
+            """)
+    List<WaitlistEntry> findCandidates(@Param("tableId") UUID tableId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("""
+            select e.restaurantId as restaurantId, e.tableId as tableId, max(e.reservationDateTime) as lastStart
+            from WaitlistEntry e
+            where e.reservationDateTime > :now
+            group by e.restaurantId, e.tableId
+            """)
+    List<WaitlistedTable> findWaitlistedTables(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from WaitlistEntry e where e.id = :id")
+    int deleteEntry(@Param("id") UUID id);
+
+    @Modifying
+    @Query("delete from WaitlistEntry e where e.id = :id and e.userId = :userId")
+    int deleteEntryOfUser(@Param("id") UUID id, @Param("userId") UUID userId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from WaitlistEntry e where e.reservationDateTime < :dateTime")
+    int deleteStartingBefore(@Param("dateTime") LocalDateTime dateTime);
+
+    interface WaitlistedTable {
+        UUID getRestaurantId();
+        UUID getTableId();
+        LocalDateTime getLastStart();
+    }
+}
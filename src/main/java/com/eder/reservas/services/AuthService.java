@@ -1,11 +1,16 @@
 package com.eder.reservas.services;
 
+import com.eder.reservas.domain.restaurant.RestaurantMember;
+import com.eder.reservas.domain.restaurant.RestaurantMemberId;
 import com.eder.reservas.domain.user.User;
+import com.eder.reservas.domain.user.UserRole;
 import com.eder.reservas.dtos.auth.LoginDTO;
 import com.eder.reservas.dtos.auth.RegisterDTO;
 import com.eder.reservas.dtos.auth.ResponseDTO;
 import com.eder.reservas.exceptions.ApiException;
 import com.eder.reservas.infra.security.TokenService;
+import com.eder.reservas.repositories.RestaurantMemberRepository;
+import com.eder.reservas.repositories.RestaurantRepository;
 import com.eder.reservas.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -13,20 +18,30 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
     private final UserRepository userRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final RestaurantMemberRepository restaurantMemberRepository;
     private final TokenService tokenService;
     private final PasswordEncoder passwordEncoder;
 
     @Transactional
-    public ResponseDTO register(RegisterDTO data) {
+    public ResponseDTO register(UUID restaurantId, RegisterDTO data, User registeredBy) {
         Optional<User> user = userRepository.findByEmail(data.email());
 
         if(user.isEmpty()) {
+            if(!restaurantRepository.existsById(restaurantId)) {
+                throw new ApiException("Restaurant not found", HttpStatus.NOT_FOUND);
+            }
+            if(data.role() == UserRole.ADMIN && !canAddAdmin(restaurantId, registeredBy)) {
+                throw new ApiException("Only an administrator of this restaurant can add administrators", HttpStatus.FORBIDDEN);
+            }
             User newUser = new User();
             newUser.setName(data.name());
             newUser.setEmail(data.email());
@@ -34,7 +49,8 @@ public class AuthService {
             newUser.setRole(data.role());
 
             userRepository.save(newUser);
-            String token = tokenService.generateToken(newUser);
+            restaurantMemberRepository.save(new RestaurantMember(newUser.getId(), restaurantId));
+            String token = tokenService.generateToken(newUser, List.of(restaurantId));
 
             return new ResponseDTO(token, newUser.getEmail());
         }
@@ -47,10 +63,18 @@ public class AuthService {
                 .orElseThrow(() -> new ApiException("No user found for this email", HttpStatus.NOT_FOUND));
 
         if(passwordEncoder.matches(data.password(), user.getPassword())) {
-            String token = tokenService.generateToken(user);
+            String token = tokenService.generateToken(user, restaurantMemberRepository.findRestaurantIdsByUserId(user.getId()));
 
             return new ResponseDTO(token, user.getEmail());
         }
         throw new ApiException("Invalid password", HttpStatus.UNAUTHORIZED);
     }
+
+    private boolean canAddAdmin(UUID restaurantId, User registeredBy) {
+        if(registeredBy != null && registeredBy.getRole() == UserRole.ADMIN
+                && restaurantMemberRepository.existsById(new RestaurantMemberId(registeredBy.getId(), restaurantId))) {
+            return true;
+        }
+        return !restaurantMemberRepository.existsByRestaurantIdAndRole(restaurantId, UserRole.ADMIN);
+    }
 }
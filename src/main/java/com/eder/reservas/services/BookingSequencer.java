@@ -0,0 +1,250 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.reservation.ReservationTicket;
+import com.eder.reservas.dtos.reservation.ReservationRegisterDTO;
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.dtos.reservation.ReservationTicketDTO;
+import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.availability.AvailabilityIndex;
+import com.eder.reservas.repositories.ReservationTicketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class BookingSequencer {
+    private static final Logger log = LoggerFactory.getLogger(BookingSequencer.class);
+    private static final long POLL_MILLIS = 100;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ReservationService reservationService;
+    private final AvailabilityIndex availabilityIndex;
+    private final ReservationTicketRepository ticketRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration ticketTtl;
+    private final List<BlockingQueue<Booking>> partitions = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean stopped;
+
+    public BookingSequencer(ReservationService reservationService,
+                            AvailabilityIndex availabilityIndex,
+                            ReservationTicketRepository ticketRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${api.reservations.sequencer.partitions}") int partitions,
+                            @Value("${api.reservations.sequencer.queue-capacity}") int queueCapacity,
+                            @Value("${api.reservations.sequencer.batch-size}") int batchSize,
+                            @Value("${api.reservations.sequencer.ticket-ttl}") Duration ticketTtl) {
+        this.reservationService = reservationService;
+        this.availabilityIndex = availabilityIndex;
+        this.ticketRepository = ticketRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.ticketTtl = ticketTtl;
+
+        for(int i = 0; i < partitions; i++) {
+            this.partitions.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        for(int i = 0; i < partitions.size(); i++) {
+            BlockingQueue<Booking> queue = partitions.get(i);
+            Thread worker = new Thread(() -> drain(queue), "booking-sequencer-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        for(Thread worker : workers) {
+            try {
+                worker.join(SHUTDOWN_TIMEOUT.toMillis());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        List<Booking> unprocessed = new ArrayList<>();
+        partitions.forEach(queue -> queue.drainTo(unprocessed));
+        unprocessed.forEach(booking -> ticketRepository.reject(booking.id(), "Booking service is shutting down, please retry"));
+        if(!unprocessed.isEmpty()) log.warn("Rejected {} queued bookings on shutdown", unprocessed.size());
+    }
+
+    public ReservationTicketDTO submit(UUID restaurantId, ReservationRegisterDTO data, String email) {
+        if(stopped) throw new ApiException("Booking service is shutting down", HttpStatus.SERVICE_UNAVAILABLE);
+
+        UUID id = UUID.randomUUID();
+        ticketRepository.insertPending(id, email, restaurantId, data.tableNumber(), data.dateTime(), data.people(), LocalDateTime.now());
+
+        if(!partitionFor(restaurantId, data).offer(new Booking(id, restaurantId, data, email))) {
+            ticketRepository.deleteById(id);
+            throw new ApiException("Booking queue is full", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return ReservationTicketDTO.pending(id);
+    }
+
+    public ReservationTicketDTO getTicket(UUID id, String email) {
+        return ticketRepository.findByIdAndEmail(id, email)
+                .map(ReservationTicket::toDTO)
+                .orElseThrow(() -> new ApiException("Ticket not found", HttpStatus.NOT_FOUND));
+    }
+
+    @Scheduled(fixedDelayString = "${api.reservations.sweeper.interval}", initialDelayString = "${api.reservations.sweeper.interval}")
+    public void expireTickets() {
+        LocalDateTime now = LocalDateTime.now();
+        int expired = ticketRepository.rejectPendingCreatedBefore(now.minus(ticketTtl), "Booking was not processed, please retry");
+        ticketRepository.deleteCreatedBefore(now.minus(ticketTtl.multipliedBy(2)));
+
+        if(expired > 0) log.warn("Rejected {} bookings that were never processed", expired);
+    }
+
+    private BlockingQueue<Booking> partitionFor(UUID restaurantId, ReservationRegisterDTO data) {
+        return partitions.get(Math.floorMod(31 * restaurantId.hashCode() + data.tableNumber(), partitions.size()));
+    }
+
+    private void drain(BlockingQueue<Booking> queue) {
+        List<Booking> batch = new ArrayList<>(batchSize);
+
+        while(!stopped) {
+            try {
+                Booking first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if(first == null) continue;
+                batch.add(first);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            apply(batch);
+            batch.clear();
+        }
+    }
+
+    // Bookings for a table always land in the same partition, so the batch sees every claim this node
+    // makes on its slots. Conflicts inside the batch and business rejections are resolved here; only a
+    // database error (e.g. a slot taken by another node) falls back to applying one by one.
+    private void apply(List<Booking> batch) {
+        List<Booking> pending = new ArrayList<>(batch);
+
+        while(pending.size() > 1) {
+            List<Booking> conflicting = new ArrayList<>();
+            List<Booking> claimed = claim(pending, conflicting);
+            try {
+                transactionTemplate.executeWithoutResult(status -> claimed.forEach(this::bookInBatch));
+                conflicting.forEach(booking -> ticketRepository.reject(booking.id(), "Table is unavailable"));
+                return;
+            } catch (RejectedBooking rejected) {
+                ticketRepository.reject(rejected.booking.id(), rejected.getMessage());
+                pending.remove(rejected.booking);
+            } catch (RuntimeException exception) {
+                log.debug("Booking batch of {} failed, applying one by one", pending.size(), exception);
+                break;
+            }
+        }
+        pending.forEach(this::apply);
+    }
+
+    // First come, first served: a booking overlapping a slot claimed earlier in the batch is held back.
+    private List<Booking> claim(List<Booking> bookings, List<Booking> conflicting) {
+        Map<TableKey, List<Booking>> claims = new HashMap<>();
+        List<Booking> claimed = new ArrayList<>(bookings.size());
+
+        for(Booking booking : bookings) {
+            List<Booking> table = claims.computeIfAbsent(new TableKey(booking.restaurantId(), booking.data().tableNumber()), key -> new ArrayList<>());
+            if(table.stream().anyMatch(other -> overlaps(booking, other))) {
+                conflicting.add(booking);
+            } else {
+                table.add(booking);
+                claimed.add(booking);
+            }
+        }
+        return claimed;
+    }
+
+    private boolean overlaps(Booking booking, Booking other) {
+        LocalDateTime start = start(booking);
+        LocalDateTime otherStart = start(other);
+        Duration duration = availabilityIndex.getReservationDuration();
+
+        return start.isBefore(otherStart.plus(duration)) && otherStart.isBefore(start.plus(duration));
+    }
+
+    private LocalDateTime start(Booking booking) {
+        return booking.data().dateTime().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private void bookInBatch(Booking booking) {
+        try {
+            book(booking);
+        } catch (ApiException exception) {
+            throw new RejectedBooking(booking, exception);
+        }
+    }
+
+    private void apply(Booking booking) {
+        String rejection;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> book(booking));
+            return;
+        } catch (ApiException exception) {
+            rejection = exception.getMessage();
+        } catch (DataIntegrityViolationException exception) {
+            rejection = "Table is unavailable";
+        } catch (RuntimeException exception) {
+            log.error("Booking {} could not be processed", booking.id(), exception);
+            rejection = "Booking could not be processed";
+        }
+        ticketRepository.reject(booking.id(), rejection);
+    }
+
+    // Confirming in the booking's transaction keeps the reservation and its ticket consistent;
+    // a ticket expired meanwhile rolls the reservation back.
+    private void book(Booking booking) {
+        ReservationResponseDTO reservation = reservationService.createReservation(booking.restaurantId(), booking.data(), booking.email());
+        if(ticketRepository.confirm(booking.id(), reservation.id(), reservation.userId(), reservation.tableId()) == 0) {
+            throw new IllegalStateException("Ticket " + booking.id() + " is no longer pending");
+        }
+    }
+
+    private record Booking(UUID id, UUID restaurantId, ReservationRegisterDTO data, String email) {
+    }
+
+    private record TableKey(UUID restaurantId, int tableNumber) {
+    }
+
+    private static class RejectedBooking extends RuntimeException {
+        private final Booking booking;
+
+        RejectedBooking(Booking booking, ApiException cause) {
+            super(cause.getMessage(), cause, false, false);
+            this.booking = booking;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.idempotency.IdempotencyKey;
+import com.eder.reservas.domain.idempotency.IdempotencyKeyId;
+import com.eder.reservas.domain.user.User;
+import com.eder.reservas.dtos.reservation.ReservationRegisterDTO;
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.cache.ExpiringCache;
+import com.eder.reservas.infra.transaction.TransactionHooks;
+import com.eder.reservas.repositories.IdempotencyKeyRepository;
+import com.eder.reservas.repositories.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ReservationRepository reservationRepository;
+    private final ReservationService reservationService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExpiringCache<Key, Stored> responses;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              ReservationRepository reservationRepository,
+                              ReservationService reservationService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${api.reservations.idempotency.max-keys}") int maxKeys,
+                              @Value("${api.reservations.idempotency.cache-ttl}") Duration cacheTtl) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.reservationRepository = reservationRepository;
+        this.reservationService = reservationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.responses = new ExpiringCache<>(maxKeys, cacheTtl);
+    }
+
+    public ReservationResponseDTO createReservation(UUID restaurantId, ReservationRegisterDTO data, User user, String idempotencyKey) {
+        if(idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ApiException("Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters", HttpStatus.BAD_REQUEST);
+        }
+        Key key = new Key(user.getId(), idempotencyKey);
+        String requestHash = hash(restaurantId, data);
+
+        Optional<Stored> cached = responses.get(key);
+        if(cached.isPresent()) return replay(cached.get(), requestHash);
+
+        Stored stored = transactionTemplate.execute(status -> {
+            Stored found = findOrCreate(restaurantId, data, user, idempotencyKey, requestHash);
+            TransactionHooks.afterCommit(() -> responses.put(key, found));
+            return found;
+        });
+
+        return replay(stored, requestHash);
+    }
+
+    private Stored findOrCreate(UUID restaurantId, ReservationRegisterDTO data, User user, String idempotencyKey, String requestHash) {
+        Optional<IdempotencyKey> existing = idempotencyKeyRepository.findById(new IdempotencyKeyId(user.getId(), idempotencyKey));
+        if(existing.isPresent()) {
+            ReservationResponseDTO reservation = reservationRepository.findResponse(existing.get().getReservationId(), existing.get().getReservationDateTime())
+                    .orElseThrow(() -> new ApiException("Reservation not found", HttpStatus.NOT_FOUND));
+            return new Stored(existing.get().getRequestHash(), reservation);
+        }
+
+        ReservationResponseDTO created = reservationService.createReservation(restaurantId, data, user.getEmail());
+        idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(user.getId(), idempotencyKey, created.id(), created.dateTime(), requestHash, LocalDateTime.now()));
+        return new Stored(requestHash, created);
+    }
+
+    private ReservationResponseDTO replay(Stored stored, String requestHash) {
+        if(stored.requestHash() != null && !stored.requestHash().equals(requestHash)) {
+            throw new ApiException("Idempotency-Key was already used with a different request", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        return stored.response();
+    }
+
+    private String hash(UUID restaurantId, ReservationRegisterDTO data) {
+        String request = restaurantId + "|" + data.tableNumber() + "|" + data.dateTime() + "|" + data.people();
+        return DigestUtils.md5DigestAsHex(request.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Key(UUID userId, String idempotencyKey) {
+    }
+
+    private record Stored(String requestHash, ReservationResponseDTO response) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.occupancy.OccupancyGranularity;
+import com.eder.reservas.domain.reservation.Reservation;
+import com.eder.reservas.dtos.report.OccupancyBackfillDTO;
+import com.eder.reservas.dtos.report.OccupancyReportDTO;
+import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.archive.ReservationArchive;
+import com.eder.reservas.repositories.OccupancyRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class OccupancyService {
+    private static final Duration MAX_BACKFILL_RANGE = Duration.ofDays(366);
+    private static final Duration BACKFILL_CHUNK = Duration.ofDays(1);
+
+    private final OccupancyRepository occupancyRepository;
+    private final ReservationArchive reservationArchive;
+    private final TransactionTemplate transactionTemplate;
+
+    public OccupancyService(OccupancyRepository occupancyRepository,
+                            ReservationArchive reservationArchive,
+                            PlatformTransactionManager transactionManager) {
+        this.occupancyRepository = occupancyRepository;
+        this.reservationArchive = reservationArchive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void recordCreated(Reservation reservation) {
+        apply(reservation, 1);
+    }
+
+    public void recordCanceled(Reservation reservation) {
+        apply(reservation, -1);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OccupancyReportDTO> getOccupancy(UUID restaurantId, LocalDateTime from, LocalDateTime to, OccupancyGranularity granularity) {
+        ChronoUnit unit = granularity.getUnit();
+        LocalDateTime start = from.truncatedTo(unit);
+        LocalDateTime end = ceil(to, unit);
+        checkRange(start, end, granularity.getMaxRange());
+
+        double bucketSeconds = unit.getDuration().getSeconds();
+        return occupancyRepository.findReport(restaurantId, granularity.name().toLowerCase(), start, end).stream()
+                .map(r -> new OccupancyReportDTO(
+                        r.getPeriod(),
+                        r.getTableId(),
+                        r.getTableNumber(),
+                        r.getReservations(),
+                        r.getPeople(),
+                        r.getOccupiedSeconds() / bucketSeconds
+                ))
+                .toList();
+    }
+
+    public OccupancyBackfillDTO backfill(UUID restaurantId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = from.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime end = ceil(to, ChronoUnit.HOURS);
+        checkRange(start, end, MAX_BACKFILL_RANGE);
+        if(reservationArchive.getArchivedUntil().filter(start::isBefore).isPresent()) {
+            throw new ApiException("Time range is archived", HttpStatus.BAD_REQUEST);
+        }
+
+        int rows = 0;
+        for(LocalDateTime chunk = start; chunk.isBefore(end); chunk = chunk.plus(BACKFILL_CHUNK)) {
+            LocalDateTime chunkStart = chunk;
+            LocalDateTime chunkEnd = chunk.plus(BACKFILL_CHUNK).isBefore(end) ? chunk.plus(BACKFILL_CHUNK) : end;
+            rows += transactionTemplate.execute(status -> rebuild(restaurantId, chunkStart, chunkEnd));
+        }
+
+        return new OccupancyBackfillDTO(start, end, rows);
+    }
+
+    private int rebuild(UUID restaurantId, LocalDateTime from, LocalDateTime to) {
+        occupancyRepository.lock(restaurantId);
+        occupancyRepository.deleteBetween(restaurantId, from, to);
+        return occupancyRepository.rebuildBetween(restaurantId, from, to);
+    }
+
+    private void apply(Reservation reservation, int sign) {
+        occupancyRepository.apply(
+                reservation.getRestaurantId(),
+                reservation.getTable().getId(),
+                reservation.getReservationDateTime(),
+                reservation.getReservationEnd(),
+                reservation.getNumberOfPeople(),
+                sign
+        );
+    }
+
+    private void checkRange(LocalDateTime from, LocalDateTime to, Duration maxRange) {
+        if(!from.isBefore(to)) {
+            throw new ApiException("Invalid time range", HttpStatus.BAD_REQUEST);
+        }
+        if(Duration.between(from, to).compareTo(maxRange) > 0) {
+            throw new ApiException("Time range can not exceed " + maxRange.toDays() + " days", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private LocalDateTime ceil(LocalDateTime dateTime, ChronoUnit unit) {
+        LocalDateTime truncated = dateTime.truncatedTo(unit);
+        return truncated.equals(dateTime) ? truncated : truncated.plus(1, unit);
+    }
+}
@@ -0,0 +1,99 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.infra.archive.ArchiveNodes;
+import com.eder.reservas.infra.archive.ArchivedReservation;
+import com.eder.reservas.infra.archive.ReservationArchive;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.infra.cluster.ClusterNotifier;
+import com.eder.reservas.repositories.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class ReservationArchiver {
+    private static final Logger log = LoggerFactory.getLogger(ReservationArchiver.class);
+
+    private final ReservationRepository reservationRepository;
+    private final ReservationArchive reservationArchive;
+    private final ArchiveNodes archiveNodes;
+    private final ClusterNotifier clusterNotifier;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration retention;
+
+    public ReservationArchiver(ReservationRepository reservationRepository,
+                               ReservationArchive reservationArchive,
+                               ArchiveNodes archiveNodes,
+                               ClusterNotifier clusterNotifier,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${api.reservations.archive.enabled}") boolean enabled,
+                               @Value("${api.reservations.archive.retention}") Duration retention) {
+        this.reservationRepository = reservationRepository;
+        this.reservationArchive = reservationArchive;
+        this.archiveNodes = archiveNodes;
+        this.clusterNotifier = clusterNotifier;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retention = retention;
+    }
+
+    @Scheduled(cron = "${api.reservations.archive.cron}")
+    public void archive() {
+        if(!enabled) return;
+
+        YearMonth last = YearMonth.from(LocalDateTime.now().minus(retention)).minusMonths(1);
+        Optional<LocalDateTime> oldest = reservationRepository.findOldestStartBefore(start(last.plusMonths(1)));
+        if(oldest.isEmpty()) return;
+        if(!archiveNodes.confirmShared()) {
+            log.warn("Not archiving reservations until every node shares the archive directory");
+            return;
+        }
+
+        int total = 0;
+        for(YearMonth month = YearMonth.from(oldest.get()); !month.isAfter(last); month = month.plusMonths(1)) {
+            Integer archived = archiveMonth(month);
+            if(archived == null) {
+                log.debug("Reservation archiver is running on another node");
+                break;
+            }
+            total += archived;
+        }
+
+        if(total > 0) log.info("Archived {} reservations", total);
+    }
+
+    private Integer archiveMonth(YearMonth month) {
+        return transactionTemplate.execute(status -> {
+            if(!reservationRepository.tryLockArchiver()) return null;
+
+            LocalDateTime from = start(month);
+            List<ArchivedReservation> reservations = reservationRepository.lockAllStartingBetween(from, from.plusMonths(1)).stream()
+                    .map(r -> new ArchivedReservation(r.getId(), r.getRestaurantId(), r.getUserId(), r.getTableId(), r.getStart(), r.getEnd(), r.getPeople(), ReservationStatus.valueOf(r.getStatus())))
+                    .toList();
+
+            if(!reservations.isEmpty()) {
+                reservationArchive.write(month, reservations);
+                clusterNotifier.publish(new ClusterEvent.ArchiveChanged(month));
+            }
+            reservationRepository.dropPartition(from.toLocalDate());
+
+            return reservations.size();
+        });
+    }
+
+    private LocalDateTime start(YearMonth month) {
+        return month.atDay(1).atStartOfDay();
+    }
+}
@@ -0,0 +1,41 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.infra.archive.ReservationArchive;
+import com.eder.reservas.repositories.ReservationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class ReservationExportService {
+    private final ReservationRepository reservationRepository;
+    private final ReservationArchive reservationArchive;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void exportReservations(UUID restaurantId, OutputStream output) throws IOException {
+        LocalDateTime archivedUntil = reservationArchive.getArchivedUntil().orElse(LocalDateTime.MIN);
+
+        try(Stream<ReservationResponseDTO> reservations = Stream.concat(
+                reservationArchive.streamAll(restaurantId),
+                reservationRepository.streamAllForExport(restaurantId).filter(r -> !r.dateTime().isBefore(archivedUntil)))) {
+            Iterator<ReservationResponseDTO> iterator = reservations.iterator();
+
+            while(iterator.hasNext()) {
+                output.write(objectMapper.writeValueAsBytes(iterator.next()));
+                output.write('\n');
+            }
+        }
+        output.flush();
+    }
+}
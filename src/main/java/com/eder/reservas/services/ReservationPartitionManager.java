@@ -0,0 +1,32 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.repositories.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ReservationPartitionManager {
+    private static final Logger log = LoggerFactory.getLogger(ReservationPartitionManager.class);
+
+    private final ReservationRepository reservationRepository;
+    private final int monthsAhead;
+
+    public ReservationPartitionManager(ReservationRepository reservationRepository,
+                                       @Value("${api.reservations.partitions.months-ahead}") int monthsAhead) {
+        this.reservationRepository = reservationRepository;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${api.reservations.partitions.cron}")
+    public void createPartitions() {
+        int created = reservationRepository.createPartitions(monthsAhead);
+
+        if(created > 0) log.info("Created {} reservation partitions", created);
+    }
+}
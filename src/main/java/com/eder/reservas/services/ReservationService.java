@@ -2,83 +2,341 @@ package com.eder.reservas.services;
 
 import com.eder.reservas.domain.reservation.Reservation;
 import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.domain.reservation.WaitlistEntry;
 import com.eder.reservas.domain.table.Table;
 import com.eder.reservas.domain.table.TableStatus;
 import com.eder.reservas.domain.user.User;
+import com.eder.reservas.dtos.reservation.ReservationAssignDTO;
+import com.eder.reservas.dtos.reservation.ReservationPageDTO;
 import com.eder.reservas.dtos.reservation.ReservationRegisterDTO;
 import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.dtos.reservation.WaitlistEntryDTO;
+import com.eder.reservas.dtos.table.TableEventDTO;
+import com.eder.reservas.dtos.table.TableResponseDTO;
 import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.archive.ReservationArchive;
+import com.eder.reservas.infra.availability.AvailabilityIndex;
+import com.eder.reservas.infra.catalog.TableCatalog;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.infra.cluster.ClusterNotifier;
+import com.eder.reservas.infra.events.TableEventBroadcaster;
+import com.eder.reservas.infra.security.PrincipalCache;
+import com.eder.reservas.infra.transaction.TransactionHooks;
 import com.eder.reservas.repositories.ReservationRepository;
 import com.eder.reservas.repositories.TableRepository;
 import com.eder.reservas.repositories.UserRepository;
+import com.eder.reservas.repositories.WaitlistEntryRepository;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ReservationService {
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+    private static final int MAX_BATCH_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final UUID ARCHIVE_BOUNDARY_ID = new UUID(0L, 0L);
+    private static final Comparator<Reservation> INSERT_ORDER = Comparator
+            .comparing((Reservation r) -> r.getTable().getId())
+            .thenComparing(Reservation::getReservationDateTime);
+
     private final ReservationRepository reservationRepository;
     private final TableRepository tableRepository;
+    private final TableCatalog tableCatalog;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final AvailabilityIndex availabilityIndex;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final TableEventBroadcaster tableEventBroadcaster;
+    private final OccupancyService occupancyService;
+    private final ReservationArchive reservationArchive;
+    private final ClusterNotifier clusterNotifier;
 
     @Transactional
-    public ReservationResponseDTO createReservation(ReservationRegisterDTO data, String email) {
-        Table table = tableRepository.findByNumber(data.tableNumber())
+    public ReservationResponseDTO createReservation(UUID restaurantId, ReservationRegisterDTO data, String email) {
+        TableResponseDTO table = tableCatalog.findByNumber(restaurantId, data.tableNumber())
                 .orElseThrow(() -> new ApiException("Table does not exist", HttpStatus.NOT_FOUND));
 
-        if(table.getStatus() == TableStatus.UNAVAILABLE || table.getStatus() == TableStatus.INACTIVE) {
-            throw new ApiException("Table is unavailable", HttpStatus.CONFLICT);
-        }
-        if(data.people() > table.getCapacity()) {
-            throw new ApiException("Amount of people exceeded", HttpStatus.BAD_REQUEST);
-        }
-        User user = userRepository.findByEmail(email)
+        checkBookable(table, data);
+
+        User user = principalCache.find(email)
                 .orElseThrow(() -> new ApiException("User not found", HttpStatus.NOT_FOUND));
 
-        table.setStatus(TableStatus.UNAVAILABLE);
+        Reservation newReservation = buildReservation(restaurantId, tableRepository.getReferenceById(table.id()), user, data);
+        checkFree(newReservation);
+        reservationRepository.saveAndFlush(newReservation);
+        recordCreated(newReservation);
 
-        Reservation newReservation = new Reservation();
-        newReservation.setUser(user);
-        newReservation.setTable(table);
-        newReservation.setReservationDateTime(data.dateTime());
-        newReservation.setNumberOfPeople(data.people());
-        newReservation.setStatus(ReservationStatus.ACTIVE);
+        return ReservationResponseDTO.from(newReservation);
+    }
+
+    @Transactional
+    public ReservationResponseDTO assignReservation(UUID restaurantId, ReservationAssignDTO data, String email) {
+        User user = principalCache.find(email)
+                .orElseThrow(() -> new ApiException("User not found", HttpStatus.NOT_FOUND));
 
-        tableRepository.save(table);
-        reservationRepository.save(newReservation);
+        LocalDateTime start = data.dateTime().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime end = start.plus(availabilityIndex.getReservationDuration());
 
-        return ReservationResponseDTO.from(newReservation);
+        for(TableResponseDTO candidate : availabilityIndex.findBestFit(restaurantId, start, end, data.people())) {
+            if(!reservationRepository.tryLockTable(candidate.id()) || reservationRepository.existsOverlapping(candidate.id(), start, end)) {
+                continue;
+            }
+            ReservationRegisterDTO request = new ReservationRegisterDTO(candidate.number(), start, data.people());
+            Reservation newReservation = buildReservation(restaurantId, tableRepository.getReferenceById(candidate.id()), user, request);
+            reservationRepository.saveAndFlush(newReservation);
+            recordCreated(newReservation);
+
+            return ReservationResponseDTO.from(newReservation);
+        }
+        throw new ApiException("No table available", HttpStatus.CONFLICT);
     }
 
-    @Transactional(readOnly = true)
-    public List<ReservationResponseDTO> getAllReservations(String email) {
-        User user = userRepository.findByEmail(email)
+    @Transactional
+    public List<ReservationResponseDTO> createReservations(UUID restaurantId, List<ReservationRegisterDTO> data, String email) {
+        if(data.isEmpty() || data.size() > MAX_BATCH_SIZE) {
+            throw new ApiException("A batch must contain between 1 and " + MAX_BATCH_SIZE + " reservations", HttpStatus.BAD_REQUEST);
+        }
+        Map<Integer, Table> tables = new HashMap<>();
+        for(ReservationRegisterDTO reservation : data) {
+            TableResponseDTO table = tableCatalog.findByNumber(restaurantId, reservation.tableNumber())
+                    .orElseThrow(() -> new ApiException("Table does not exist", HttpStatus.NOT_FOUND));
+
+            checkBookable(table, reservation);
+            tables.computeIfAbsent(table.number(), n -> tableRepository.getReferenceById(table.id()));
+        }
+        User user = principalCache.find(email)
                 .orElseThrow(() -> new ApiException("User not found", HttpStatus.NOT_FOUND));
 
-        return reservationRepository.findAllByUser(user).stream()
+        List<Reservation> newReservations = data.stream()
+                .map(r -> buildReservation(restaurantId, tables.get(r.tableNumber()), user, r))
+                .collect(Collectors.toList());
+
+        newReservations.forEach(this::checkFree);
+        reservationRepository.saveAllAndFlush(newReservations.stream().sorted(INSERT_ORDER).toList());
+        newReservations.forEach(this::recordCreated);
+
+        return newReservations.stream()
                 .map(r -> ReservationResponseDTO.from(r))
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public ReservationPageDTO getAllReservations(String email, String after, int limit) {
+        if(limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ApiException("Limit must be between 1 and " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        }
+        UUID userId = userRepository.findIdByEmail(email)
+                .orElseThrow(() -> new ApiException("User not found", HttpStatus.NOT_FOUND));
+
+        Cursor cursor = after == null ? null : decodeCursor(after);
+        List<ReservationResponseDTO> content = new ArrayList<>();
+
+        Optional<LocalDateTime> archivedUntil = reservationArchive.getArchivedUntil();
+        if(archivedUntil.isPresent() && (cursor == null || cursor.dateTime().isBefore(archivedUntil.get()))) {
+            content.addAll(cursor == null
+                    ? reservationArchive.findPageByUser(userId, null, null, limit + 1)
+                    : reservationArchive.findPageByUser(userId, cursor.dateTime(), cursor.id(), limit + 1));
+            cursor = new Cursor(archivedUntil.get(), ARCHIVE_BOUNDARY_ID);
+        }
+
+        if(content.size() <= limit) {
+            Limit remaining = Limit.of(limit + 1 - content.size());
+            content.addAll(cursor == null
+                    ? reservationRepository.findPageByUser(userId, remaining)
+                    : reservationRepository.findPageByUserAfter(userId, cursor.dateTime(), cursor.id(), remaining));
+        }
+
+        String nextCursor = null;
+        if(content.size() > limit) {
+            content = content.subList(0, limit);
+            nextCursor = encodeCursor(content.get(limit - 1));
+        }
+
+        return new ReservationPageDTO(content, nextCursor);
+    }
+
     @Transactional
-    public ReservationResponseDTO patchReservation(UUID id) {
-        Reservation reservation = reservationRepository.findById(id)
+    public ReservationResponseDTO patchReservation(UUID restaurantId, UUID id, LocalDateTime dateTime) {
+        Reservation reservation = reservationRepository.findByIdAndReservationDateTime(id, dateTime.truncatedTo(ChronoUnit.MICROS))
+                .filter(r -> r.getRestaurantId().equals(restaurantId))
                 .orElseThrow(() -> new ApiException("Reservation not found", HttpStatus.NOT_FOUND));
 
-        Table table = reservation.getTable();
-        table.setStatus(TableStatus.AVAILABLE);
-        tableRepository.save(table);
-
+        // The entity is keyed by id alone, so a dirty-checked update would scan every partition
+        if(reservation.getStatus() != ReservationStatus.ACTIVE || reservationRepository.cancel(id, reservation.getReservationDateTime()) == 0) {
+            throw new ApiException("Reservation is not active", HttpStatus.CONFLICT);
+        }
         reservation.setStatus(ReservationStatus.CANCELED);
-        reservationRepository.save(reservation);
+        occupancyService.recordCanceled(reservation);
+
+        UUID tableId = reservation.getTable().getId();
+        UUID reservationId = reservation.getId();
+        LocalDateTime start = reservation.getReservationDateTime();
+        LocalDateTime end = reservation.getReservationEnd();
+
+        clusterNotifier.publish(new ClusterEvent.SlotReleased(restaurantId, tableId, reservationId, start));
+        TransactionHooks.afterCommit(() -> {
+            availabilityIndex.release(tableId, reservationId, start);
+            tableEventBroadcaster.publish(restaurantId, TableEventDTO.bookings(tableId));
+        });
+
+        promoteWaitlist(restaurantId, tableId, start.minus(availabilityIndex.getReservationDuration()), end);
 
         return ReservationResponseDTO.from(reservation);
     }
+
+    @Transactional
+    public WaitlistEntryDTO joinWaitlist(UUID restaurantId, ReservationRegisterDTO data, String email) {
+        TableResponseDTO table = tableCatalog.findByNumber(restaurantId, data.tableNumber())
+                .orElseThrow(() -> new ApiException("Table does not exist", HttpStatus.NOT_FOUND));
+
+        checkBookable(table, data);
+
+        UUID userId = userRepository.findIdByEmail(email)
+                .orElseThrow(() -> new ApiException("User not found", HttpStatus.NOT_FOUND));
+
+        LocalDateTime start = data.dateTime().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime end = start.plus(availabilityIndex.getReservationDuration());
+        if(availabilityIndex.isFree(table.id(), start, end) && !reservationRepository.existsOverlapping(table.id(), start, end)) {
+            throw new ApiException("Table is available", HttpStatus.CONFLICT);
+        }
+        UUID id = UUID.randomUUID();
+        if(waitlistEntryRepository.insert(id, restaurantId, table.id(), userId, start, data.people()) == 0) {
+            throw new ApiException("Already on the waitlist", HttpStatus.CONFLICT);
+        }
+
+        return new WaitlistEntryDTO(id, table.number(), start, data.people(), (int) waitlistEntryRepository.countAhead(id) + 1);
+    }
+
+    @Transactional
+    public void leaveWaitlist(UUID id, UUID userId) {
+        if(waitlistEntryRepository.deleteEntryOfUser(id, userId) == 0) {
+            throw new ApiException("Waitlist entry not found", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Promotes waitlist entries starting strictly between from and to. If another transaction holds the
+    // table, the sweeper retries on its next run.
+    @Transactional
+    public int promoteWaitlist(UUID restaurantId, UUID tableId, LocalDateTime from, LocalDateTime to) {
+        TableResponseDTO table = tableCatalog.findById(restaurantId, tableId).orElse(null);
+        if(table == null || isBlocked(table)) {
+            return 0;
+        }
+        List<WaitlistEntry> candidates = waitlistEntryRepository.findCandidates(tableId, from, to);
+        if(candidates.isEmpty()) {
+            return 0;
+        }
+        if(!reservationRepository.tryLockTable(tableId)) {
+            log.debug("Table {} is locked, leaving {} waitlist entries to the sweeper", tableId, candidates.size());
+            return 0;
+        }
+
+        Duration duration = availabilityIndex.getReservationDuration();
+        int promoted = 0;
+
+        // First come, first served; an entry that does not fit keeps its place for a later slot.
+        for(WaitlistEntry entry : candidates) {
+            LocalDateTime entryStart = entry.getReservationDateTime();
+            if(entry.getNumberOfPeople() > table.capacity()
+                    || reservationRepository.existsOverlapping(tableId, entryStart, entryStart.plus(duration))
+                    || waitlistEntryRepository.deleteEntry(entry.getId()) == 0) continue;
+
+            ReservationRegisterDTO data = new ReservationRegisterDTO(table.number(), entryStart, entry.getNumberOfPeople());
+            Reservation promotion = buildReservation(restaurantId, tableRepository.getReferenceById(tableId), userRepository.getReferenceById(entry.getUserId()), data);
+            reservationRepository.saveAndFlush(promotion);
+            recordCreated(promotion);
+            promoted++;
+        }
+        return promoted;
+    }
+
+    private void checkBookable(TableResponseDTO table, ReservationRegisterDTO data) {
+        if(isBlocked(table)) {
+            throw new ApiException("Table is unavailable", HttpStatus.CONFLICT);
+        }
+        if(data.people() > table.capacity()) {
+            throw new ApiException("Amount of people exceeded", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private boolean isBlocked(TableResponseDTO table) {
+        return table.status() == TableStatus.UNAVAILABLE || table.status() == TableStatus.INACTIVE;
+    }
+
+    private Reservation buildReservation(UUID restaurantId, Table table, User user, ReservationRegisterDTO data) {
+        Reservation reservation = new Reservation();
+        reservation.setRestaurantId(restaurantId);
+        reservation.setUser(user);
+        reservation.setTable(table);
+        LocalDateTime start = data.dateTime().truncatedTo(ChronoUnit.MICROS);
+        reservation.setReservationDateTime(start);
+        reservation.setReservationEnd(start.plus(availabilityIndex.getReservationDuration()));
+        reservation.setNumberOfPeople(data.people());
+        reservation.setStatus(ReservationStatus.ACTIVE);
+
+        return reservation;
+    }
+
+    private void checkFree(Reservation reservation) {
+        UUID tableId = reservation.getTable().getId();
+        LocalDateTime start = reservation.getReservationDateTime();
+        LocalDateTime end = reservation.getReservationEnd();
+
+        if(!availabilityIndex.isFree(tableId, start, end) && reservationRepository.existsOverlapping(tableId, start, end)) {
+            throw new ApiException("Table is unavailable", HttpStatus.CONFLICT);
+        }
+    }
+
+    private void recordCreated(Reservation reservation) {
+        UUID restaurantId = reservation.getRestaurantId();
+        UUID tableId = reservation.getTable().getId();
+        UUID id = reservation.getId();
+        LocalDateTime start = reservation.getReservationDateTime();
+        LocalDateTime end = reservation.getReservationEnd();
+
+        occupancyService.recordCreated(reservation);
+        clusterNotifier.publish(new ClusterEvent.SlotReserved(restaurantId, tableId, id, start, end));
+        TransactionHooks.afterCommit(() -> {
+            availabilityIndex.reserve(tableId, id, start, end);
+            tableEventBroadcaster.publish(restaurantId, TableEventDTO.bookings(tableId));
+        });
+    }
+
+    private String encodeCursor(ReservationResponseDTO reservation) {
+        String cursor = reservation.dateTime() + "|" + reservation.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Cursor(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+        } catch (RuntimeException exception) {
+            throw new ApiException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private record Cursor(LocalDateTime dateTime, UUID id) {
+    }
 }
@@ -0,0 +1,92 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.infra.availability.AvailabilityIndex;
+import com.eder.reservas.repositories.IdempotencyKeyRepository;
+import com.eder.reservas.repositories.ReservationRepository;
+import com.eder.reservas.repositories.WaitlistEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Service
+public class ReservationSweeper {
+    private static final Logger log = LoggerFactory.getLogger(ReservationSweeper.class);
+
+    private final ReservationRepository reservationRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final ReservationService reservationService;
+    private final int batchSize;
+    private final Duration idempotencyRetention;
+    private final Counter completed;
+    private final Counter batches;
+    private final Timer runs;
+
+    public ReservationSweeper(ReservationRepository reservationRepository,
+                              IdempotencyKeyRepository idempotencyKeyRepository,
+                              AvailabilityIndex availabilityIndex,
+                              WaitlistEntryRepository waitlistEntryRepository,
+                              ReservationService reservationService,
+                              MeterRegistry meterRegistry,
+                              @Value("${api.reservations.sweeper.batch-size}") int batchSize,
+                              @Value("${api.reservations.idempotency.retention}") Duration idempotencyRetention) {
+        this.reservationRepository = reservationRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.reservationService = reservationService;
+        this.batchSize = batchSize;
+        this.idempotencyRetention = idempotencyRetention;
+        this.completed = meterRegistry.counter("reservations.sweeper.completed");
+        this.batches = meterRegistry.counter("reservations.sweeper.batches");
+        this.runs = meterRegistry.timer("reservations.sweeper.runs");
+    }
+
+    @Scheduled(fixedDelayString = "${api.reservations.sweeper.interval}", initialDelayString = "${api.reservations.sweeper.interval}")
+    public void sweep() {
+        runs.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            int total = 0;
+            int updated;
+
+            do {
+                updated = reservationRepository.completeEndedBefore(now, batchSize);
+                batches.increment();
+                completed.increment(updated);
+                total += updated;
+            } while(updated == batchSize);
+
+            availabilityIndex.removeEndedBefore(now);
+            waitlistEntryRepository.deleteStartingBefore(now);
+            idempotencyKeyRepository.deleteCreatedBefore(now.minus(idempotencyRetention));
+            int promoted = promoteWaitlists(now);
+
+            if(total > 0) log.info("Completed {} finished reservations", total);
+            if(promoted > 0) log.info("Promoted {} waitlist entries", promoted);
+        });
+    }
+
+    // Catches promotions skipped because the table was locked by another transaction.
+    private int promoteWaitlists(LocalDateTime now) {
+        Duration duration = availabilityIndex.getReservationDuration();
+        int promoted = 0;
+
+        for(WaitlistEntryRepository.WaitlistedTable table : waitlistEntryRepository.findWaitlistedTables(now)) {
+            try {
+                promoted += reservationService.promoteWaitlist(table.getRestaurantId(), table.getTableId(), now, table.getLastStart().plus(duration));
+            } catch (RuntimeException exception) {
+                log.warn("Could not promote the waitlist of table {}", table.getTableId(), exception);
+            }
+        }
+        return promoted;
+    }
+}
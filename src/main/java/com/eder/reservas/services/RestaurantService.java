@@ -0,0 +1,35 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.restaurant.Restaurant;
+import com.eder.reservas.domain.restaurant.RestaurantMember;
+import com.eder.reservas.domain.user.User;
+import com.eder.reservas.dtos.restaurant.RestaurantRegisterDTO;
+import com.eder.reservas.dtos.restaurant.RestaurantResponseDTO;
+import com.eder.reservas.repositories.RestaurantMemberRepository;
+import com.eder.reservas.repositories.RestaurantRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class RestaurantService {
+    private final RestaurantRepository restaurantRepository;
+    private final RestaurantMemberRepository restaurantMemberRepository;
+
+    public List<RestaurantResponseDTO> getAllRestaurants() {
+        return restaurantRepository.findAll(Sort.by("name")).stream()
+                .map(RestaurantResponseDTO::from)
+                .toList();
+    }
+
+    @Transactional
+    public RestaurantResponseDTO createRestaurant(RestaurantRegisterDTO data, User owner) {
+        Restaurant restaurant = restaurantRepository.save(new Restaurant(data));
+        restaurantMemberRepository.save(new RestaurantMember(owner.getId(), restaurant.getId()));
+        return RestaurantResponseDTO.from(restaurant);
+    }
+}
@@ -1,56 +1,127 @@
 package com.eder.reservas.services;
 
 import com.eder.reservas.domain.table.Table;
+import com.eder.reservas.domain.table.TableStatus;
+import com.eder.reservas.dtos.table.TableEventDTO;
+import com.eder.reservas.dtos.table.TableImportDTO;
 import com.eder.reservas.dtos.table.TablePatchDTO;
 import com.eder.reservas.dtos.table.TableRegisterDTO;
 import com.eder.reservas.dtos.table.TableResponseDTO;
 import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.availability.AvailabilityIndex;
+import com.eder.reservas.infra.catalog.TableCatalog;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.infra.cluster.ClusterNotifier;
+import com.eder.reservas.infra.events.TableEventBroadcaster;
+import com.eder.reservas.infra.transaction.TransactionHooks;
+import com.eder.reservas.repositories.RestaurantRepository;
 import com.eder.reservas.repositories.TableRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class TableService {
+    private static final String IMPORT_HEADER = "number,capacity,status";
+    private static final int MAX_IMPORT_SIZE = 10_000;
+
     @Autowired
     private TableRepository tableRepository;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private TableEventBroadcaster tableEventBroadcaster;
+    @Autowired
+    private TableCatalog tableCatalog;
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+    @Autowired
+    private ClusterNotifier clusterNotifier;
+
+    public byte[] getAllTablesJson(UUID restaurantId) {
+        return tableCatalog.getJson(restaurantId);
+    }
+
+    public String getTablesETag(UUID restaurantId) {
+        return tableCatalog.getETag(restaurantId);
+    }
 
-    @Transactional(readOnly = true)
-    public List<TableResponseDTO> getAllTables() {
-        return tableRepository.findAll().stream()
-                .map(t -> new TableResponseDTO(
-                        t.getId(),
-                        t.getNumber(),
-                        t.getCapacity(),
-                        t.getStatus()
-                ))
-                .collect(Collectors.toList());
+    public List<TableResponseDTO> getAvailableTables(UUID restaurantId, LocalDateTime from, LocalDateTime to, int people) {
+        if(!from.isBefore(to)) {
+            throw new ApiException("Invalid time range", HttpStatus.BAD_REQUEST);
+        }
+        return availabilityIndex.findAvailable(restaurantId, from, to, people);
+    }
+
+    public SseEmitter streamTables(UUID restaurantId) {
+        return tableEventBroadcaster.subscribe(restaurantId);
     }
 
     @Transactional
-    public TableResponseDTO createTable(TableRegisterDTO data) {
-        if(tableRepository.findByNumber(data.number()).isPresent()) {
+    public TableResponseDTO createTable(UUID restaurantId, TableRegisterDTO data) {
+        checkRestaurant(restaurantId);
+        if(tableCatalog.findByNumber(restaurantId, data.number()).isPresent()) {
             throw new ApiException("Table number already used", HttpStatus.CONFLICT);
         }
-        Table newTable = new Table(data);
+        Table newTable = new Table(restaurantId, data);
         tableRepository.save(newTable);
+        clusterNotifier.publish(new ClusterEvent.TablesChanged(restaurantId));
+        TransactionHooks.afterCommit(() -> {
+            availabilityIndex.putTable(newTable);
+            tableCatalog.put(restaurantId, TableResponseDTO.from(newTable));
+            tableEventBroadcaster.publish(restaurantId, TableEventDTO.updated(newTable));
+        });
+
+        return TableResponseDTO.from(newTable);
+    }
+
+    public List<TableRegisterDTO> readImport(InputStream input) {
+        List<TableRegisterDTO> data = readTables(input);
+        if(data.isEmpty()) {
+            throw new ApiException("Import must contain at least one table", HttpStatus.BAD_REQUEST);
+        }
+        return data;
+    }
 
-        return new TableResponseDTO(
-                newTable.getId(),
-                newTable.getNumber(),
-                newTable.getCapacity(),
-                newTable.getStatus()
-        );
+    @Transactional
+    public TableImportDTO importTables(UUID restaurantId, List<TableRegisterDTO> data) {
+        checkRestaurant(restaurantId);
+        List<Integer> used = tableRepository.findNumbersIn(restaurantId, data.stream().map(TableRegisterDTO::number).toList());
+        if(!used.isEmpty()) {
+            String numbers = used.stream().sorted().limit(10).map(String::valueOf).collect(Collectors.joining(", "));
+            throw new ApiException("Table numbers already used: " + numbers + (used.size() > 10 ? ", ..." : ""), HttpStatus.CONFLICT);
+        }
+
+        List<Table> newTables = data.stream().map(t -> new Table(restaurantId, t)).toList();
+        tableRepository.saveAll(newTables);
+        clusterNotifier.publish(new ClusterEvent.TablesChanged(restaurantId));
+        TransactionHooks.afterCommit(() -> {
+            newTables.forEach(availabilityIndex::putTable);
+            tableCatalog.putAll(restaurantId, newTables.stream().map(TableResponseDTO::from).toList());
+            tableEventBroadcaster.resync(restaurantId);
+        });
+
+        return new TableImportDTO(newTables.size());
     }
 
     @Transactional
-    public TableResponseDTO patchTable(UUID id, TablePatchDTO data) {
-        Table table = tableRepository.findById(id)
+    public TableResponseDTO patchTable(UUID restaurantId, UUID id, TablePatchDTO data) {
+        Table table = tableRepository.findByIdAndRestaurantId(id, restaurantId)
                 .orElseThrow(() -> new ApiException("Table does not exist", HttpStatus.NOT_FOUND));
 
         data.number().ifPresent(n -> table.setNumber(n));
@@ -58,20 +129,83 @@ public class TableService {
         data.status().ifPresent(s -> table.setStatus(s));
 
         tableRepository.save(table);
+        clusterNotifier.publish(new ClusterEvent.TablesChanged(restaurantId));
+        TransactionHooks.afterCommit(() -> {
+            availabilityIndex.putTable(table);
+            tableCatalog.put(restaurantId, TableResponseDTO.from(table));
+            tableEventBroadcaster.publish(restaurantId, TableEventDTO.updated(table));
+        });
 
-        return new TableResponseDTO(
-                table.getId(),
-                table.getNumber(),
-                table.getCapacity(),
-                table.getStatus()
-        );
+        return TableResponseDTO.from(table);
     }
 
     @Transactional
-    public void deleteTable(UUID id) {
-        if(!tableRepository.existsById(id)) {
+    public void deleteTable(UUID restaurantId, UUID id) {
+        if(!tableRepository.existsByIdAndRestaurantId(id, restaurantId)) {
             throw new ApiException("Table does not exist", HttpStatus.NOT_FOUND);
         }
         tableRepository.deleteById(id);
+        clusterNotifier.publish(new ClusterEvent.TablesChanged(restaurantId));
+        TransactionHooks.afterCommit(() -> {
+            availabilityIndex.removeTable(id);
+            tableCatalog.remove(restaurantId, id);
+            tableEventBroadcaster.publish(restaurantId, TableEventDTO.deleted(id));
+        });
+    }
+
+    private void checkRestaurant(UUID restaurantId) {
+        if(!restaurantRepository.existsById(restaurantId)) {
+            throw new ApiException("Restaurant not found", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private List<TableRegisterDTO> readTables(InputStream input) {
+        List<TableRegisterDTO> tables = new ArrayList<>();
+        Set<Integer> numbers = new HashSet<>();
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if(header == null || !IMPORT_HEADER.equalsIgnoreCase(header.replace("\uFEFF", "").replace(" ", ""))) {
+                throw new ApiException("CSV header must be " + IMPORT_HEADER, HttpStatus.BAD_REQUEST);
+            }
+
+            String line;
+            int lineNumber = 1;
+            while((line = reader.readLine()) != null) {
+                lineNumber++;
+                if(line.isBlank()) continue;
+                if(tables.size() == MAX_IMPORT_SIZE) {
+                    throw new ApiException("Import can not exceed " + MAX_IMPORT_SIZE + " tables", HttpStatus.BAD_REQUEST);
+                }
+
+                TableRegisterDTO table = readTable(line, lineNumber);
+                if(!numbers.add(table.number())) {
+                    throw new ApiException("Duplicate table number " + table.number() + " at line " + lineNumber, HttpStatus.BAD_REQUEST);
+                }
+                tables.add(table);
+            }
+        } catch (IOException exception) {
+            throw new ApiException("Could not read import", HttpStatus.BAD_REQUEST);
+        }
+        return tables;
+    }
+
+    private TableRegisterDTO readTable(String line, int lineNumber) {
+        String[] fields = line.split(",", -1);
+        if(fields.length != 3) {
+            throw new ApiException("Invalid table at line " + lineNumber + ": expected 3 columns", HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            int number = Integer.parseInt(fields[0].strip());
+            int capacity = Integer.parseInt(fields[1].strip());
+            TableStatus status = TableStatus.valueOf(fields[2].strip().toUpperCase());
+            if(number < 1 || capacity < 1) {
+                throw new IllegalArgumentException();
+            }
+            return new TableRegisterDTO(number, capacity, status);
+        } catch (IllegalArgumentException exception) {
+            throw new ApiException("Invalid table at line " + lineNumber, HttpStatus.BAD_REQUEST);
+        }
     }
 }
@@ -0,0 +1,16 @@
+CREATE FUNCTION drop_reservations_partition(month_start DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'reservations_' || to_char(month_start, 'YYYY_MM');
+BEGIN
+    DELETE FROM reservations_default
+    WHERE reservation_date_time >= month_start AND reservation_date_time < month_start + INTERVAL '1 month';
+
+    IF to_regclass(partition_name) IS NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('DROP TABLE %I', partition_name);
+
+    RETURN TRUE;
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,20 @@
+CREATE TABLE restaurants (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    name VARCHAR(100) NOT NULL
+);
+
+INSERT INTO restaurants (id, name) VALUES ('00000000-0000-0000-0000-000000000000', 'Default');
+
+ALTER TABLE restaurant_tables ADD COLUMN restaurant_id UUID NOT NULL DEFAULT '00000000-0000-0000-0000-000000000000' REFERENCES restaurants(id);
+ALTER TABLE restaurant_tables ALTER COLUMN restaurant_id DROP DEFAULT;
+ALTER TABLE restaurant_tables DROP CONSTRAINT restaurant_tables_number_key;
+ALTER TABLE restaurant_tables ADD CONSTRAINT restaurant_tables_restaurant_id_number_key UNIQUE (restaurant_id, number);
+
+ALTER TABLE reservations ADD COLUMN restaurant_id UUID NOT NULL DEFAULT '00000000-0000-0000-0000-000000000000' REFERENCES restaurants(id);
+ALTER TABLE reservations ALTER COLUMN restaurant_id DROP DEFAULT;
+
+ALTER TABLE occupancy_hourly ADD COLUMN restaurant_id UUID NOT NULL DEFAULT '00000000-0000-0000-0000-000000000000' REFERENCES restaurants(id);
+ALTER TABLE occupancy_hourly ALTER COLUMN restaurant_id DROP DEFAULT;
+
+DROP INDEX occupancy_hourly_hour_start_idx;
+CREATE INDEX occupancy_hourly_restaurant_hour_start_idx ON occupancy_hourly (restaurant_id, hour_start);
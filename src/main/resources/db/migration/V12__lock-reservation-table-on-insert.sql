@@ -0,0 +1,29 @@
+CREATE OR REPLACE FUNCTION check_reservation_boundary_overlap() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.status <> 'ACTIVE' THEN
+        RETURN NEW;
+    END IF;
+
+    PERFORM pg_advisory_xact_lock(hashtext('reservations_table'), hashtext(CAST(NEW.table_id AS TEXT)));
+
+    IF date_trunc('month', NEW.reservation_end - INTERVAL '1 microsecond') = date_trunc('month', NEW.reservation_date_time)
+        AND NEW.reservation_date_time >= date_trunc('month', NEW.reservation_date_time) + INTERVAL '1 day' THEN
+        RETURN NEW;
+    END IF;
+
+    IF EXISTS (
+        SELECT 1 FROM reservations r
+        WHERE r.table_id = NEW.table_id
+          AND r.status = 'ACTIVE'
+          AND r.id <> NEW.id
+          AND r.reservation_date_time >= NEW.reservation_date_time - INTERVAL '1 day'
+          AND r.reservation_date_time < NEW.reservation_end
+          AND r.reservation_end > NEW.reservation_date_time
+    ) THEN
+        RAISE EXCEPTION 'conflicting key value violates exclusion constraint "reservations_no_overlap"'
+            USING ERRCODE = 'exclusion_violation', CONSTRAINT = 'reservations_no_overlap';
+    END IF;
+
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
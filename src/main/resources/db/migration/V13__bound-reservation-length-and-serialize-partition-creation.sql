@@ -0,0 +1,31 @@
+ALTER TABLE reservations
+    ADD CONSTRAINT reservations_max_length CHECK (reservation_end <= reservation_date_time + INTERVAL '1 day');
+
+CREATE OR REPLACE FUNCTION create_reservations_partition(month_start DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'reservations_' || to_char(month_start, 'YYYY_MM');
+    month_end DATE := CAST(month_start + INTERVAL '1 month' AS DATE);
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('reservations_partition'));
+
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    BEGIN
+        EXECUTE format('CREATE TABLE %I (LIKE reservations INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+        EXECUTE format(
+            'WITH moved AS (DELETE FROM reservations_default WHERE reservation_date_time >= %L AND reservation_date_time < %L RETURNING *) '
+            'INSERT INTO %I SELECT * FROM moved',
+            month_start, month_end, partition_name);
+        EXECUTE format('ALTER TABLE reservations ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', partition_name, month_start, month_end);
+        EXECUTE format(
+            'ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist (table_id WITH =, tsrange(reservation_date_time, reservation_end) WITH &&) WHERE (status = %L)',
+            partition_name, partition_name || '_no_overlap', 'ACTIVE');
+    EXCEPTION WHEN duplicate_table THEN
+        RETURN FALSE;
+    END;
+
+    RETURN TRUE;
+END
+$$ LANGUAGE plpgsql;
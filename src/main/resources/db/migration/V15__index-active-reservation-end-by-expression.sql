@@ -0,0 +1,3 @@
+DROP INDEX reservations_active_end_idx;
+
+CREATE INDEX reservations_active_end_idx ON reservations ((CASE WHEN status = 'ACTIVE' THEN reservation_end END));
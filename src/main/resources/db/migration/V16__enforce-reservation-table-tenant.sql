@@ -0,0 +1,7 @@
+ALTER TABLE restaurant_tables ADD CONSTRAINT restaurant_tables_id_restaurant_id_key UNIQUE (id, restaurant_id);
+
+ALTER TABLE reservations DROP CONSTRAINT reservations_table_id_fkey1;
+ALTER TABLE reservations ADD CONSTRAINT reservations_table_id_restaurant_id_fkey
+    FOREIGN KEY (table_id, restaurant_id) REFERENCES restaurant_tables(id, restaurant_id);
+
+CREATE INDEX reservations_restaurant_date_time_idx ON reservations (restaurant_id, reservation_date_time);
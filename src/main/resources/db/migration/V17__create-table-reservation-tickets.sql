@@ -0,0 +1,16 @@
+CREATE TABLE reservation_tickets (
+    id UUID PRIMARY KEY,
+    email VARCHAR(100) NOT NULL,
+    restaurant_id UUID NOT NULL REFERENCES restaurants(id),
+    table_number INTEGER NOT NULL,
+    reservation_date_time TIMESTAMP NOT NULL,
+    number_of_people INTEGER NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    reservation_id UUID,
+    user_id UUID,
+    table_id UUID,
+    message VARCHAR(255),
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX reservation_tickets_created_at_idx ON reservation_tickets (created_at);
@@ -0,0 +1,6 @@
+ALTER TABLE idempotency_keys ADD COLUMN reservation_date_time TIMESTAMP;
+
+UPDATE idempotency_keys k
+SET reservation_date_time = r.reservation_date_time
+FROM reservations r
+WHERE r.id = k.reservation_id;
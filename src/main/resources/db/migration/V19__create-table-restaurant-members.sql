@@ -0,0 +1,10 @@
+CREATE TABLE restaurant_members (
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    restaurant_id UUID NOT NULL REFERENCES restaurants(id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, restaurant_id)
+);
+
+CREATE INDEX restaurant_members_restaurant_id_idx ON restaurant_members (restaurant_id);
+
+INSERT INTO restaurant_members (user_id, restaurant_id)
+SELECT id, '00000000-0000-0000-0000-000000000000' FROM users;
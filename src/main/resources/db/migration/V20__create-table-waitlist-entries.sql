@@ -0,0 +1,12 @@
+CREATE TABLE waitlist_entries (
+    id UUID PRIMARY KEY,
+    join_sequence BIGINT GENERATED ALWAYS AS IDENTITY,
+    restaurant_id UUID NOT NULL REFERENCES restaurants(id),
+    table_id UUID NOT NULL REFERENCES restaurant_tables(id) ON DELETE CASCADE,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    reservation_date_time TIMESTAMP NOT NULL,
+    number_of_people INTEGER NOT NULL,
+    UNIQUE (table_id, reservation_date_time, user_id)
+);
+
+CREATE INDEX waitlist_entries_reservation_date_time_idx ON waitlist_entries (reservation_date_time);
@@ -0,0 +1,8 @@
+-- Bookings used to flip their table to UNAVAILABLE until canceled. Release the tables whose latest
+-- reservation is still holding them that way; staff blocks (no reservation, or set after a cancel) stay.
+UPDATE restaurant_tables t SET status = 'AVAILABLE'
+WHERE t.status = 'UNAVAILABLE'
+  AND (SELECT r.status FROM reservations r
+       WHERE r.table_id = t.id
+       ORDER BY r.reservation_date_time DESC
+       LIMIT 1) IN ('ACTIVE', 'COMPLETED');
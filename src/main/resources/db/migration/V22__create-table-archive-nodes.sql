@@ -0,0 +1,4 @@
+CREATE TABLE archive_nodes (
+    node VARCHAR(36) PRIMARY KEY,
+    seen_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,45 @@
+DROP INDEX reservations_active_end_idx;
+
+CREATE INDEX reservations_active_end_idx ON reservations (reservation_end) WHERE status = 'ACTIVE';
+
+CREATE STATISTICS reservations_status_end_stats (dependencies, mcv) ON status, reservation_end FROM reservations;
+
+DO $$
+DECLARE
+    partition_name TEXT;
+BEGIN
+    FOR partition_name IN SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'reservations'::regclass LOOP
+        EXECUTE format('CREATE STATISTICS %I (dependencies, mcv) ON status, reservation_end FROM %I', partition_name || '_status_end_stats', partition_name);
+    END LOOP;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION create_reservations_partition(month_start DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'reservations_' || to_char(month_start, 'YYYY_MM');
+    month_end DATE := CAST(month_start + INTERVAL '1 month' AS DATE);
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('reservations_partition'));
+
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    BEGIN
+        EXECUTE format('CREATE TABLE %I (LIKE reservations INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+        EXECUTE format(
+            'WITH moved AS (DELETE FROM reservations_default WHERE reservation_date_time >= %L AND reservation_date_time < %L RETURNING *) '
+            'INSERT INTO %I SELECT * FROM moved',
+            month_start, month_end, partition_name);
+        EXECUTE format('ALTER TABLE reservations ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', partition_name, month_start, month_end);
+        EXECUTE format(
+            'ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist (table_id WITH =, tsrange(reservation_date_time, reservation_end) WITH &&) WHERE (status = %L)',
+            partition_name, partition_name || '_no_overlap', 'ACTIVE');
+        EXECUTE format('CREATE STATISTICS %I (dependencies, mcv) ON status, reservation_end FROM %I', partition_name || '_status_end_stats', partition_name);
+    EXCEPTION WHEN duplicate_table THEN
+        RETURN FALSE;
+    END;
+
+    RETURN TRUE;
+END
+$$ LANGUAGE plpgsql;
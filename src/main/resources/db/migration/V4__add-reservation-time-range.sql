@@ -0,0 +1,15 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE reservations ADD COLUMN reservation_end TIMESTAMP;
+
+UPDATE reservations SET reservation_end = reservation_date_time + INTERVAL '2 hours';
+
+ALTER TABLE reservations ALTER COLUMN reservation_end SET NOT NULL;
+
+ALTER TABLE reservations
+    ADD CONSTRAINT reservations_valid_range CHECK (reservation_end > reservation_date_time);
+
+ALTER TABLE reservations
+    ADD CONSTRAINT reservations_no_overlap
+    EXCLUDE USING gist (table_id WITH =, tsrange(reservation_date_time, reservation_end) WITH &&)
+    WHERE (status = 'ACTIVE');
@@ -0,0 +1 @@
+CREATE INDEX reservations_user_date_time_id_idx ON reservations (user_id, reservation_date_time, id);
@@ -0,0 +1,3 @@
+CREATE INDEX reservations_table_date_time_idx ON reservations (table_id, reservation_date_time);
+
+CREATE INDEX reservations_active_end_idx ON reservations (reservation_end) WHERE status = 'ACTIVE';
@@ -0,0 +1,22 @@
+CREATE TABLE occupancy_hourly (
+    table_id UUID NOT NULL,
+    hour_start TIMESTAMP NOT NULL,
+    reservations INTEGER NOT NULL,
+    people INTEGER NOT NULL,
+    occupied_seconds INTEGER NOT NULL,
+    PRIMARY KEY (table_id, hour_start),
+    FOREIGN KEY (table_id) REFERENCES restaurant_tables(id)
+);
+
+CREATE INDEX occupancy_hourly_hour_start_idx ON occupancy_hourly (hour_start);
+
+INSERT INTO occupancy_hourly (table_id, hour_start, reservations, people, occupied_seconds)
+SELECT r.table_id,
+       h.hour_start,
+       SUM(CASE WHEN h.hour_start = date_trunc('hour', r.reservation_date_time) THEN 1 ELSE 0 END),
+       SUM(CASE WHEN h.hour_start = date_trunc('hour', r.reservation_date_time) THEN r.number_of_people ELSE 0 END),
+       SUM(CAST(EXTRACT(EPOCH FROM LEAST(h.hour_start + INTERVAL '1 hour', r.reservation_end) - GREATEST(h.hour_start, r.reservation_date_time)) AS INTEGER))
+FROM reservations r
+CROSS JOIN LATERAL generate_series(date_trunc('hour', r.reservation_date_time), r.reservation_end - INTERVAL '1 microsecond', INTERVAL '1 hour') AS h(hour_start)
+WHERE r.status IN ('ACTIVE', 'COMPLETED')
+GROUP BY r.table_id, h.hour_start;
@@ -0,0 +1,119 @@
+ALTER TABLE idempotency_keys DROP CONSTRAINT idempotency_keys_reservation_id_fkey;
+
+ALTER TABLE reservations RENAME TO reservations_unpartitioned;
+ALTER TABLE reservations_unpartitioned DROP CONSTRAINT reservations_pkey;
+ALTER TABLE reservations_unpartitioned DROP CONSTRAINT reservations_no_overlap;
+DROP INDEX reservations_user_date_time_id_idx;
+DROP INDEX reservations_table_date_time_idx;
+DROP INDEX reservations_active_end_idx;
+
+CREATE TABLE reservations (
+    id UUID NOT NULL DEFAULT uuid_generate_v4(),
+    user_id UUID NOT NULL,
+    table_id UUID NOT NULL,
+    reservation_date_time TIMESTAMP NOT NULL,
+    status VARCHAR(100) NOT NULL,
+    number_of_people INTEGER NOT NULL,
+    reservation_end TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, reservation_date_time),
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    FOREIGN KEY (table_id) REFERENCES restaurant_tables(id),
+    CONSTRAINT reservations_valid_range CHECK (reservation_end > reservation_date_time)
+) PARTITION BY RANGE (reservation_date_time);
+
+CREATE INDEX reservations_user_date_time_id_idx ON reservations (user_id, reservation_date_time, id);
+CREATE INDEX reservations_table_date_time_idx ON reservations (table_id, reservation_date_time);
+CREATE INDEX reservations_active_end_idx ON reservations (reservation_end) WHERE status = 'ACTIVE';
+
+CREATE TABLE reservations_default PARTITION OF reservations DEFAULT;
+
+ALTER TABLE reservations_default
+    ADD CONSTRAINT reservations_default_no_overlap
+    EXCLUDE USING gist (table_id WITH =, tsrange(reservation_date_time, reservation_end) WITH &&)
+    WHERE (status = 'ACTIVE');
+
+CREATE FUNCTION create_reservations_partition(month_start DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    partition_name TEXT := 'reservations_' || to_char(month_start, 'YYYY_MM');
+    month_end DATE := CAST(month_start + INTERVAL '1 month' AS DATE);
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE reservations INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format(
+        'WITH moved AS (DELETE FROM reservations_default WHERE reservation_date_time >= %L AND reservation_date_time < %L RETURNING *) '
+        'INSERT INTO %I SELECT * FROM moved',
+        month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE reservations ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', partition_name, month_start, month_end);
+    EXECUTE format(
+        'ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist (table_id WITH =, tsrange(reservation_date_time, reservation_end) WITH &&) WHERE (status = %L)',
+        partition_name, partition_name || '_no_overlap', 'ACTIVE');
+
+    RETURN TRUE;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION create_reservations_partitions(months_ahead INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    month_start DATE;
+    created INTEGER := 0;
+BEGIN
+    FOR month_start IN
+        SELECT CAST(m AS DATE)
+        FROM generate_series(date_trunc('month', LOCALTIMESTAMP), date_trunc('month', LOCALTIMESTAMP) + months_ahead * INTERVAL '1 month', INTERVAL '1 month') AS m
+    LOOP
+        IF create_reservations_partition(month_start) THEN
+            created := created + 1;
+        END IF;
+    END LOOP;
+
+    RETURN created;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION check_reservation_boundary_overlap() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.status <> 'ACTIVE'
+        OR (date_trunc('month', NEW.reservation_end - INTERVAL '1 microsecond') = date_trunc('month', NEW.reservation_date_time)
+            AND NEW.reservation_date_time >= date_trunc('month', NEW.reservation_date_time) + INTERVAL '1 day') THEN
+        RETURN NEW;
+    END IF;
+
+    PERFORM pg_advisory_xact_lock(hashtext('reservations_boundary'), hashtext(CAST(NEW.table_id AS TEXT)));
+
+    IF EXISTS (
+        SELECT 1 FROM reservations r
+        WHERE r.table_id = NEW.table_id
+          AND r.status = 'ACTIVE'
+          AND r.id <> NEW.id
+          AND r.reservation_date_time >= NEW.reservation_date_time - INTERVAL '1 day'
+          AND r.reservation_date_time < NEW.reservation_end
+          AND r.reservation_end > NEW.reservation_date_time
+    ) THEN
+        RAISE EXCEPTION 'conflicting key value violates exclusion constraint "reservations_no_overlap"'
+            USING ERRCODE = 'exclusion_violation', CONSTRAINT = 'reservations_no_overlap';
+    END IF;
+
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER reservations_boundary_overlap
+    BEFORE INSERT OR UPDATE OF table_id, reservation_date_time, reservation_end, status ON reservations
+    FOR EACH ROW EXECUTE FUNCTION check_reservation_boundary_overlap();
+
+SELECT create_reservations_partition(CAST(m AS DATE))
+FROM generate_series(
+    (SELECT date_trunc('month', MIN(reservation_date_time)) FROM reservations_unpartitioned),
+    date_trunc('month', LOCALTIMESTAMP) - INTERVAL '1 month',
+    INTERVAL '1 month') AS m;
+
+SELECT create_reservations_partitions(12);
+
+INSERT INTO reservations (id, user_id, table_id, reservation_date_time, status, number_of_people, reservation_end)
+SELECT id, user_id, table_id, reservation_date_time, status, number_of_people, reservation_end
+FROM reservations_unpartitioned;
+
+DROP TABLE reservations_unpartitioned;
@@ -1,13 +1,14 @@
 package com.eder.reservas.controllers;
 
+import com.eder.reservas.domain.restaurant.Restaurant;
 import com.eder.reservas.domain.user.UserRole;
 import com.eder.reservas.dtos.auth.LoginDTO;
 import com.eder.reservas.dtos.auth.RegisterDTO;
 import com.eder.reservas.dtos.auth.ResponseDTO;
 import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.security.PrincipalCache;
 import com.eder.reservas.infra.security.SecurityConfig;
 import com.eder.reservas.infra.security.TokenService;
-import com.eder.reservas.repositories.UserRepository;
 import com.eder.reservas.services.AuthService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -34,7 +35,7 @@ public class AuthControllerTest {
     @MockBean
     private AuthService authService;
     @MockBean
-    private UserRepository userRepository;
+    private PrincipalCache principalCache;
     @MockBean
     private TokenService tokenService;
 
@@ -52,7 +53,7 @@ public class AuthControllerTest {
                 "test@email.com"
         );
 
-        when(authService.register(any(RegisterDTO.class))).thenReturn(expectedResponse);
+        when(authService.register(eq(Restaurant.DEFAULT_ID), any(RegisterDTO.class), isNull())).thenReturn(expectedResponse);
 
         mockMvc.perform(post("/users/register")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -73,7 +74,7 @@ public class AuthControllerTest {
 
         ApiException exception = new ApiException("Email already used", HttpStatus.CONFLICT);
 
-        when(authService.register(any(RegisterDTO.class))).thenThrow(exception);
+        when(authService.register(eq(Restaurant.DEFAULT_ID), any(RegisterDTO.class), isNull())).thenThrow(exception);
 
         mockMvc.perform(post("/users/register")
                 .contentType(MediaType.APPLICATION_JSON)
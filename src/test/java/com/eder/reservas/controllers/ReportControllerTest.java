@@ -0,0 +1,114 @@
+package com.eder.reservas.controllers;
+
+import com.eder.reservas.domain.occupancy.OccupancyGranularity;
+import com.eder.reservas.domain.restaurant.Restaurant;
+import com.eder.reservas.dtos.report.OccupancyBackfillDTO;
+import com.eder.reservas.dtos.report.OccupancyReportDTO;
+import com.eder.reservas.infra.security.PrincipalCache;
+import com.eder.reservas.infra.security.SecurityConfig;
+import com.eder.reservas.infra.security.TokenService;
+import com.eder.reservas.infra.tenant.RestaurantMembers;
+import com.eder.reservas.services.OccupancyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static com.eder.reservas.infra.tenant.RestaurantMembers.member;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ReportController.class)
+@WithMockUser(authorities = {"ROLE_ADMIN", RestaurantMembers.DEFAULT_MEMBER})
+@Import(SecurityConfig.class)
+public class ReportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private OccupancyService occupancyService;
+    @MockBean
+    private PrincipalCache principalCache;
+    @MockBean
+    private TokenService tokenService;
+
+    @Test
+    public void shouldGetOccupancyAndReturn200() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        OccupancyReportDTO row = new OccupancyReportDTO(from, UUID.randomUUID(), 3, 2, 5, 0.5);
+
+        when(occupancyService.getOccupancy(Restaurant.DEFAULT_ID, from, to, OccupancyGranularity.DAY)).thenReturn(List.of(row));
+
+        mockMvc.perform(get("/reports/occupancy")
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .param("granularity", "DAY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].tableNumber").value(3))
+                .andExpect(jsonPath("$[0].reservations").value(2))
+                .andExpect(jsonPath("$[0].occupancy").value(0.5));
+    }
+
+    @Test
+    public void shouldGetHourlyOccupancyByDefault() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        mockMvc.perform(get("/reports/occupancy")
+                        .param("from", from.toString())
+                        .param("to", from.plusHours(6).toString()))
+                .andExpect(status().isOk());
+
+        verify(occupancyService, times(1)).getOccupancy(Restaurant.DEFAULT_ID, from, from.plusHours(6), OccupancyGranularity.HOUR);
+    }
+
+    @Test
+    public void shouldBackfillOccupancyAndReturn200() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        UUID restaurantId = UUID.randomUUID();
+
+        when(occupancyService.backfill(restaurantId, from, to)).thenReturn(new OccupancyBackfillDTO(from, to, 12));
+
+        mockMvc.perform(post("/reports/occupancy/backfill")
+                        .header("X-Restaurant-Id", restaurantId.toString())
+                        .with(member(restaurantId))
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(12));
+    }
+
+    @Test
+    public void shouldNotBackfillOccupancyOfAnotherRestaurantAndThrow403() throws Exception {
+        mockMvc.perform(post("/reports/occupancy/backfill")
+                        .header("X-Restaurant-Id", UUID.randomUUID().toString())
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-02T00:00:00"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("Not a member of this restaurant"));
+
+        verifyNoInteractions(occupancyService);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void shouldNotGetOccupancyAndThrow403() throws Exception {
+        mockMvc.perform(get("/reports/occupancy")
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-02T00:00:00"))
+                .andExpect(status().isForbidden());
+
+        verify(occupancyService, never()).getOccupancy(any(), any(), any(), any());
+    }
+}
@@ -1,42 +1,72 @@
 package com.eder.reservas.controllers;
 
 import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.domain.reservation.ReservationTicketStatus;
+import com.eder.reservas.domain.restaurant.Restaurant;
 import com.eder.reservas.domain.user.User;
 import com.eder.reservas.domain.user.UserRole;
+import com.eder.reservas.dtos.reservation.ReservationAssignDTO;
+import com.eder.reservas.dtos.reservation.ReservationPageDTO;
 import com.eder.reservas.dtos.reservation.ReservationRegisterDTO;
 import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.dtos.reservation.ReservationTicketDTO;
+import com.eder.reservas.dtos.reservation.WaitlistEntryDTO;
 import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.security.PrincipalCache;
 import com.eder.reservas.infra.security.SecurityConfig;
 import com.eder.reservas.infra.security.TokenService;
-import com.eder.reservas.repositories.UserRepository;
+import com.eder.reservas.infra.tenant.RestaurantMembers;
+import com.eder.reservas.services.BookingSequencer;
+import com.eder.reservas.services.IdempotencyService;
+import com.eder.reservas.services.ReservationExportService;
 import com.eder.reservas.services.ReservationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static com.eder.reservas.infra.tenant.RestaurantMembers.member;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.UUID;
 
 @WebMvcTest(ReservationController.class)
-@WithMockUser(roles = "ADMIN")
+@WithMockUser(authorities = {"ROLE_ADMIN", RestaurantMembers.DEFAULT_MEMBER})
 @Import(SecurityConfig.class)
 public class ReservationControllerTest {
     @Autowired
@@ -46,7 +76,13 @@ public class ReservationControllerTest {
     @MockBean
     private ReservationService reservationService;
     @MockBean
-    private UserRepository userRepository;
+    private BookingSequencer bookingSequencer;
+    @MockBean
+    private ReservationExportService reservationExportService;
+    @MockBean
+    private IdempotencyService idempotencyService;
+    @MockBean
+    private PrincipalCache principalCache;
     @MockBean
     private TokenService tokenService;
 
@@ -76,10 +112,10 @@ public class ReservationControllerTest {
                 ReservationStatus.ACTIVE
         );
 
-        when(reservationService.createReservation(any(ReservationRegisterDTO.class), anyString())).thenReturn(response);
+        when(reservationService.createReservation(eq(Restaurant.DEFAULT_ID), any(ReservationRegisterDTO.class), anyString())).thenReturn(response);
 
         mockMvc.perform(post("/reservations")
-                .with(user(user))
+                .with(member(user, Restaurant.DEFAULT_ID))
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(data)))
                 .andExpect(status().isCreated())
@@ -107,10 +143,10 @@ public class ReservationControllerTest {
 
         ApiException exception = new ApiException("Table does not exist", HttpStatus.NOT_FOUND);
 
-        when(reservationService.createReservation(any(ReservationRegisterDTO.class), anyString())).thenThrow(exception);
+        when(reservationService.createReservation(eq(Restaurant.DEFAULT_ID), any(ReservationRegisterDTO.class), anyString())).thenThrow(exception);
 
         mockMvc.perform(post("/reservations")
-                .with(user(user))
+                .with(member(user, Restaurant.DEFAULT_ID))
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(data)))
                 .andExpect(status().isNotFound())
@@ -136,10 +172,41 @@ public class ReservationControllerTest {
 
         ApiException exception = new ApiException("Table is unavailable", HttpStatus.CONFLICT);
 
-        when(reservationService.createReservation(any(ReservationRegisterDTO.class), anyString())).thenThrow(exception);
+        when(reservationService.createReservation(eq(Restaurant.DEFAULT_ID), any(ReservationRegisterDTO.class), anyString())).thenThrow(exception);
+
+        mockMvc.perform(post("/reservations")
+                        .with(member(user, Restaurant.DEFAULT_ID))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(data)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Table is unavailable"));
+    }
+
+    @Test
+    public void shouldNotCreateOverlappingReservationAndThrow409() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        ReservationRegisterDTO data = new ReservationRegisterDTO(
+                1,
+                timestamp,
+                2
+        );
+
+        User user = new User();
+        user.setName("name");
+        user.setEmail("test@email.com");
+        user.setPassword("password");
+        user.setRole(UserRole.ADMIN);
+
+        DataIntegrityViolationException exception = new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException("conflicting key value violates exclusion constraint", new SQLException(), "reservations_no_overlap")
+        );
+
+        when(reservationService.createReservation(eq(Restaurant.DEFAULT_ID), any(ReservationRegisterDTO.class), anyString())).thenThrow(exception);
 
         mockMvc.perform(post("/reservations")
-                        .with(user(user))
+                        .with(member(user, Restaurant.DEFAULT_ID))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(data)))
                 .andExpect(status().isConflict())
@@ -165,16 +232,98 @@ public class ReservationControllerTest {
 
         ApiException exception = new ApiException("Amount of people exceeded", HttpStatus.BAD_REQUEST);
 
-        when(reservationService.createReservation(any(ReservationRegisterDTO.class), anyString())).thenThrow(exception);
+        when(reservationService.createReservation(eq(Restaurant.DEFAULT_ID), any(ReservationRegisterDTO.class), anyString())).thenThrow(exception);
 
         mockMvc.perform(post("/reservations")
-                        .with(user(user))
+                        .with(member(user, Restaurant.DEFAULT_ID))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(data)))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Amount of people exceeded"));
     }
 
+    @Test
+    public void shouldCreateReservationBatchAndReturn201() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        List<ReservationRegisterDTO> data = List.of(
+                new ReservationRegisterDTO(1, timestamp, 2),
+                new ReservationRegisterDTO(2, timestamp, 4)
+        );
+
+        User user = new User();
+        user.setName("name");
+        user.setEmail("test@email.com");
+        user.setPassword("password");
+        user.setRole(UserRole.ADMIN);
+
+        List<ReservationResponseDTO> response = List.of(
+                new ReservationResponseDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), timestamp, 2, ReservationStatus.ACTIVE),
+                new ReservationResponseDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), timestamp, 4, ReservationStatus.ACTIVE)
+        );
+
+        when(reservationService.createReservations(eq(Restaurant.DEFAULT_ID), anyList(), anyString())).thenReturn(response);
+
+        mockMvc.perform(post("/reservations/batch")
+                        .with(member(user, Restaurant.DEFAULT_ID))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(data)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].people").value(4));
+    }
+
+    @Test
+    public void shouldAcceptAsyncReservationAndReturn202() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        ReservationRegisterDTO data = new ReservationRegisterDTO(
+                1,
+                timestamp,
+                2
+        );
+
+        User user = new User();
+        user.setName("name");
+        user.setEmail("test@email.com");
+        user.setPassword("password");
+        user.setRole(UserRole.ADMIN);
+
+        ReservationTicketDTO ticket = ReservationTicketDTO.pending(UUID.randomUUID());
+        UUID restaurantId = UUID.randomUUID();
+
+        when(bookingSequencer.submit(eq(restaurantId), any(ReservationRegisterDTO.class), anyString())).thenReturn(ticket);
+
+        mockMvc.perform(post("/reservations/async")
+                        .with(member(user, restaurantId))
+                        .header("X-Restaurant-Id", restaurantId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(data)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/reservations/tickets/" + ticket.id()))
+                .andExpect(jsonPath("$.status").value(ReservationTicketStatus.PENDING.name()));
+    }
+
+    @Test
+    public void shouldGetReservationTicketAndReturn200() throws Exception {
+        User user = new User();
+        user.setName("name");
+        user.setEmail("test@email.com");
+        user.setPassword("password");
+        user.setRole(UserRole.ADMIN);
+
+        UUID id = UUID.randomUUID();
+        ReservationTicketDTO ticket = ReservationTicketDTO.rejected(id, "Table is unavailable");
+
+        when(bookingSequencer.getTicket(id, user.getEmail())).thenReturn(ticket);
+
+        mockMvc.perform(get("/reservations/tickets/{id}", id)
+                        .with(user(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(ReservationTicketStatus.REJECTED.name()))
+                .andExpect(jsonPath("$.message").value("Table is unavailable"));
+    }
+
     @Test
     public void shouldGetAllUserReservations() throws Exception {
         User user = new User();
@@ -195,18 +344,19 @@ public class ReservationControllerTest {
                 ReservationStatus.ACTIVE
         );
 
-        List<ReservationResponseDTO> response = List.of(reservations);
+        ReservationPageDTO response = new ReservationPageDTO(List.of(reservations), "next");
 
-        when(reservationService.getAllReservations(anyString())).thenReturn(response);
+        when(reservationService.getAllReservations(anyString(), eq("cursor"), eq(10))).thenReturn(response);
 
         mockMvc.perform(get("/reservations")
                 .with(user(user))
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(user.getEmail()))
+                .param("after", "cursor")
+                .param("limit", "10"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.[0].dateTime").value(timestamp.toString()))
-                .andExpect(jsonPath("$.[0].people").value(2))
-                .andExpect(jsonPath("$.[0].status").value(ReservationStatus.ACTIVE.name()));
+                .andExpect(jsonPath("$.content[0].dateTime").value(timestamp.toString()))
+                .andExpect(jsonPath("$.content[0].people").value(2))
+                .andExpect(jsonPath("$.content[0].status").value(ReservationStatus.ACTIVE.name()))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
     }
 
     @Test
@@ -219,7 +369,7 @@ public class ReservationControllerTest {
 
         ApiException exception = new ApiException("User not found", HttpStatus.NOT_FOUND);
 
-        when(reservationService.getAllReservations(anyString())).thenThrow(exception);
+        when(reservationService.getAllReservations(anyString(), isNull(), anyInt())).thenThrow(exception);
 
         mockMvc.perform(get("/reservations")
                 .with(user(user))
@@ -251,10 +401,11 @@ public class ReservationControllerTest {
                 ReservationStatus.CANCELED
         );
 
-        when(reservationService.patchReservation(any(UUID.class))).thenReturn(reservations);
+        when(reservationService.patchReservation(Restaurant.DEFAULT_ID, id, timestamp)).thenReturn(reservations);
 
         mockMvc.perform(patch("/reservations/{id}/cancel", id)
-                .with(user(user)))
+                .param("dateTime", timestamp.toString())
+                .with(member(user, Restaurant.DEFAULT_ID)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.dateTime").value(timestamp.toString()))
                 .andExpect(jsonPath("$.people").value(2))
@@ -273,11 +424,147 @@ public class ReservationControllerTest {
 
         ApiException exception = new ApiException("Reservation not found", HttpStatus.NOT_FOUND);
 
-        when(reservationService.patchReservation(any(UUID.class))).thenThrow(exception);
+        when(reservationService.patchReservation(eq(Restaurant.DEFAULT_ID), eq(id), any(LocalDateTime.class))).thenThrow(exception);
 
         mockMvc.perform(patch("/reservations/{id}/cancel", id)
-                .with(user(user)))
+                .param("dateTime", "2030-01-01T19:00:00")
+                .with(member(user, Restaurant.DEFAULT_ID)))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message").value("Reservation not found"));
     }
+
+    @Test
+    public void shouldNotCancelReservationWithoutDateTimeAndThrow400() throws Exception {
+        mockMvc.perform(patch("/reservations/{id}/cancel", UUID.randomUUID())
+                .with(member(Restaurant.DEFAULT_ID)))
+                .andExpect(status().isBadRequest());
+
+        verify(reservationService, never()).patchReservation(any(), any(), any());
+    }
+
+    @Test
+    public void shouldStreamReservationsAsNdjsonAndReturn200() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(1);
+            output.write("{\"people\":2}\n{\"people\":4}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reservationExportService).exportReservations(eq(Restaurant.DEFAULT_ID), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/reservations/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"people\":2}\n{\"people\":4}\n"));
+    }
+
+    @Test
+    public void shouldNotExportReservationsOfAnotherRestaurantAndThrow403() throws Exception {
+        mockMvc.perform(get("/reservations/export").header("X-Restaurant-Id", UUID.randomUUID().toString()))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("Not a member of this restaurant"));
+
+        verify(reservationExportService, never()).exportReservations(any(UUID.class), any(OutputStream.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void shouldNotExportReservationsAndThrow403() throws Exception {
+        mockMvc.perform(get("/reservations/export"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void shouldCreateReservationWithIdempotencyKeyAndReturn201() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        ReservationRegisterDTO data = new ReservationRegisterDTO(1, timestamp, 2);
+
+        User user = new User();
+        user.setEmail("test@email.com");
+        user.setRole(UserRole.USER);
+
+        ReservationResponseDTO response = new ReservationResponseDTO(
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                timestamp,
+                2,
+                ReservationStatus.ACTIVE
+        );
+
+        when(idempotencyService.createReservation(eq(Restaurant.DEFAULT_ID), any(ReservationRegisterDTO.class), any(User.class), eq("retry-1"))).thenReturn(response);
+
+        mockMvc.perform(post("/reservations")
+                .with(member(user, Restaurant.DEFAULT_ID))
+                .header("Idempotency-Key", "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(data)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(response.id().toString()));
+    }
+
+    @Test
+    public void shouldJoinWaitlistAndReturn201() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        ReservationRegisterDTO data = new ReservationRegisterDTO(1, timestamp, 2);
+
+        User user = new User();
+        user.setEmail("test@email.com");
+        user.setRole(UserRole.USER);
+
+        WaitlistEntryDTO entry = new WaitlistEntryDTO(UUID.randomUUID(), 1, timestamp, 2, 1);
+
+        when(reservationService.joinWaitlist(eq(Restaurant.DEFAULT_ID), any(ReservationRegisterDTO.class), eq("test@email.com"))).thenReturn(entry);
+
+        mockMvc.perform(post("/reservations/waitlist")
+                .with(member(user, Restaurant.DEFAULT_ID))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(data)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(entry.id().toString()))
+                .andExpect(jsonPath("$.position").value(1));
+    }
+
+    @Test
+    public void shouldLeaveWaitlistAndReturn204() throws Exception {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("test@email.com");
+        user.setRole(UserRole.USER);
+
+        mockMvc.perform(delete("/reservations/waitlist/{id}", UUID.randomUUID())
+                .with(user(user)))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void shouldAssignReservationAndReturn201() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        ReservationAssignDTO data = new ReservationAssignDTO(timestamp, 3);
+
+        User user = new User();
+        user.setEmail("test@email.com");
+        user.setRole(UserRole.USER);
+
+        ReservationResponseDTO response = new ReservationResponseDTO(
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                timestamp,
+                3,
+                ReservationStatus.ACTIVE
+        );
+
+        when(reservationService.assignReservation(eq(Restaurant.DEFAULT_ID), any(ReservationAssignDTO.class), eq("test@email.com"))).thenReturn(response);
+
+        mockMvc.perform(post("/reservations/assign")
+                .with(member(user, Restaurant.DEFAULT_ID))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(data)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.tableId").value(response.tableId().toString()))
+                .andExpect(jsonPath("$.people").value(3));
+    }
 }
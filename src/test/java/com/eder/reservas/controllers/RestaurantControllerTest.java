@@ -0,0 +1,89 @@
+package com.eder.reservas.controllers;
+
+import com.eder.reservas.dtos.restaurant.RestaurantRegisterDTO;
+import com.eder.reservas.dtos.restaurant.RestaurantResponseDTO;
+import com.eder.reservas.infra.security.PrincipalCache;
+import com.eder.reservas.infra.security.SecurityConfig;
+import com.eder.reservas.infra.security.TokenService;
+import com.eder.reservas.services.RestaurantService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(RestaurantController.class)
+@WithMockUser(roles = "ADMIN")
+@Import(SecurityConfig.class)
+public class RestaurantControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @MockBean
+    private RestaurantService restaurantService;
+    @MockBean
+    private PrincipalCache principalCache;
+    @MockBean
+    private TokenService tokenService;
+
+    @Test
+    public void shouldCreateRestaurantAndReturn201() throws Exception {
+        RestaurantResponseDTO response = new RestaurantResponseDTO(UUID.randomUUID(), "Centro");
+
+        when(restaurantService.createRestaurant(eq(new RestaurantRegisterDTO("Centro")), any())).thenReturn(response);
+
+        mockMvc.perform(post("/restaurants")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RestaurantRegisterDTO("Centro"))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(response.id().toString()))
+                .andExpect(jsonPath("$.name").value("Centro"));
+    }
+
+    @Test
+    public void shouldNotCreateRestaurantWithBlankNameAndThrow400() throws Exception {
+        mockMvc.perform(post("/restaurants")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RestaurantRegisterDTO(" "))))
+                .andExpect(status().isBadRequest());
+
+        verify(restaurantService, never()).createRestaurant(any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void shouldNotCreateRestaurantAndThrow403() throws Exception {
+        mockMvc.perform(post("/restaurants")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RestaurantRegisterDTO("Centro"))))
+                .andExpect(status().isForbidden());
+
+        verify(restaurantService, never()).createRestaurant(any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void shouldGetAllRestaurantsAndReturn200() throws Exception {
+        when(restaurantService.getAllRestaurants()).thenReturn(List.of(new RestaurantResponseDTO(UUID.randomUUID(), "Centro")));
+
+        mockMvc.perform(get("/restaurants"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Centro"));
+    }
+}
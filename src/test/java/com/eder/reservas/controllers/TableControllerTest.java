@@ -1,16 +1,21 @@
 package com.eder.reservas.controllers;
 
+import com.eder.reservas.domain.restaurant.Restaurant;
 import com.eder.reservas.domain.table.TableStatus;
+import com.eder.reservas.dtos.table.TableImportDTO;
 import com.eder.reservas.dtos.table.TablePatchDTO;
 import com.eder.reservas.dtos.table.TableRegisterDTO;
 import com.eder.reservas.dtos.table.TableResponseDTO;
 import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.security.PrincipalCache;
 import com.eder.reservas.infra.security.SecurityConfig;
 import com.eder.reservas.infra.security.TokenService;
-import com.eder.reservas.repositories.UserRepository;
+import com.eder.reservas.infra.tenant.RestaurantMembers;
 import com.eder.reservas.services.TableService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -20,21 +25,26 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static com.eder.reservas.infra.tenant.RestaurantMembers.member;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @WebMvcTest(TableController.class)
-@WithMockUser(roles = "ADMIN")
+@WithMockUser(authorities = {"ROLE_ADMIN", RestaurantMembers.DEFAULT_MEMBER})
 @Import(SecurityConfig.class)
 public class TableControllerTest {
     @Autowired
@@ -44,7 +54,7 @@ public class TableControllerTest {
     @MockBean
     private TableService tableService;
     @MockBean
-    private UserRepository userRepository;
+    private PrincipalCache principalCache;
     @MockBean
     private TokenService tokenService;
 
@@ -57,14 +67,97 @@ public class TableControllerTest {
                 TableStatus.AVAILABLE
         ));
 
-        when(tableService.getAllTables()).thenReturn(tables);
+        when(tableService.getTablesETag(Restaurant.DEFAULT_ID)).thenReturn("\"v-1\"");
+        when(tableService.getAllTablesJson(Restaurant.DEFAULT_ID)).thenReturn(objectMapper.writeValueAsBytes(tables));
 
         mockMvc.perform(get("/tables"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v-1\""))
                 .andExpect(jsonPath("$[0].number").value(1))
                 .andExpect(jsonPath("$[0].capacity").value(2))
                 .andExpect(jsonPath("$[0].status").value(TableStatus.AVAILABLE.name()));
     }
 
+    @Test
+    public void shouldGetTablesOfRequestedRestaurant() throws Exception {
+        UUID restaurantId = UUID.randomUUID();
+
+        when(tableService.getTablesETag(restaurantId)).thenReturn("\"v-3\"");
+        when(tableService.getAllTablesJson(restaurantId)).thenReturn("[]".getBytes());
+
+        mockMvc.perform(get("/tables").header("X-Restaurant-Id", restaurantId.toString()).with(member(restaurantId)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v-3\""));
+
+        verify(tableService, never()).getAllTablesJson(Restaurant.DEFAULT_ID);
+    }
+
+    @Test
+    public void shouldNotGetTablesAndThrow400IfRestaurantIdIsInvalid() throws Exception {
+        mockMvc.perform(get("/tables").header("X-Restaurant-Id", "not-a-uuid"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid restaurant id"));
+
+        verifyNoInteractions(tableService);
+    }
+
+    @Test
+    public void shouldReturn304IfTablesWereNotModified() throws Exception {
+        when(tableService.getTablesETag(Restaurant.DEFAULT_ID)).thenReturn("\"v-1\"");
+
+        mockMvc.perform(get("/tables").header("If-None-Match", "\"v-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"v-1\""));
+
+        verify(tableService, never()).getAllTablesJson(Restaurant.DEFAULT_ID);
+    }
+
+    @Test
+    public void shouldGetAllTablesIfETagIsStale() throws Exception {
+        when(tableService.getTablesETag(Restaurant.DEFAULT_ID)).thenReturn("\"v-2\"");
+        when(tableService.getAllTablesJson(Restaurant.DEFAULT_ID)).thenReturn("[]".getBytes());
+
+        mockMvc.perform(get("/tables").header("If-None-Match", "\"v-1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v-2\""));
+
+        verify(tableService, times(1)).getAllTablesJson(Restaurant.DEFAULT_ID);
+    }
+
+    @Test
+    public void shouldOpenTableStream() throws Exception {
+        when(tableService.streamTables(Restaurant.DEFAULT_ID)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/tables/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        verify(tableService, times(1)).streamTables(Restaurant.DEFAULT_ID);
+    }
+
+    @Test
+    public void shouldGetAvailableTablesAndReturn200() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2025, 8, 1, 19, 0);
+        LocalDateTime to = from.plusHours(2);
+
+        List<TableResponseDTO> tables = List.of(new TableResponseDTO(
+                UUID.randomUUID(),
+                3,
+                4,
+                TableStatus.AVAILABLE
+        ));
+
+        when(tableService.getAvailableTables(Restaurant.DEFAULT_ID, from, to, 4)).thenReturn(tables);
+
+        mockMvc.perform(get("/tables/availability")
+                .param("from", from.toString())
+                .param("to", to.toString())
+                .param("people", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].number").value(3))
+                .andExpect(jsonPath("$[0].capacity").value(4));
+    }
+
     @Test
     public void shouldCreateTableAndReturn201() throws Exception {
         TableRegisterDTO data = new TableRegisterDTO(
@@ -80,7 +173,7 @@ public class TableControllerTest {
                 TableStatus.AVAILABLE
         );
 
-        when(tableService.createTable(any(TableRegisterDTO.class))).thenReturn(response);
+        when(tableService.createTable(eq(Restaurant.DEFAULT_ID), any(TableRegisterDTO.class))).thenReturn(response);
 
         mockMvc.perform(post("/tables")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -91,6 +184,23 @@ public class TableControllerTest {
                 .andExpect(jsonPath("$.status").value(TableStatus.AVAILABLE.name()));
     }
 
+    @Test
+    public void shouldImportTablesAndReturn201() throws Exception {
+        List<TableRegisterDTO> tables = List.of(new TableRegisterDTO(1, 2, TableStatus.AVAILABLE), new TableRegisterDTO(2, 4, TableStatus.AVAILABLE));
+
+        when(tableService.readImport(any())).thenReturn(tables);
+        when(tableService.importTables(Restaurant.DEFAULT_ID, tables)).thenReturn(new TableImportDTO(2));
+
+        mockMvc.perform(post("/tables/import")
+                .contentType("text/csv")
+                .content("number,capacity,status\n1,2,AVAILABLE\n2,4,AVAILABLE\n"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.imported").value(2));
+        InOrder inOrder = inOrder(tableService);
+        inOrder.verify(tableService).readImport(any());
+        inOrder.verify(tableService).importTables(Restaurant.DEFAULT_ID, tables);
+    }
+
     @Test
     public void shouldNotCreateTableAndThrow409() throws Exception {
         TableRegisterDTO data = new TableRegisterDTO(
@@ -101,7 +211,7 @@ public class TableControllerTest {
 
         ApiException exception = new ApiException("Table number already used", HttpStatus.CONFLICT);
 
-        when(tableService.createTable(any(TableRegisterDTO.class))).thenThrow(exception);
+        when(tableService.createTable(eq(Restaurant.DEFAULT_ID), any(TableRegisterDTO.class))).thenThrow(exception);
 
         mockMvc.perform(post("/tables")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -127,7 +237,7 @@ public class TableControllerTest {
                 TableStatus.AVAILABLE
         );
 
-        when(tableService.patchTable(any(UUID.class), any(TablePatchDTO.class))).thenReturn(response);
+        when(tableService.patchTable(eq(Restaurant.DEFAULT_ID), any(UUID.class), any(TablePatchDTO.class))).thenReturn(response);
 
         mockMvc.perform(patch("/tables/{id}", id)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -150,7 +260,7 @@ public class TableControllerTest {
 
         ApiException exception = new ApiException("Table does not exist", HttpStatus.NOT_FOUND);
 
-        when(tableService.patchTable(any(UUID.class), any(TablePatchDTO.class))).thenThrow(exception);
+        when(tableService.patchTable(eq(Restaurant.DEFAULT_ID), any(UUID.class), any(TablePatchDTO.class))).thenThrow(exception);
 
         mockMvc.perform(patch("/tables/{id}", id)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -163,10 +273,23 @@ public class TableControllerTest {
     public void shouldDeleteTableAndReturn204() throws Exception {
         UUID id = UUID.randomUUID();
 
-        mockMvc.perform(delete("/tables/{id}", id))
+        UUID restaurantId = UUID.randomUUID();
+
+        mockMvc.perform(delete("/tables/{id}", id).header("X-Restaurant-Id", restaurantId.toString()).with(member(restaurantId)))
                 .andExpect(status().isNoContent());
 
-        verify(tableService, times(1)).deleteTable(any(UUID.class));
+        verify(tableService, times(1)).deleteTable(restaurantId, id);
+    }
+
+    @Test
+    public void shouldNotDeleteTableOfAnotherRestaurantAndThrow403() throws Exception {
+        UUID id = UUID.randomUUID();
+
+        mockMvc.perform(delete("/tables/{id}", id).header("X-Restaurant-Id", UUID.randomUUID().toString()))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("Not a member of this restaurant"));
+
+        verifyNoInteractions(tableService);
     }
 
     @Test
@@ -175,7 +298,7 @@ public class TableControllerTest {
 
         ApiException exception = new ApiException("Table does not exist", HttpStatus.NOT_FOUND);
 
-        doThrow(exception).when(tableService).deleteTable(any(UUID.class));
+        doThrow(exception).when(tableService).deleteTable(eq(Restaurant.DEFAULT_ID), any(UUID.class));
 
         mockMvc.perform(delete("/tables/{id}", id))
                 .andExpect(status().isNotFound())
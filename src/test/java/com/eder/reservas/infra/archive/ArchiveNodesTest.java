@@ -0,0 +1,54 @@
+package com.eder.reservas.infra.archive;
+
+import com.eder.reservas.infra.cluster.ClusterNotifier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ArchiveNodesTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void shouldConfirmDirectorySharedByEveryLiveNode() {
+        ArchiveNodes archiver = nodes("archiver", directory);
+        nodes("reader", directory).heartbeat();
+        when(jdbcTemplate.queryForList("select node from archive_nodes", String.class)).thenReturn(List.of("archiver", "reader"));
+
+        assertTrue(archiver.confirmShared());
+    }
+
+    @Test
+    public void shouldNotConfirmDirectoryIfLiveNodeUsesAnotherOne(@TempDir Path local) {
+        ArchiveNodes archiver = nodes("archiver", directory);
+        nodes("reader", local).heartbeat();
+        when(jdbcTemplate.queryForList("select node from archive_nodes", String.class)).thenReturn(List.of("archiver", "reader"));
+
+        assertFalse(archiver.confirmShared());
+    }
+
+    @Test
+    public void shouldRemoveMarkersOfNodesThatStoppedHeartbeating() {
+        ArchiveNodes archiver = nodes("archiver", directory);
+        nodes("stopped", directory).heartbeat();
+        when(jdbcTemplate.queryForList("select node from archive_nodes", String.class)).thenReturn(List.of("archiver"));
+
+        assertTrue(archiver.confirmShared());
+        assertFalse(Files.exists(directory.resolve(".nodes").resolve("stopped")));
+    }
+
+    private ArchiveNodes nodes(String node, Path directory) {
+        ClusterNotifier clusterNotifier = mock(ClusterNotifier.class);
+        when(clusterNotifier.getNode()).thenReturn(node);
+        return new ArchiveNodes(jdbcTemplate, clusterNotifier, directory, Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,113 @@
+package com.eder.reservas.infra.archive;
+
+import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveSegmentTest {
+    private static final YearMonth MONTH = YearMonth.of(2024, 3);
+    private static final UUID FIRST_USER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND_USER = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final UUID FIRST_RESTAURANT = UUID.fromString("00000000-0000-0000-0000-0000000000f1");
+    private static final UUID SECOND_RESTAURANT = UUID.fromString("00000000-0000-0000-0000-0000000000f2");
+    private static final UUID FIRST_TABLE = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID SECOND_TABLE = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void shouldReadBackWrittenReservationsWithoutMicros() throws IOException {
+        LocalDateTime start = MONTH.atDay(5).atTime(19, 0);
+        ArchivedReservation late = reservation(id(3), FIRST_USER, SECOND_TABLE, start.plusDays(3), 4, ReservationStatus.CANCELED);
+        ArchivedReservation early = reservation(id(1), FIRST_USER, FIRST_TABLE, start, 2, ReservationStatus.COMPLETED);
+        ArchivedReservation other = reservation(id(2), SECOND_USER, FIRST_TABLE, start.plusDays(1), 6, ReservationStatus.COMPLETED);
+
+        ArchiveSegment segment = writeAndOpen(List.of(late, other, early));
+
+        assertEquals(MONTH, segment.getMonth());
+        assertEquals(MONTH.plusMonths(1).atDay(1).atStartOfDay(), segment.getEnd());
+        assertEquals(List.of(dto(early), dto(late)), segment.findByUser(FIRST_USER, null, null, 10));
+        assertEquals(List.of(dto(other)), segment.findByUser(SECOND_USER, null, null, 10));
+        assertEquals(List.of(), segment.findByUser(UUID.randomUUID(), null, null, 10));
+        assertEquals(List.of(dto(early), dto(other)), segment.stream(FIRST_RESTAURANT).toList());
+        assertEquals(List.of(dto(late)), segment.stream(SECOND_RESTAURANT).toList());
+        assertEquals(List.of(), segment.stream(UUID.randomUUID()).toList());
+    }
+
+    @Test
+    public void shouldReadBackWrittenReservationsWithMicros() throws IOException {
+        LocalDateTime start = MONTH.atDay(31).atTime(23, 59, 59, 123_456_000);
+        ArchivedReservation first = new ArchivedReservation(id(1), FIRST_RESTAURANT, FIRST_USER, FIRST_TABLE, start.minusDays(1), start.minusDays(1).plusHours(2), 2, ReservationStatus.COMPLETED);
+        ArchivedReservation second = new ArchivedReservation(id(2), FIRST_RESTAURANT, FIRST_USER, SECOND_TABLE, start, start.plusMinutes(90).plusNanos(1_000), 3, ReservationStatus.ACTIVE);
+
+        ArchiveSegment segment = writeAndOpen(List.of(second, first));
+
+        assertEquals(List.of(dto(first), dto(second)), segment.findByUser(FIRST_USER, null, null, 10));
+        assertEquals(List.of(dto(first), dto(second)), segment.stream(FIRST_RESTAURANT).toList());
+        assertEquals(List.of(dto(second)), segment.findByUser(FIRST_USER, start.minusNanos(1_000), id(9), 10));
+        assertEquals(List.of(), segment.findByUser(FIRST_USER, start, id(2), 10));
+    }
+
+    @Test
+    public void shouldPageThroughUserReservationsAfterCursor() throws IOException {
+        LocalDateTime start = MONTH.atDay(10).atTime(20, 0);
+        ArchivedReservation first = reservation(id(1), FIRST_USER, FIRST_TABLE, start, 2, ReservationStatus.COMPLETED);
+        ArchivedReservation tied = reservation(id(2), FIRST_USER, SECOND_TABLE, start, 2, ReservationStatus.COMPLETED);
+        ArchivedReservation later = reservation(id(3), FIRST_USER, FIRST_TABLE, start.plusHours(3), 2, ReservationStatus.CANCELED);
+        ArchivedReservation unrelated = reservation(id(4), SECOND_USER, FIRST_TABLE, start.plusHours(1), 2, ReservationStatus.COMPLETED);
+
+        ArchiveSegment segment = writeAndOpen(List.of(later, unrelated, tied, first));
+
+        assertEquals(List.of(dto(first)), segment.findByUser(FIRST_USER, null, null, 1));
+        assertEquals(List.of(dto(tied), dto(later)), segment.findByUser(FIRST_USER, start, id(1), 10));
+        assertEquals(List.of(dto(later)), segment.findByUser(FIRST_USER, start, id(2), 10));
+        assertEquals(List.of(), segment.findByUser(FIRST_USER, later.start(), id(3), 10));
+    }
+
+    @Test
+    public void shouldNotWriteTableOwnedByTwoRestaurants() {
+        LocalDateTime start = MONTH.atDay(5).atTime(19, 0);
+        ArchivedReservation first = reservation(id(1), FIRST_USER, FIRST_TABLE, start, 2, ReservationStatus.COMPLETED);
+        ArchivedReservation moved = new ArchivedReservation(id(2), SECOND_RESTAURANT, FIRST_USER, FIRST_TABLE, start.plusDays(1), start.plusDays(1).plusHours(2), 2, ReservationStatus.COMPLETED);
+
+        assertThrows(IllegalStateException.class, () -> writeAndOpen(List.of(first, moved)));
+    }
+
+    @Test
+    public void shouldRejectFilesThatAreNotSegments() throws IOException {
+        Path path = Files.write(directory.resolve("broken.seg"), new byte[]{1, 2, 3, 4, 5});
+
+        assertThrows(IOException.class, () -> ArchiveSegment.open(path));
+    }
+
+    private ArchiveSegment writeAndOpen(List<ArchivedReservation> reservations) throws IOException {
+        Path path = directory.resolve("reservations-" + MONTH + ".seg");
+        ArchiveSegment.write(path, MONTH, reservations);
+        return ArchiveSegment.open(path);
+    }
+
+    private ArchivedReservation reservation(UUID id, UUID userId, UUID tableId, LocalDateTime start, int people, ReservationStatus status) {
+        UUID restaurantId = tableId.equals(SECOND_TABLE) ? SECOND_RESTAURANT : FIRST_RESTAURANT;
+        return new ArchivedReservation(id, restaurantId, userId, tableId, start, start.plusHours(2), people, status);
+    }
+
+    private ReservationResponseDTO dto(ArchivedReservation reservation) {
+        return new ReservationResponseDTO(reservation.id(), reservation.userId(), reservation.tableId(), reservation.start(), reservation.people(), reservation.status());
+    }
+
+    private UUID id(int value) {
+        return new UUID(0, value);
+    }
+}
@@ -0,0 +1,52 @@
+package com.eder.reservas.infra.archive;
+
+import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReservationArchiveTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void shouldSeeSegmentsWrittenByAnotherNode() throws IOException {
+        ReservationArchive writer = archive();
+        ReservationArchive reader = archive();
+        YearMonth month = YearMonth.of(2024, 3);
+        LocalDateTime start = month.atDay(5).atTime(19, 0);
+        ArchivedReservation reservation = new ArchivedReservation(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), start, start.plusHours(2), 2, ReservationStatus.COMPLETED);
+
+        assertEquals(Optional.empty(), reader.getArchivedUntil());
+
+        writer.write(month, List.of(reservation));
+
+        assertEquals(Optional.empty(), reader.getArchivedUntil());
+
+        reader.rescan();
+
+        assertEquals(Optional.of(month.plusMonths(1).atDay(1).atStartOfDay()), reader.getArchivedUntil());
+        assertEquals(List.of(new ReservationResponseDTO(reservation.id(), reservation.userId(), reservation.tableId(), start, 2, ReservationStatus.COMPLETED)),
+                reader.findPageByUser(reservation.userId(), null, null, 10));
+        assertEquals(1, reader.streamAll(reservation.restaurantId()).count());
+        assertEquals(0, reader.streamAll(UUID.randomUUID()).count());
+    }
+
+    private ReservationArchive archive() throws IOException {
+        ReservationArchive archive = new ReservationArchive();
+        ReflectionTestUtils.setField(archive, "directory", directory);
+        archive.open();
+        return archive;
+    }
+}
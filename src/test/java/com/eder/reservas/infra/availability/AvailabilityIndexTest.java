@@ -0,0 +1,79 @@
+package com.eder.reservas.infra.availability;
+
+import com.eder.reservas.domain.table.Table;
+import com.eder.reservas.domain.table.TableStatus;
+import com.eder.reservas.repositories.ReservationRepository;
+import com.eder.reservas.repositories.TableRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AvailabilityIndexTest {
+    @Test
+    public void shouldAcceptReservationDurationUpToOneDay() {
+        assertDoesNotThrow(() -> index(Duration.ofHours(2)).validate());
+        assertDoesNotThrow(() -> index(Duration.ofDays(1)).validate());
+    }
+
+    @Test
+    public void shouldRejectReservationDurationLongerThanOneDay() {
+        assertThrows(IllegalStateException.class, () -> index(Duration.ofDays(1).plusSeconds(1)).validate());
+    }
+
+    @Test
+    public void shouldRejectEmptyReservationDuration() {
+        assertThrows(IllegalStateException.class, () -> index(Duration.ZERO).validate());
+        assertThrows(IllegalStateException.class, () -> index(Duration.ofHours(-2)).validate());
+    }
+
+    @Test
+    public void shouldRebuildFromActiveSlotsAndKeepServingTheOldStateUntilLoaded() {
+        UUID restaurantId = UUID.randomUUID();
+        Table table = new Table(UUID.randomUUID(), restaurantId, 1, 4, TableStatus.AVAILABLE);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        TableRepository tableRepository = mock(TableRepository.class);
+        ReservationRepository reservationRepository = mock(ReservationRepository.class);
+        AvailabilityIndex index = index(Duration.ofHours(2));
+        ReflectionTestUtils.setField(index, "tableRepository", tableRepository);
+        ReflectionTestUtils.setField(index, "reservationRepository", reservationRepository);
+        ReservationRepository.SlotRow slot = slot(table.getId(), start, start.plusHours(2));
+        index.putTable(table);
+
+        when(tableRepository.findAll()).thenAnswer(invocation -> {
+            assertEquals(1, index.findBestFit(restaurantId, start, start.plusHours(2), 2).size());
+            return List.of(table);
+        });
+        when(reservationRepository.findActiveSlotsEndingAfter(any(), any())).thenReturn(List.of(slot));
+
+        index.rebuild();
+
+        assertFalse(index.isFree(table.getId(), start, start.plusHours(2)));
+        assertTrue(index.findBestFit(restaurantId, start, start.plusHours(2), 2).isEmpty());
+    }
+
+    private ReservationRepository.SlotRow slot(UUID tableId, LocalDateTime start, LocalDateTime end) {
+        ReservationRepository.SlotRow row = mock(ReservationRepository.SlotRow.class);
+        UUID id = UUID.randomUUID();
+
+        when(row.getTableId()).thenReturn(tableId);
+        when(row.getId()).thenReturn(id);
+        when(row.getStart()).thenReturn(start);
+        when(row.getEnd()).thenReturn(end);
+        return row;
+    }
+
+    private AvailabilityIndex index(Duration duration) {
+        AvailabilityIndex index = new AvailabilityIndex();
+        ReflectionTestUtils.setField(index, "reservationDuration", duration);
+        return index;
+    }
+}
@@ -0,0 +1,60 @@
+package com.eder.reservas.infra.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTest {
+    @Test
+    public void shouldReturnCachedValueUntilInvalidated() {
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+
+        cache.put("a", 1);
+
+        assertEquals(Optional.of(1), cache.get("a"));
+
+        cache.invalidate("a");
+
+        assertEquals(Optional.empty(), cache.get("a"));
+    }
+
+    @Test
+    public void shouldNotReturnExpiredValues() {
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, Duration.ofNanos(1));
+
+        cache.put("a", 1);
+
+        assertEquals(Optional.empty(), cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldStayWithinMaxSizeUnderConcurrentWrites() throws InterruptedException {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100, Duration.ofMinutes(1));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+
+        for(int thread = 0; thread < 4; thread++) {
+            int offset = thread * 10_000;
+            executor.execute(() -> {
+                for(int i = 0; i < 10_000; i++) cache.put(offset + i, i);
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertTrue(cache.size() <= 100, () -> "size " + cache.size());
+
+        cache.put(-1, -1);
+
+        assertEquals(Optional.of(-1), cache.get(-1));
+    }
+}
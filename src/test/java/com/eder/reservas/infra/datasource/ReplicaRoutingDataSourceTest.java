@@ -0,0 +1,146 @@
+package com.eder.reservas.infra.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicaRoutingDataSourceTest {
+    @Mock
+    private HikariDataSource primary;
+    @Mock
+    private HikariDataSource replica;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replicaConnection;
+    @Mock
+    private Statement statement;
+    @Mock
+    private ResultSet result;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    public void setUp() {
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void shouldReadFromReplicaInReadOnlyTransaction() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        stubLag(0.2);
+        routingDataSource.checkLag();
+        DataSource dataSource = lazyDataSource();
+
+        assertSame(replicaConnection, targetConnection(dataSource, true));
+        verify(replica, times(1)).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    public void shouldWriteToPrimaryInReadWriteTransaction() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        stubLag(0.2);
+        routingDataSource.checkLag();
+        DataSource dataSource = lazyDataSource();
+
+        assertSame(primaryConnection, targetConnection(dataSource, false));
+        verify(primary, times(1)).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    public void shouldReadFromPrimaryWithoutHealthyReplicas() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    public void shouldFallBackToPrimaryIfReplicaIsUnavailable() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection).thenThrow(new SQLException("Connection refused"));
+        stubLag(0.2);
+        routingDataSource.checkLag();
+
+        assertEquals(1, routingDataSource.getHealthyCount());
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(0, routingDataSource.getHealthyCount());
+    }
+
+    @Test
+    public void shouldNotReadFromReplicaThatIsNotStreaming() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        stubLag(0);
+        when(result.wasNull()).thenReturn(true);
+
+        routingDataSource.checkLag();
+
+        assertEquals(0, routingDataSource.getHealthyCount());
+    }
+
+    @Test
+    public void shouldNotReadFromReplicaUntilItCatchesUp() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        stubLag(6);
+
+        routingDataSource.checkLag();
+        assertEquals(0, routingDataSource.getHealthyCount());
+
+        when(result.getDouble(1)).thenReturn(5.0);
+        routingDataSource.checkLag();
+        assertEquals(1, routingDataSource.getHealthyCount());
+    }
+
+    @Test
+    public void shouldRequireStreamingReplicationInLagQuery() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        stubLag(0);
+
+        routingDataSource.checkLag();
+
+        verify(statement).executeQuery(argThat(sql -> sql.contains("pg_stat_wal_receiver") && sql.contains("status = 'streaming'")));
+    }
+
+    private DataSource lazyDataSource() throws SQLException {
+        DataSource dataSource = new DataSourceConfig().dataSource(primary, routingDataSource);
+        dataSource.getConnection().close();
+        clearInvocations(primary, replica);
+        return dataSource;
+    }
+
+    private Connection targetConnection(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> ((ConnectionProxy) DataSourceUtils.getConnection(dataSource)).getTargetConnection());
+    }
+
+    private void stubLag(double seconds) throws SQLException {
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(result);
+        when(result.next()).thenReturn(true);
+        when(result.getDouble(1)).thenReturn(seconds);
+    }
+}
@@ -0,0 +1,91 @@
+package com.eder.reservas.infra.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveLimiterTest {
+    private static final long RTT = 1_000_000;
+
+    @Test
+    public void shouldRaiseLimitWhileLatencyStaysAtBaseline() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 10, 100);
+
+        for(int i = 0; i < 50; i++) limiter.update(RTT, limiter.getLimit());
+
+        assertTrue(limiter.getLimit() > 20);
+    }
+
+    @Test
+    public void shouldNotRaiseLimitWhileMostlyIdle() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 10, 100);
+
+        for(int i = 0; i < 50; i++) limiter.update(RTT, 1);
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldLowerLimitToMinimumWhenRequestsQueue() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 10, 100);
+
+        limiter.update(RTT, 20);
+        for(int i = 0; i < 50; i++) limiter.update(10 * RTT, 20);
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldForgetFastOutlierOnceItsWindowRollsOver() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 10, 100);
+
+        limiter.update(RTT / 100, 20);
+        for(int i = 0; i < 100; i++) limiter.update(RTT, limiter.getLimit());
+        assertEquals(10, limiter.getLimit());
+
+        for(int i = 0; i < 2_000; i++) limiter.update(RTT, limiter.getLimit());
+        assertTrue(limiter.getLimit() > 20);
+    }
+
+    @Test
+    public void shouldIgnoreEmptySamples() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 10, 100);
+
+        limiter.update(RTT, 20);
+        for(int i = 0; i < 50; i++) limiter.update(0, 20);
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldRejectAcquireAtLimitUntilReleased() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release();
+
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void shouldShrinkLimitOnDropsDownToMinimum() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(100, 20, 1000);
+
+        assertTrue(limiter.tryAcquire());
+        limiter.drop();
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(90, limiter.getLimit());
+
+        for(int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.drop();
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+}
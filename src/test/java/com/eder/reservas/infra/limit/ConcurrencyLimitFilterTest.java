@@ -0,0 +1,122 @@
+package com.eder.reservas.infra.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class ConcurrencyLimitFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<AdaptiveLimiter> reads = new ArrayList<>();
+    private final List<AdaptiveLimiter> writes = new ArrayList<>();
+    private final List<String> routes = List.of("tables", "reservations", "reports");
+
+    @Test
+    public void shouldRejectWithRetryAfterWhenRouteIsAtLimit() throws ServletException, IOException {
+        ConcurrencyLimitFilter filter = filter(() -> new AdaptiveLimiter(1, 1, 1));
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/tables"), new MockHttpServletResponse(), (request, response) ->
+                filter.doFilter(new MockHttpServletRequest("GET", "/tables/1"), rejected, new MockFilterChain()));
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("2", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getContentAsString().contains("Server is overloaded, try again later"));
+        assertEquals(1, meterRegistry.get("limits.concurrency.rejected").tags("type", "reads", "route", "tables").counter().count());
+    }
+
+    @Test
+    public void shouldLimitRouteClassesSeparately() throws ServletException, IOException {
+        ConcurrencyLimitFilter filter = filter(() -> new AdaptiveLimiter(1, 1, 1));
+        List<Integer> statuses = new ArrayList<>();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/tables"), new MockHttpServletResponse(), (request, response) -> {
+            statuses.add(status(filter, new MockHttpServletRequest("GET", "/reservations")));
+            statuses.add(status(filter, new MockHttpServletRequest("POST", "/tables")));
+            statuses.add(status(filter, new MockHttpServletRequest("GET", "/unknown")));
+        });
+
+        assertEquals(List.of(200, 200, 200), statuses);
+    }
+
+    @Test
+    public void shouldSampleLatencyOfAllButClientErrors() throws ServletException, IOException {
+        ConcurrencyLimitFilter filter = filter(() -> {
+            AdaptiveLimiter limiter = mock(AdaptiveLimiter.class);
+            when(limiter.tryAcquire()).thenReturn(true);
+            return limiter;
+        });
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/tables"), new MockHttpServletResponse(), respond(200));
+        filter.doFilter(new MockHttpServletRequest("GET", "/reservations"), new MockHttpServletResponse(), respond(304));
+        filter.doFilter(new MockHttpServletRequest("POST", "/reservations"), new MockHttpServletResponse(), respond(401));
+        filter.doFilter(new MockHttpServletRequest("GET", "/reports"), new MockHttpServletResponse(), respond(404));
+
+        verify(reads.get(index("tables")), times(1)).release(anyLong());
+        verify(reads.get(index("reservations")), times(1)).release(anyLong());
+        verify(writes.get(index("reservations")), times(1)).release();
+        verify(writes.get(index("reservations")), never()).release(anyLong());
+        verify(reads.get(index("reports")), times(1)).release();
+        verify(reads.get(index("reports")), never()).release(anyLong());
+    }
+
+    @Test
+    public void shouldDropServerErrorsAndExceptions() throws ServletException, IOException {
+        ConcurrencyLimitFilter filter = filter(() -> {
+            AdaptiveLimiter limiter = mock(AdaptiveLimiter.class);
+            when(limiter.tryAcquire()).thenReturn(true);
+            return limiter;
+        });
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/tables"), new MockHttpServletResponse(), respond(500));
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(new MockHttpServletRequest("POST", "/reservations"), new MockHttpServletResponse(), (request, response) -> {
+            throw new IllegalStateException("Connection is not available, request timed out");
+        }));
+
+        verify(reads.get(index("tables")), times(1)).drop();
+        verify(reads.get(index("tables")), never()).release(anyLong());
+        verify(writes.get(index("reservations")), times(1)).drop();
+        verify(writes.get(index("reservations")), never()).release();
+    }
+
+    private ConcurrencyLimitFilter filter(Supplier<AdaptiveLimiter> limiters) {
+        return new ConcurrencyLimitFilter(new ObjectMapper().findAndRegisterModules(), meterRegistry, true, Duration.ofSeconds(2),
+                routes,
+                () -> add(reads, limiters.get()),
+                () -> add(writes, limiters.get()));
+    }
+
+    private AdaptiveLimiter add(List<AdaptiveLimiter> created, AdaptiveLimiter limiter) {
+        created.add(limiter);
+        return limiter;
+    }
+
+    private int index(String route) {
+        return routes.indexOf(route);
+    }
+
+    private FilterChain respond(int status) {
+        return (request, response) -> ((MockHttpServletResponse) response).setStatus(status);
+    }
+
+    private int status(ConcurrencyLimitFilter filter, MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,82 @@
+package com.eder.reservas.infra.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    @Test
+    public void shouldAllowBurstUpToCapacity() {
+        RateLimiter limiter = limiter(5, 1024);
+
+        assertEquals(5, acquired(limiter, "client", 10));
+    }
+
+    @Test
+    public void shouldRefillOneRequestPerInterval() {
+        RateLimiter limiter = limiter(5, 1024);
+        acquired(limiter, "client", 5);
+
+        clock.addAndGet(999);
+        assertFalse(limiter.tryAcquire("client"));
+
+        clock.addAndGet(1);
+        assertTrue(limiter.tryAcquire("client"));
+        assertFalse(limiter.tryAcquire("client"));
+        assertEquals(1_000, limiter.getRetryAfterMillis());
+    }
+
+    @Test
+    public void shouldRefillWholeBurstAfterPeriod() {
+        RateLimiter limiter = limiter(5, 1024);
+        acquired(limiter, "client", 5);
+
+        clock.addAndGet(60_000);
+
+        assertEquals(5, acquired(limiter, "client", 10));
+    }
+
+    @Test
+    public void shouldLimitKeysIndependently() {
+        RateLimiter limiter = limiter(5, 1024);
+
+        assertEquals(5, acquired(limiter, "first", 10));
+        assertEquals(5, acquired(limiter, "second", 10));
+    }
+
+    @Test
+    public void shouldNotResetLimitedKeyWhenOtherKeysCollide() {
+        RateLimiter limiter = limiter(5, 4);
+        acquired(limiter, "victim", 5);
+
+        IntStream.range(0, 1_000).forEach(i -> limiter.tryAcquire("attacker-" + i));
+
+        assertFalse(limiter.tryAcquire("victim"));
+    }
+
+    @Test
+    public void shouldShareStricterBucketWhenSetIsFull() {
+        RateLimiter limiter = limiter(5, 4);
+        IntStream.range(0, 4).forEach(i -> acquired(limiter, "client-" + i, 5));
+
+        assertFalse(limiter.tryAcquire("newcomer"));
+
+        clock.addAndGet(5_000);
+
+        assertEquals(5, acquired(limiter, "newcomer", 10));
+    }
+
+    private RateLimiter limiter(int capacity, int slots) {
+        return new RateLimiter(capacity, Duration.ofSeconds(capacity), slots, clock::get);
+    }
+
+    private int acquired(RateLimiter limiter, String key, int attempts) {
+        return (int) IntStream.range(0, attempts).filter(i -> limiter.tryAcquire(key)).count();
+    }
+}
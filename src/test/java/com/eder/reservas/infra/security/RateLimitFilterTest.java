@@ -0,0 +1,115 @@
+package com.eder.reservas.infra.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RateLimitFilterTest {
+    private final TokenService tokenService = mock(TokenService.class);
+    private final RateLimitFilter filter = new RateLimitFilter(tokenService, new ObjectMapper().findAndRegisterModules(), true, 1024,
+            2, Duration.ofMinutes(1), 2, Duration.ofMinutes(5), 3, Duration.ofMinutes(1));
+
+    @Test
+    public void shouldRejectLoginsOverLimitWithRetryAfter() throws ServletException, IOException {
+        assertEquals(200, post("/users/login", "10.0.0.1", null).getStatus());
+        assertEquals(200, post("/users/login", "10.0.0.1", null).getStatus());
+
+        MockHttpServletResponse rejected = post("/users/login", "10.0.0.1", null);
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("30", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getContentAsString().contains("Too many requests, try again later"));
+        assertEquals(200, post("/users/login", "10.0.0.2", null).getStatus());
+    }
+
+    @Test
+    public void shouldLimitLoginsPerAccountAcrossAddresses() throws ServletException, IOException {
+        assertEquals(200, login("10.0.0.1", "user@email.com").getStatus());
+        assertEquals(200, login("10.0.0.2", " User@Email.com ").getStatus());
+
+        MockHttpServletResponse rejected = login("10.0.0.3", "user@email.com");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("150", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, login("10.0.0.3", "other@email.com").getStatus());
+    }
+
+    @Test
+    public void shouldPassLoginBodyDownTheChain() throws ServletException, IOException {
+        MockFilterChain chain = new MockFilterChain();
+        String body = "{\"email\":\"user@email.com\",\"password\":\"123\"}";
+
+        filter.doFilter(loginRequest("10.0.0.1", body), new MockHttpServletResponse(), chain);
+
+        assertEquals(body, new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldRejectOversizedLoginBody() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(loginRequest("10.0.0.1", "x".repeat(5000)), response, new MockFilterChain());
+
+        assertEquals(413, response.getStatus());
+    }
+
+    @Test
+    public void shouldLimitBookingsPerAuthenticatedUser() throws ServletException, IOException {
+        when(tokenService.validateToken("token")).thenReturn(new TokenClaims("user@email.com", Set.of()));
+
+        for(int i = 0; i < 3; i++) assertEquals(200, post("/reservations", "10.0.0." + i, "Bearer token").getStatus());
+
+        MockHttpServletResponse rejected = post("/reservations/batch", "10.0.0.9", "Bearer token");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("20", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, post("/reservations", "10.0.0.9", null).getStatus());
+    }
+
+    @Test
+    public void shouldNotLimitReads() throws ServletException, IOException {
+        for(int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/reservations");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    private MockHttpServletResponse login(String remoteAddress, String email) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(remoteAddress, "{\"email\":\"" + email + "\",\"password\":\"123\"}"), response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletRequest loginRequest(String remoteAddress, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/users/login");
+        request.setRemoteAddr(remoteAddress);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse post(String path, String remoteAddress, String authorization) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(remoteAddress);
+        if(authorization != null) request.addHeader("Authorization", authorization);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
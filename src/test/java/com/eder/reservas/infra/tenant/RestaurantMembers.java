@@ -0,0 +1,40 @@
+package com.eder.reservas.infra.tenant;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.test.context.TestSecurityContextHolder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+
+public final class RestaurantMembers {
+    public static final String DEFAULT_MEMBER = CurrentRestaurantResolver.MEMBER_AUTHORITY_PREFIX + "00000000-0000-0000-0000-000000000000";
+
+    private RestaurantMembers() {
+    }
+
+    public static RequestPostProcessor member(UserDetails user, UUID... restaurantIds) {
+        return authentication(new UsernamePasswordAuthenticationToken(user, null, withMemberships(user.getAuthorities(), restaurantIds)));
+    }
+
+    public static RequestPostProcessor member(UUID... restaurantIds) {
+        return request -> {
+            Authentication current = TestSecurityContextHolder.getContext().getAuthentication();
+            Authentication member = new UsernamePasswordAuthenticationToken(current.getPrincipal(), null, withMemberships(current.getAuthorities(), restaurantIds));
+            return authentication(member).postProcessRequest(request);
+        };
+    }
+
+    private static List<GrantedAuthority> withMemberships(Collection<? extends GrantedAuthority> authorities, UUID... restaurantIds) {
+        List<GrantedAuthority> granted = new ArrayList<>(authorities);
+        for(UUID restaurantId : restaurantIds) granted.add(CurrentRestaurantResolver.memberAuthority(restaurantId));
+        return granted;
+    }
+}
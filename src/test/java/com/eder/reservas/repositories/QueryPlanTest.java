@@ -0,0 +1,365 @@
+package com.eder.reservas.repositories;
+
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Testcontainers(disabledWithoutDocker = true)
+public class QueryPlanTest {
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final List<Statement> STATEMENTS = new ArrayList<>();
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("reservations_\\d{4}_\\d{2}");
+    private static final String SEED = "query-plan";
+    private static final int RESTAURANTS = 100;
+    private static final int TABLES = 20;
+    private static final int USERS = 2000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private OccupancyRepository occupancyRepository;
+    @Autowired
+    private TableRepository tableRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    private UUID restaurantId;
+    private UUID userId;
+    private UUID tableId;
+    private LocalDateTime now;
+
+    @BeforeAll
+    public void seed() {
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+        jdbcTemplate.update("insert into restaurants (id, name) select uuid_generate_v4(), ? || '-' || i from generate_series(1, ?) i", SEED, RESTAURANTS);
+        jdbcTemplate.update("""
+                insert into users (id, name, email, password, role)
+                select uuid_generate_v4(), 'User ' || i, ? || '-' || i || '@email.com', 'password', 'USER'
+                from generate_series(1, ?) i
+                """, SEED, USERS);
+        jdbcTemplate.update("""
+                insert into restaurant_tables (id, restaurant_id, number, capacity, status)
+                select uuid_generate_v4(), r.id, i, 2 + i % 5, 'AVAILABLE'
+                from restaurants r, generate_series(1, ?) i
+                where r.name like ? || '-%'
+                """, TABLES, SEED);
+        jdbcTemplate.update("""
+                insert into reservations (restaurant_id, user_id, table_id, reservation_date_time, reservation_end, number_of_people, status)
+                select t.restaurant_id,
+                       u.ids[1 + (row_number() over ()) % array_length(u.ids, 1)],
+                       t.id,
+                       s.start,
+                       s.start + interval '2 hours',
+                       2,
+                       case when s.start + interval '2 hours' > ? then 'ACTIVE'
+                            when extract(day from s.start) = 1 then 'CANCELED'
+                            else 'COMPLETED' end
+                from (select array_agg(id) as ids from users where email like ? || '-%') u,
+                     restaurants r
+                     join restaurant_tables t on t.restaurant_id = r.id,
+                     generate_series(cast(? as timestamp) - interval '365 days', cast(? as timestamp) + interval '30 days', interval '10 days') as s(start)
+                where r.name like ? || '-%'
+                """, now, SEED, now, now, SEED);
+        jdbcTemplate.update("""
+                insert into occupancy_hourly (table_id, hour_start, restaurant_id, reservations, people, occupied_seconds)
+                select r.table_id, r.reservation_date_time + h * interval '1 hour', r.restaurant_id, 1 - h, (1 - h) * r.number_of_people, 3600
+                from reservations r
+                join restaurants s on s.id = r.restaurant_id,
+                     generate_series(0, 1) as h
+                where s.name like ? || '-%' and r.status <> 'CANCELED'
+                """, SEED);
+        jdbcTemplate.update("""
+                insert into waitlist_entries (id, restaurant_id, table_id, user_id, reservation_date_time, number_of_people)
+                select uuid_generate_v4(), t.restaurant_id, t.id, u.id, cast(? as timestamp) + d * interval '1 day', 2
+                from restaurants r
+                     join restaurant_tables t on t.restaurant_id = r.id,
+                     (select id from users where email like ? || '-%' limit 3) u,
+                     generate_series(1, 10) as d
+                where r.name like ? || '-%'
+                """, now, SEED, SEED);
+        jdbcTemplate.execute("analyze users, restaurants, restaurant_tables, reservations, occupancy_hourly, waitlist_entries");
+
+        restaurantId = jdbcTemplate.queryForObject("select id from restaurants where name = ?", UUID.class, SEED + "-1");
+        userId = jdbcTemplate.queryForObject("select id from users where email = ?", UUID.class, SEED + "-1@email.com");
+        tableId = jdbcTemplate.queryForObject("select id from restaurant_tables where restaurant_id = ? and number = 1", UUID.class, restaurantId);
+    }
+
+    @Test
+    public void shouldUseIndexToPageUserReservations() {
+        assertUsesIndex("reservations_user_date_time_id_idx", capture(() -> reservationRepository.findPageByUser(userId, Limit.of(21))));
+    }
+
+    @Test
+    public void shouldUseIndexToPageUserReservationsAfterCursor() {
+        assertUsesIndex("reservations_user_date_time_id_idx", capture(() -> reservationRepository.findPageByUserAfter(userId, now.minusDays(30), UUID.randomUUID(), Limit.of(21))));
+    }
+
+    @Test
+    public void shouldUseIndexToFindOverlappingActiveReservations() {
+        assertUsesAnyIndex(activeReservationIndexes("reservations_table_date_time_idx"), capture(() -> reservationRepository.existsOverlapping(tableId, now.plusDays(3), now.plusDays(3).plusHours(2))));
+    }
+
+    @Test
+    public void shouldPruneOldPartitionsWhenLoadingActiveReservations() {
+        jdbcTemplate.queryForObject("select create_reservations_partition(date '2020-01-01')", Boolean.class);
+
+        Statement statement = capture(() -> reservationRepository.findActiveSlotsEndingAfter(now, now.minusDays(1)));
+        List<String> plan = explain(statement);
+
+        assertTrue(plan.stream().noneMatch(line -> line.contains("reservations_2020_01")), () -> String.join("\n", plan));
+    }
+
+    @Test
+    public void shouldUseIndexToLoadActiveReservations() {
+        LocalDateTime later = now.plusDays(31);
+
+        assertUsesAnyIndex(activeReservationIndexes("reservations_active_end_idx"), capture(() -> reservationRepository.findActiveSlotsEndingAfter(later, later.minusDays(1))));
+    }
+
+    @Test
+    public void shouldUseIndexToSelectEndedActiveReservationsForCompletion() {
+        assertUsesAnyIndex(activeReservationIndexes("reservations_active_end_idx"), capture(() -> reservationRepository.completeEndedBefore(now, 500)));
+    }
+
+    @Test
+    public void shouldPruneFuturePartitionsWhenCompletingReservations() {
+        String future = "reservations_" + now.plusMonths(6).format(DateTimeFormatter.ofPattern("yyyy_MM"));
+
+        List<String> plan = explain(capture(() -> reservationRepository.completeEndedBefore(now, 500)));
+
+        assertTrue(plan.stream().noneMatch(line -> line.contains(future)), () -> String.join("\n", plan));
+    }
+
+    @Test
+    public void shouldStreamExportWithoutJoiningOrSorting() {
+        Statement statement = capture(() -> {
+            try(Stream<ReservationResponseDTO> reservations = reservationRepository.streamAllForExport(restaurantId)) {
+                reservations.findFirst();
+            }
+        });
+        List<String> plan = explain(statement);
+
+        assertTrue(plan.stream().noneMatch(line -> line.contains("Join") || line.contains("Nested Loop") || line.contains("Sort")), () -> String.join("\n", plan));
+    }
+
+    @Test
+    public void shouldReadIdempotentReservationFromOnePartitionByPrimaryKey() {
+        Map<String, Object> reservation = jdbcTemplate.queryForMap(
+                "select id, reservation_date_time from reservations where table_id = ? and reservation_date_time > ? limit 1", tableId, now);
+        UUID id = (UUID) reservation.get("id");
+        LocalDateTime dateTime = ((Timestamp) reservation.get("reservation_date_time")).toLocalDateTime();
+        String partition = partitionOf(dateTime);
+
+        Statement statement = capture(() -> reservationRepository.findResponse(id, dateTime));
+
+        assertUsesIndex("reservations_pkey", statement);
+        assertOnlyPartition(partition, explain(statement));
+    }
+
+    @Test
+    public void shouldLoadAndCancelReservationInOnePartitionByPrimaryKey() {
+        Map<String, Object> reservation = jdbcTemplate.queryForMap(
+                "select id, reservation_date_time from reservations where table_id = ? and reservation_date_time > ? and status = 'ACTIVE' limit 1", tableId, now);
+        UUID id = (UUID) reservation.get("id");
+        LocalDateTime dateTime = ((Timestamp) reservation.get("reservation_date_time")).toLocalDateTime();
+        String partition = partitionOf(dateTime);
+
+        Statement lookup = capture(() -> reservationRepository.findByIdAndReservationDateTime(id, dateTime));
+        Statement cancel = capture(() -> reservationRepository.cancel(id, dateTime));
+
+        assertUsesIndex("reservations_pkey", lookup);
+        assertOnlyPartition(partition, explain(lookup));
+        assertOnlyPartition(partition, explain(cancel));
+    }
+
+    @Test
+    public void shouldLockOnlyTheArchivedMonthsPartition() {
+        LocalDateTime from = now.minusMonths(6).withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+        jdbcTemplate.queryForObject("select create_reservations_partition(cast(? as date))", Boolean.class, from.toLocalDate());
+
+        List<String> plan = explain(capture(() -> reservationRepository.lockAllStartingBetween(from, from.plusMonths(1))));
+
+        assertOnlyPartition(partitionOf(from), plan);
+    }
+
+    @Test
+    public void shouldUseIndexToFindWaitlistCandidates() {
+        assertUsesIndex("waitlist_entries_table_id_reservation_date_time_user_id_key",
+                capture(() -> waitlistEntryRepository.findCandidates(tableId, now.plusDays(2), now.plusDays(4))));
+    }
+
+    @Test
+    public void shouldUseIndexToReadOccupancyRollups() {
+        assertUsesIndex("occupancy_hourly_restaurant_hour_start_idx", capture(() -> occupancyRepository.findReport(restaurantId, "day", now.minusDays(7), now)));
+    }
+
+    @Test
+    public void shouldUseIndexToRebuildRestaurantRollups() {
+        occupancyRepository.deleteBetween(restaurantId, now.minusDays(7), now);
+
+        assertUsesIndex("reservations_restaurant_date_time_idx", capture(() -> occupancyRepository.rebuildBetween(restaurantId, now.minusDays(7), now)));
+    }
+
+    @Test
+    public void shouldUseIndexToFindTablesByNumber() {
+        assertUsesIndex("restaurant_tables_restaurant_id_number_key", capture(() -> tableRepository.findNumbersIn(restaurantId, List.of(1, 2, 3))));
+    }
+
+    @Test
+    public void shouldUseIndexToFindUserByEmail() {
+        assertUsesIndex("users_email_key", capture(() -> userRepository.findByEmail(SEED + "-1@email.com")));
+    }
+
+    private Statement capture(Runnable query) {
+        STATEMENTS.clear();
+        query.run();
+        List<Statement> captured = List.copyOf(STATEMENTS);
+        STATEMENTS.clear();
+
+        assertFalse(captured.isEmpty());
+        return captured.get(0);
+    }
+
+    private void assertUsesIndex(String index, Statement statement) {
+        assertUsesAnyIndex(Set.of(index), statement);
+    }
+
+    private void assertUsesAnyIndex(Set<String> indexes, Statement statement) {
+        Set<String> names = withPartitions(indexes);
+        Set<String> tables = withPartitions(new HashSet<>(indexes.stream()
+                .map(index -> jdbcTemplate.queryForObject("select cast(indrelid as regclass)::text from pg_index where indexrelid = to_regclass(?)", String.class, index))
+                .toList()));
+        List<String> plan = explain(statement);
+
+        assertTrue(plan.stream().noneMatch(line -> tables.stream().anyMatch(table -> line.contains("Seq Scan on " + table + " ")) && !line.contains("(cost=0.00..0.00 ")), () -> String.join("\n", plan));
+        assertTrue(plan.stream().anyMatch(line -> names.stream().anyMatch(index -> line.contains("using " + index + " ") || line.contains("Index Scan on " + index + " "))), () -> String.join("\n", plan));
+    }
+
+    private void assertOnlyPartition(String partition, List<String> plan) {
+        Set<String> partitions = new HashSet<>();
+        plan.forEach(line -> MONTHLY_PARTITION.matcher(line).results().forEach(match -> partitions.add(match.group())));
+
+        assertEquals(Set.of(partition), partitions, () -> String.join("\n", plan));
+    }
+
+    private String partitionOf(LocalDateTime dateTime) {
+        return "reservations_" + dateTime.format(DateTimeFormatter.ofPattern("yyyy_MM"));
+    }
+
+    private Set<String> activeReservationIndexes(String index) {
+        Set<String> indexes = new HashSet<>(jdbcTemplate.queryForList(
+                "select conname from pg_constraint where conname like 'reservations%no_overlap'", String.class));
+        indexes.add(index);
+        return indexes;
+    }
+
+    private Set<String> withPartitions(Set<String> relations) {
+        Set<String> names = new HashSet<>(relations);
+        for(String relation : relations) {
+            names.addAll(jdbcTemplate.queryForList("""
+                    select c.relname
+                    from pg_inherits i
+                    join pg_class c on c.oid = i.inhrelid
+                    where i.inhparent = to_regclass(?)
+                    """, String.class, relation));
+        }
+        return names;
+    }
+
+    private List<String> explain(Statement statement) {
+        return jdbcTemplate.queryForList("EXPLAIN " + statement.sql(), String.class, statement.parameters().values().toArray());
+    }
+
+    private record Statement(String sql, TreeMap<Integer, Object> parameters) {
+    }
+
+    @TestConfiguration
+    static class StatementCapture implements BeanPostProcessor {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if(!(bean instanceof DataSource dataSource)) return bean;
+
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                Object result = invoke(dataSource, method, args);
+                return result instanceof Connection connection ? capturing(connection) : result;
+            });
+        }
+
+        private static Connection capturing(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(StatementCapture.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if(result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                    return capturing(statement, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private static PreparedStatement capturing(PreparedStatement statement, String sql) {
+            TreeMap<Integer, Object> parameters = new TreeMap<>();
+
+            return (PreparedStatement) Proxy.newProxyInstance(StatementCapture.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                String name = method.getName();
+                if(name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    parameters.put(index, name.equals("setNull") ? null : args[1]);
+                } else if(name.startsWith("execute") && (args == null || args.length == 0)) {
+                    STATEMENTS.add(new Statement(sql, new TreeMap<>(parameters)));
+                }
+                return invoke(statement, method, args);
+            });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException exception) {
+                throw exception.getCause();
+            }
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.eder.reservas.services;
 
+import com.eder.reservas.domain.restaurant.Restaurant;
+import com.eder.reservas.domain.restaurant.RestaurantMember;
+import com.eder.reservas.domain.restaurant.RestaurantMemberId;
 import com.eder.reservas.domain.user.User;
 import com.eder.reservas.domain.user.UserRole;
 import com.eder.reservas.dtos.auth.LoginDTO;
@@ -7,6 +10,8 @@ import com.eder.reservas.dtos.auth.RegisterDTO;
 import com.eder.reservas.dtos.auth.ResponseDTO;
 import com.eder.reservas.exceptions.ApiException;
 import com.eder.reservas.infra.security.TokenService;
+import com.eder.reservas.repositories.RestaurantMemberRepository;
+import com.eder.reservas.repositories.RestaurantRepository;
 import com.eder.reservas.repositories.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,10 +21,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +36,10 @@ public class AuthServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private RestaurantRepository restaurantRepository;
+    @Mock
+    private RestaurantMemberRepository restaurantMemberRepository;
+    @Mock
     private TokenService tokenService;
     @Mock
     private PasswordEncoder passwordEncoder;
@@ -53,10 +66,11 @@ public class AuthServiceTest {
 
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
         when(passwordEncoder.encode(anyString())).thenReturn("hashed password");
+        when(restaurantRepository.existsById(Restaurant.DEFAULT_ID)).thenReturn(true);
         when(userRepository.save(any(User.class))).thenReturn(savedUser);
-        when(tokenService.generateToken(any(User.class))).thenReturn(expectedToken);
+        when(tokenService.generateToken(any(User.class), eq(List.of(Restaurant.DEFAULT_ID)))).thenReturn(expectedToken);
 
-        ResponseDTO response = authService.register(newUser);
+        ResponseDTO response = authService.register(Restaurant.DEFAULT_ID, newUser, null);
 
         assertNotNull(response);
         assertEquals("test@email.com", response.email());
@@ -64,7 +78,8 @@ public class AuthServiceTest {
         verify(userRepository, times(1)).findByEmail(anyString());
         verify(passwordEncoder, times(1)).encode(anyString());
         verify(userRepository, times(1)).save(any(User.class));
-        verify(tokenService, times(1)).generateToken(any(User.class));
+        verify(restaurantMemberRepository, times(1)).save(any(RestaurantMember.class));
+        verify(tokenService, times(1)).generateToken(any(User.class), eq(List.of(Restaurant.DEFAULT_ID)));
     }
 
     @Test
@@ -81,13 +96,86 @@ public class AuthServiceTest {
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(existingUser));
 
         ApiException exception = assertThrows(ApiException.class, () -> {
-            authService.register(newUser);
+            authService.register(Restaurant.DEFAULT_ID, newUser, null);
         });
         assertEquals("Email already used", exception.getMessage());
         assertEquals(HttpStatus.CONFLICT, exception.getErrorStatus());
         verify(userRepository, times(1)).findByEmail(anyString());
         verify(userRepository, never()).save(any(User.class));
-        verify(tokenService, never()).generateToken(any(User.class));
+        verify(tokenService, never()).generateToken(any(User.class), anyCollection());
+    }
+
+    @Test
+    public void shouldNotRegisterNewUserIfRestaurantDoesNotExist() {
+        RegisterDTO newUser = new RegisterDTO("name", "test@email.com", "password", UserRole.USER);
+        UUID restaurantId = UUID.randomUUID();
+
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(restaurantRepository.existsById(restaurantId)).thenReturn(false);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            authService.register(restaurantId, newUser, null);
+        });
+        assertEquals("Restaurant not found", exception.getMessage());
+        assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    public void shouldRegisterFirstAdminOfRestaurant() {
+        RegisterDTO newAdmin = new RegisterDTO("name", "admin@email.com", "password", UserRole.ADMIN);
+
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(restaurantRepository.existsById(Restaurant.DEFAULT_ID)).thenReturn(true);
+        when(restaurantMemberRepository.existsByRestaurantIdAndRole(Restaurant.DEFAULT_ID, UserRole.ADMIN)).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed password");
+        when(tokenService.generateToken(any(User.class), anyCollection())).thenReturn("test token");
+
+        ResponseDTO response = authService.register(Restaurant.DEFAULT_ID, newAdmin, null);
+
+        assertEquals("admin@email.com", response.email());
+        verify(userRepository, times(1)).save(any(User.class));
+        verify(restaurantMemberRepository, times(1)).save(any(RestaurantMember.class));
+    }
+
+    @Test
+    public void shouldRegisterAdminAddedByAdminOfSameRestaurant() {
+        RegisterDTO newAdmin = new RegisterDTO("name", "admin@email.com", "password", UserRole.ADMIN);
+        User admin = new User();
+        admin.setId(UUID.randomUUID());
+        admin.setRole(UserRole.ADMIN);
+
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(restaurantRepository.existsById(Restaurant.DEFAULT_ID)).thenReturn(true);
+        when(restaurantMemberRepository.existsById(new RestaurantMemberId(admin.getId(), Restaurant.DEFAULT_ID))).thenReturn(true);
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed password");
+        when(tokenService.generateToken(any(User.class), anyCollection())).thenReturn("test token");
+
+        authService.register(Restaurant.DEFAULT_ID, newAdmin, admin);
+
+        verify(restaurantMemberRepository, never()).existsByRestaurantIdAndRole(any(), any());
+        verify(userRepository, times(1)).save(any(User.class));
+    }
+
+    @Test
+    public void shouldNotRegisterAdminIfRestaurantAlreadyHasOneAndThrow403() {
+        RegisterDTO newAdmin = new RegisterDTO("name", "admin@email.com", "password", UserRole.ADMIN);
+        User outsider = new User();
+        outsider.setId(UUID.randomUUID());
+        outsider.setRole(UserRole.ADMIN);
+
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(restaurantRepository.existsById(Restaurant.DEFAULT_ID)).thenReturn(true);
+        when(restaurantMemberRepository.existsById(new RestaurantMemberId(outsider.getId(), Restaurant.DEFAULT_ID))).thenReturn(false);
+        when(restaurantMemberRepository.existsByRestaurantIdAndRole(Restaurant.DEFAULT_ID, UserRole.ADMIN)).thenReturn(true);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            authService.register(Restaurant.DEFAULT_ID, newAdmin, outsider);
+        });
+        assertEquals("Only an administrator of this restaurant can add administrators", exception.getMessage());
+        assertEquals(HttpStatus.FORBIDDEN, exception.getErrorStatus());
+        verify(userRepository, never()).save(any(User.class));
+        verify(restaurantMemberRepository, never()).save(any(RestaurantMember.class));
     }
 
     @Test
@@ -107,7 +195,8 @@ public class AuthServiceTest {
 
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(existingUser));
         when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
-        when(tokenService.generateToken(any(User.class))).thenReturn(expectedToken);
+        when(restaurantMemberRepository.findRestaurantIdsByUserId(existingUser.getId())).thenReturn(List.of(Restaurant.DEFAULT_ID));
+        when(tokenService.generateToken(existingUser, List.of(Restaurant.DEFAULT_ID))).thenReturn(expectedToken);
 
         ResponseDTO response = authService.login(user);
 
@@ -116,7 +205,7 @@ public class AuthServiceTest {
         assertEquals(user.email(), response.email());
         verify(userRepository, times(1)).findByEmail(anyString());
         verify(passwordEncoder, times(1)).matches(anyString(), anyString());
-        verify(tokenService, times(1)).generateToken(any(User.class));
+        verify(tokenService, times(1)).generateToken(existingUser, List.of(Restaurant.DEFAULT_ID));
     }
 
     @Test
@@ -135,7 +224,7 @@ public class AuthServiceTest {
         assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
         verify(userRepository, times(1)).findByEmail(anyString());
         verify(passwordEncoder, never()).matches(anyString(), anyString());
-        verify(tokenService, never()).generateToken(any(User.class));
+        verify(tokenService, never()).generateToken(any(User.class), anyCollection());
     }
 
     @Test
@@ -161,6 +250,6 @@ public class AuthServiceTest {
         assertEquals(HttpStatus.UNAUTHORIZED, exception.getErrorStatus());
         verify(userRepository, times(1)).findByEmail(anyString());
         verify(passwordEncoder, times(1)).matches(anyString(), anyString());
-        verify(tokenService, never()).generateToken(any(User.class));
+        verify(tokenService, never()).generateToken(any(User.class), anyCollection());
     }
 }
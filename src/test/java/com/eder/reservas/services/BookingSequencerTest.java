@@ -0,0 +1,306 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.domain.reservation.ReservationTicket;
+import com.eder.reservas.domain.reservation.ReservationTicketStatus;
+import com.eder.reservas.dtos.reservation.ReservationRegisterDTO;
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.dtos.reservation.ReservationTicketDTO;
+import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.availability.AvailabilityIndex;
+import com.eder.reservas.repositories.ReservationTicketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingSequencerTest {
+    private static final UUID RESTAURANT_ID = UUID.randomUUID();
+
+    @Mock
+    private ReservationService reservationService;
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+    @Mock
+    private ReservationTicketRepository ticketRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<UUID, ReservationTicket> tickets = new ConcurrentHashMap<>();
+    private BookingSequencer bookingSequencer;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        lenient().when(ticketRepository.insertPending(any(), any(), any(), anyInt(), any(), anyInt(), any())).thenAnswer(invocation -> {
+            ReservationTicket ticket = new ReservationTicket();
+            ticket.setId(invocation.getArgument(0));
+            ticket.setEmail(invocation.getArgument(1));
+            ticket.setReservationDateTime(invocation.getArgument(4));
+            ticket.setNumberOfPeople(invocation.getArgument(5));
+            ticket.setStatus(ReservationTicketStatus.PENDING);
+            tickets.put(ticket.getId(), ticket);
+            return 1;
+        });
+        lenient().when(ticketRepository.confirm(any(), any(), any(), any())).thenAnswer(invocation -> resolve(invocation.getArgument(0), ticket -> {
+            ticket.setStatus(ReservationTicketStatus.CONFIRMED);
+            ticket.setReservationId(invocation.getArgument(1));
+            ticket.setUserId(invocation.getArgument(2));
+            ticket.setTableId(invocation.getArgument(3));
+        }));
+        lenient().when(ticketRepository.reject(any(), any())).thenAnswer(invocation -> resolve(invocation.getArgument(0), ticket -> {
+            ticket.setStatus(ReservationTicketStatus.REJECTED);
+            ticket.setMessage(invocation.getArgument(1));
+        }));
+        lenient().when(ticketRepository.findByIdAndEmail(any(), any())).thenAnswer(invocation -> Optional.ofNullable(tickets.get(invocation.<UUID>getArgument(0)))
+                .filter(ticket -> ticket.getEmail().equals(invocation.getArgument(1))));
+
+        bookingSequencer = new BookingSequencer(reservationService, availabilityIndex, ticketRepository, transactionManager, 2, 10, 4, Duration.ofMinutes(1));
+        bookingSequencer.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bookingSequencer.stop();
+    }
+
+    @Test
+    public void shouldConfirmTicketOnceBookingIsApplied() throws InterruptedException {
+        ReservationRegisterDTO data = new ReservationRegisterDTO(1, LocalDateTime.now(), 2);
+        ReservationResponseDTO reservation = new ReservationResponseDTO(
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                data.dateTime(),
+                2,
+                ReservationStatus.ACTIVE
+        );
+
+        when(reservationService.createReservation(RESTAURANT_ID, data, "test@email.com")).thenReturn(reservation);
+
+        ReservationTicketDTO ticket = bookingSequencer.submit(RESTAURANT_ID, data, "test@email.com");
+        ReservationTicketDTO result = awaitCompletion(ticket.id(), "test@email.com");
+
+        assertEquals(ReservationTicketStatus.PENDING, ticket.status());
+        assertEquals(ReservationTicketStatus.CONFIRMED, result.status());
+        assertEquals(reservation, result.reservation());
+        verify(reservationService, times(1)).createReservation(RESTAURANT_ID, data, "test@email.com");
+    }
+
+    @Test
+    public void shouldRejectTicketIfBookingFails() throws InterruptedException {
+        ReservationRegisterDTO data = new ReservationRegisterDTO(1, LocalDateTime.now(), 2);
+
+        when(reservationService.createReservation(RESTAURANT_ID, data, "test@email.com"))
+                .thenThrow(new ApiException("Table is unavailable", HttpStatus.CONFLICT));
+
+        ReservationTicketDTO ticket = bookingSequencer.submit(RESTAURANT_ID, data, "test@email.com");
+        ReservationTicketDTO result = awaitCompletion(ticket.id(), "test@email.com");
+
+        assertEquals(ReservationTicketStatus.REJECTED, result.status());
+        assertEquals("Table is unavailable", result.message());
+        assertNull(result.reservation());
+    }
+
+    @Test
+    public void shouldApplyQueuedBookingsInOneTransaction() throws InterruptedException {
+        BookingSequencer queued = new BookingSequencer(reservationService, availabilityIndex, ticketRepository, transactionManager, 1, 10, 4, Duration.ofMinutes(1));
+        List<ReservationRegisterDTO> data = List.of(
+                new ReservationRegisterDTO(1, LocalDateTime.now(), 2),
+                new ReservationRegisterDTO(2, LocalDateTime.now(), 3),
+                new ReservationRegisterDTO(3, LocalDateTime.now(), 4)
+        );
+
+        data.forEach(d -> when(reservationService.createReservation(RESTAURANT_ID, d, "test@email.com")).thenReturn(response(d)));
+
+        List<ReservationTicketDTO> tickets = data.stream().map(d -> queued.submit(RESTAURANT_ID, d, "test@email.com")).toList();
+        queued.start();
+        try {
+            for(ReservationTicketDTO ticket : tickets) {
+                assertEquals(ReservationTicketStatus.CONFIRMED, awaitCompletion(queued, ticket.id(), "test@email.com").status());
+            }
+        } finally {
+            queued.stop();
+        }
+
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        data.forEach(d -> verify(reservationService, times(1)).createReservation(RESTAURANT_ID, d, "test@email.com"));
+    }
+
+    @Test
+    public void shouldRejectConflictingBookingOfSameBatchBeforePersisting() throws InterruptedException {
+        BookingSequencer queued = new BookingSequencer(reservationService, availabilityIndex, ticketRepository, transactionManager, 1, 10, 4, Duration.ofMinutes(1));
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+        ReservationRegisterDTO earlier = new ReservationRegisterDTO(1, start, 2);
+        ReservationRegisterDTO overlapping = new ReservationRegisterDTO(1, start.plusHours(1), 2);
+        ReservationRegisterDTO later = new ReservationRegisterDTO(1, start.plusHours(2), 2);
+
+        when(reservationService.createReservation(RESTAURANT_ID, earlier, "test@email.com")).thenReturn(response(earlier));
+        when(reservationService.createReservation(RESTAURANT_ID, later, "test@email.com")).thenReturn(response(later));
+
+        ReservationTicketDTO first = queued.submit(RESTAURANT_ID, earlier, "test@email.com");
+        ReservationTicketDTO second = queued.submit(RESTAURANT_ID, overlapping, "test@email.com");
+        ReservationTicketDTO third = queued.submit(RESTAURANT_ID, later, "test@email.com");
+        queued.start();
+        try {
+            assertEquals(ReservationTicketStatus.CONFIRMED, awaitCompletion(queued, first.id(), "test@email.com").status());
+            ReservationTicketDTO rejected = awaitCompletion(queued, second.id(), "test@email.com");
+            assertEquals(ReservationTicketStatus.REJECTED, rejected.status());
+            assertEquals("Table is unavailable", rejected.message());
+            assertEquals(ReservationTicketStatus.CONFIRMED, awaitCompletion(queued, third.id(), "test@email.com").status());
+        } finally {
+            queued.stop();
+        }
+
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, never()).rollback(any());
+        verify(reservationService, never()).createReservation(RESTAURANT_ID, overlapping, "test@email.com");
+    }
+
+    @Test
+    public void shouldRejectFailingBookingAndApplyRestOfBatchTogether() throws InterruptedException {
+        BookingSequencer queued = new BookingSequencer(reservationService, availabilityIndex, ticketRepository, transactionManager, 1, 10, 4, Duration.ofMinutes(1));
+        ReservationRegisterDTO free = new ReservationRegisterDTO(1, LocalDateTime.now(), 2);
+        ReservationRegisterDTO taken = new ReservationRegisterDTO(2, LocalDateTime.now(), 2);
+        ReservationRegisterDTO other = new ReservationRegisterDTO(3, LocalDateTime.now(), 2);
+
+        when(reservationService.createReservation(RESTAURANT_ID, free, "test@email.com")).thenReturn(response(free));
+        when(reservationService.createReservation(RESTAURANT_ID, other, "test@email.com")).thenReturn(response(other));
+        when(reservationService.createReservation(RESTAURANT_ID, taken, "test@email.com"))
+                .thenThrow(new ApiException("Table is unavailable", HttpStatus.CONFLICT));
+
+        ReservationTicketDTO second = queued.submit(RESTAURANT_ID, taken, "test@email.com");
+        ReservationTicketDTO first = queued.submit(RESTAURANT_ID, free, "test@email.com");
+        ReservationTicketDTO third = queued.submit(RESTAURANT_ID, other, "test@email.com");
+        queued.start();
+        try {
+            assertEquals(ReservationTicketStatus.CONFIRMED, awaitCompletion(queued, first.id(), "test@email.com").status());
+            assertEquals(ReservationTicketStatus.REJECTED, awaitCompletion(queued, second.id(), "test@email.com").status());
+            assertEquals(ReservationTicketStatus.CONFIRMED, awaitCompletion(queued, third.id(), "test@email.com").status());
+        } finally {
+            queued.stop();
+        }
+
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(reservationService, times(1)).createReservation(RESTAURANT_ID, taken, "test@email.com");
+        verify(reservationService, times(1)).createReservation(RESTAURANT_ID, other, "test@email.com");
+    }
+
+    @Test
+    public void shouldApplyBookingsOneByOneIfBatchHitsDatabaseError() throws InterruptedException {
+        BookingSequencer queued = new BookingSequencer(reservationService, availabilityIndex, ticketRepository, transactionManager, 1, 10, 4, Duration.ofMinutes(1));
+        ReservationRegisterDTO free = new ReservationRegisterDTO(1, LocalDateTime.now(), 2);
+        ReservationRegisterDTO taken = new ReservationRegisterDTO(2, LocalDateTime.now(), 2);
+
+        when(reservationService.createReservation(RESTAURANT_ID, free, "test@email.com")).thenReturn(response(free));
+        when(reservationService.createReservation(RESTAURANT_ID, taken, "test@email.com"))
+                .thenThrow(new DataIntegrityViolationException("reservations_no_overlap"));
+
+        ReservationTicketDTO second = queued.submit(RESTAURANT_ID, taken, "test@email.com");
+        ReservationTicketDTO first = queued.submit(RESTAURANT_ID, free, "test@email.com");
+        queued.start();
+        try {
+            assertEquals(ReservationTicketStatus.CONFIRMED, awaitCompletion(queued, first.id(), "test@email.com").status());
+            ReservationTicketDTO rejected = awaitCompletion(queued, second.id(), "test@email.com");
+            assertEquals(ReservationTicketStatus.REJECTED, rejected.status());
+            assertEquals("Table is unavailable", rejected.message());
+        } finally {
+            queued.stop();
+        }
+
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(reservationService, times(1)).createReservation(RESTAURANT_ID, free, "test@email.com");
+        verify(reservationService, times(2)).createReservation(RESTAURANT_ID, taken, "test@email.com");
+    }
+
+    @Test
+    public void shouldNotExposeTicketToOtherUsers() {
+        ReservationRegisterDTO data = new ReservationRegisterDTO(1, LocalDateTime.now(), 2);
+
+        ReservationTicketDTO ticket = bookingSequencer.submit(RESTAURANT_ID, data, "test@email.com");
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            bookingSequencer.getTicket(ticket.id(), "other@email.com");
+        });
+        assertEquals("Ticket not found", exception.getMessage());
+        assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
+    }
+
+    @Test
+    public void shouldRejectQueuedBookingsOnShutdown() {
+        BookingSequencer queued = new BookingSequencer(reservationService, availabilityIndex, ticketRepository, transactionManager, 1, 10, 4, Duration.ofMinutes(1));
+        ReservationRegisterDTO data = new ReservationRegisterDTO(1, LocalDateTime.now(), 2);
+
+        ReservationTicketDTO ticket = queued.submit(RESTAURANT_ID, data, "test@email.com");
+        queued.stop();
+
+        ReservationTicketDTO result = queued.getTicket(ticket.id(), "test@email.com");
+        assertEquals(ReservationTicketStatus.REJECTED, result.status());
+        assertEquals("Booking service is shutting down, please retry", result.message());
+        assertThrows(ApiException.class, () -> queued.submit(RESTAURANT_ID, data, "test@email.com"));
+        verify(reservationService, never()).createReservation(any(), any(), any());
+    }
+
+    @Test
+    public void shouldRollBackBookingIfTicketExpiredMeanwhile() throws InterruptedException {
+        ReservationRegisterDTO data = new ReservationRegisterDTO(1, LocalDateTime.now(), 2);
+
+        when(reservationService.createReservation(RESTAURANT_ID, data, "test@email.com")).thenAnswer(invocation -> {
+            tickets.values().forEach(ticket -> ticket.setStatus(ReservationTicketStatus.REJECTED));
+            return response(data);
+        });
+
+        ReservationTicketDTO ticket = bookingSequencer.submit(RESTAURANT_ID, data, "test@email.com");
+
+        assertEquals(ReservationTicketStatus.REJECTED, awaitCompletion(ticket.id(), "test@email.com").status());
+        verify(transactionManager, timeout(1000)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    private int resolve(UUID id, Consumer<ReservationTicket> change) {
+        ReservationTicket ticket = tickets.get(id);
+        if(ticket == null || ticket.getStatus() != ReservationTicketStatus.PENDING) return 0;
+        change.accept(ticket);
+        return 1;
+    }
+
+    private ReservationTicketDTO awaitCompletion(UUID id, String email) throws InterruptedException {
+        return awaitCompletion(bookingSequencer, id, email);
+    }
+
+    private ReservationTicketDTO awaitCompletion(BookingSequencer sequencer, UUID id, String email) throws InterruptedException {
+        for(int attempt = 0; attempt < 200; attempt++) {
+            ReservationTicketDTO ticket = sequencer.getTicket(id, email);
+            if(ticket.status() != ReservationTicketStatus.PENDING) return ticket;
+            Thread.sleep(10);
+        }
+        return fail("Ticket was not processed in time");
+    }
+
+    private ReservationResponseDTO response(ReservationRegisterDTO data) {
+        return new ReservationResponseDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), data.dateTime(), data.people(), ReservationStatus.ACTIVE);
+    }
+}
@@ -0,0 +1,168 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.idempotency.IdempotencyKey;
+import com.eder.reservas.domain.idempotency.IdempotencyKeyId;
+import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.domain.user.User;
+import com.eder.reservas.dtos.reservation.ReservationRegisterDTO;
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.repositories.IdempotencyKeyRepository;
+import com.eder.reservas.repositories.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+    private static final UUID RESTAURANT_ID = UUID.randomUUID();
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Mock
+    private ReservationService reservationService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyService idempotencyService;
+    private User user;
+    private ReservationRegisterDTO data;
+    private ReservationResponseDTO reservation;
+
+    @BeforeEach
+    public void setUp() {
+        idempotencyService = newService();
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("test@email.com");
+
+        data = new ReservationRegisterDTO(1, LocalDateTime.now(), 2);
+        reservation = new ReservationResponseDTO(
+                UUID.randomUUID(),
+                user.getId(),
+                UUID.randomUUID(),
+                data.dateTime(),
+                2,
+                ReservationStatus.ACTIVE
+        );
+    }
+
+    @Test
+    public void shouldCreateReservationAndStoreKey() {
+        when(idempotencyKeyRepository.findById(new IdempotencyKeyId(user.getId(), "key-1"))).thenReturn(Optional.empty());
+        when(reservationService.createReservation(RESTAURANT_ID, data, user.getEmail())).thenReturn(reservation);
+
+        ReservationResponseDTO response = idempotencyService.createReservation(RESTAURANT_ID, data, user, "key-1");
+
+        ArgumentCaptor<IdempotencyKey> captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(captor.capture());
+        assertEquals(reservation, response);
+        assertEquals(user.getId(), captor.getValue().getUserId());
+        assertEquals("key-1", captor.getValue().getKey());
+        assertEquals(reservation.id(), captor.getValue().getReservationId());
+        assertNotNull(captor.getValue().getRequestHash());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    public void shouldReplayRetryFromCacheWithoutBooking() {
+        when(idempotencyKeyRepository.findById(new IdempotencyKeyId(user.getId(), "key-1"))).thenReturn(Optional.empty());
+        when(reservationService.createReservation(RESTAURANT_ID, data, user.getEmail())).thenReturn(reservation);
+
+        idempotencyService.createReservation(RESTAURANT_ID, data, user, "key-1");
+        ReservationResponseDTO replay = idempotencyService.createReservation(RESTAURANT_ID, data, user, "key-1");
+
+        assertEquals(reservation, replay);
+        verify(reservationService, times(1)).createReservation(any(UUID.class), any(ReservationRegisterDTO.class), anyString());
+        verify(idempotencyKeyRepository, times(1)).findById(new IdempotencyKeyId(user.getId(), "key-1"));
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    public void shouldReplayStoredReservationWhenKeyIsNotCached() {
+        IdempotencyKey stored = createAndCaptureKey();
+        IdempotencyService otherNode = newService();
+
+        when(idempotencyKeyRepository.findById(new IdempotencyKeyId(user.getId(), "key-1"))).thenReturn(Optional.of(stored));
+        when(reservationRepository.findResponse(reservation.id(), reservation.dateTime())).thenReturn(Optional.of(reservation));
+
+        ReservationResponseDTO replay = otherNode.createReservation(RESTAURANT_ID, data, user, "key-1");
+
+        assertEquals(reservation, replay);
+        verify(reservationService, times(1)).createReservation(any(UUID.class), any(ReservationRegisterDTO.class), anyString());
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(any(IdempotencyKey.class));
+    }
+
+    @Test
+    public void shouldRejectCachedKeyReusedWithDifferentRequest() {
+        when(idempotencyKeyRepository.findById(new IdempotencyKeyId(user.getId(), "key-1"))).thenReturn(Optional.empty());
+        when(reservationService.createReservation(RESTAURANT_ID, data, user.getEmail())).thenReturn(reservation);
+
+        idempotencyService.createReservation(RESTAURANT_ID, data, user, "key-1");
+        ReservationRegisterDTO other = new ReservationRegisterDTO(2, data.dateTime(), 2);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            idempotencyService.createReservation(RESTAURANT_ID, other, user, "key-1");
+        });
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getErrorStatus());
+        verify(reservationService, times(1)).createReservation(any(UUID.class), any(ReservationRegisterDTO.class), anyString());
+    }
+
+    @Test
+    public void shouldRejectStoredKeyReusedWithDifferentRequest() {
+        IdempotencyKey stored = createAndCaptureKey();
+        IdempotencyService otherNode = newService();
+        ReservationRegisterDTO other = new ReservationRegisterDTO(1, data.dateTime(), 4);
+
+        when(idempotencyKeyRepository.findById(new IdempotencyKeyId(user.getId(), "key-1"))).thenReturn(Optional.of(stored));
+        when(reservationRepository.findResponse(reservation.id(), reservation.dateTime())).thenReturn(Optional.of(reservation));
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            otherNode.createReservation(RESTAURANT_ID, other, user, "key-1");
+        });
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getErrorStatus());
+        verify(reservationService, times(1)).createReservation(any(UUID.class), any(ReservationRegisterDTO.class), anyString());
+    }
+
+    @Test
+    public void shouldNotCreateReservationIfKeyIsBlank() {
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            idempotencyService.createReservation(RESTAURANT_ID, data, user, " ");
+        });
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getErrorStatus());
+        verify(reservationService, never()).createReservation(any(UUID.class), any(ReservationRegisterDTO.class), anyString());
+    }
+
+    private IdempotencyService newService() {
+        return new IdempotencyService(idempotencyKeyRepository, reservationRepository, reservationService, transactionManager, 100, Duration.ofMinutes(1));
+    }
+
+    private IdempotencyKey createAndCaptureKey() {
+        when(idempotencyKeyRepository.findById(new IdempotencyKeyId(user.getId(), "key-1"))).thenReturn(Optional.empty());
+        when(reservationService.createReservation(RESTAURANT_ID, data, user.getEmail())).thenReturn(reservation);
+
+        idempotencyService.createReservation(RESTAURANT_ID, data, user, "key-1");
+
+        ArgumentCaptor<IdempotencyKey> captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,164 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.occupancy.OccupancyGranularity;
+import com.eder.reservas.domain.reservation.Reservation;
+import com.eder.reservas.domain.table.Table;
+import com.eder.reservas.domain.table.TableStatus;
+import com.eder.reservas.dtos.report.OccupancyBackfillDTO;
+import com.eder.reservas.dtos.report.OccupancyReportDTO;
+import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.archive.ReservationArchive;
+import com.eder.reservas.repositories.OccupancyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OccupancyServiceTest {
+    private static final UUID RESTAURANT_ID = UUID.randomUUID();
+
+    @Mock
+    private OccupancyRepository occupancyRepository;
+    @Mock
+    private ReservationArchive reservationArchive;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private OccupancyService occupancyService;
+
+    @Test
+    public void shouldAddAndRemoveReservationFromRollups() {
+        Table table = new Table(UUID.randomUUID(), RESTAURANT_ID, 1, 4, TableStatus.AVAILABLE);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 30);
+
+        Reservation reservation = new Reservation();
+        reservation.setRestaurantId(RESTAURANT_ID);
+        reservation.setTable(table);
+        reservation.setReservationDateTime(start);
+        reservation.setReservationEnd(start.plusHours(2));
+        reservation.setNumberOfPeople(3);
+
+        occupancyService.recordCreated(reservation);
+        occupancyService.recordCanceled(reservation);
+
+        verify(occupancyRepository, times(1)).apply(RESTAURANT_ID, table.getId(), start, start.plusHours(2), 3, 1);
+        verify(occupancyRepository, times(1)).apply(RESTAURANT_ID, table.getId(), start, start.plusHours(2), 3, -1);
+    }
+
+    @Test
+    public void shouldGetDailyOccupancyFromRollups() {
+        UUID tableId = UUID.randomUUID();
+        LocalDateTime day = LocalDateTime.of(2030, 1, 1, 0, 0);
+        OccupancyRepository.OccupancyRow row = mock(OccupancyRepository.OccupancyRow.class);
+
+        when(row.getPeriod()).thenReturn(day);
+        when(row.getTableId()).thenReturn(tableId);
+        when(row.getTableNumber()).thenReturn(7);
+        when(row.getReservations()).thenReturn(3L);
+        when(row.getPeople()).thenReturn(8L);
+        when(row.getOccupiedSeconds()).thenReturn(21600L);
+        when(occupancyRepository.findReport(RESTAURANT_ID, "day", day, day.plusDays(2))).thenReturn(List.of(row));
+
+        List<OccupancyReportDTO> report = occupancyService.getOccupancy(RESTAURANT_ID, day.plusHours(10), day.plusDays(1).plusHours(2), OccupancyGranularity.DAY);
+
+        assertEquals(1, report.size());
+        assertEquals(day, report.get(0).period());
+        assertEquals(7, report.get(0).tableNumber());
+        assertEquals(3, report.get(0).reservations());
+        assertEquals(8, report.get(0).people());
+        assertEquals(0.25, report.get(0).occupancy());
+    }
+
+    @Test
+    public void shouldNotGetOccupancyIfRangeIsTooLarge() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            occupancyService.getOccupancy(RESTAURANT_ID, from, from.plusDays(32), OccupancyGranularity.HOUR);
+        });
+        assertEquals("Time range can not exceed 31 days", exception.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getErrorStatus());
+        verifyNoInteractions(occupancyRepository);
+    }
+
+    @Test
+    public void shouldNotGetOccupancyIfRangeIsInvalid() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            occupancyService.getOccupancy(RESTAURANT_ID, from, from, OccupancyGranularity.HOUR);
+        });
+        assertEquals("Invalid time range", exception.getMessage());
+        verifyNoInteractions(occupancyRepository);
+    }
+
+    @Test
+    public void shouldBackfillWholeHoursUnderLock() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 15);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+        when(occupancyRepository.rebuildBetween(RESTAURANT_ID, from.withMinute(0), to)).thenReturn(5);
+
+        OccupancyBackfillDTO response = occupancyService.backfill(RESTAURANT_ID, from, to);
+
+        assertEquals(from.withMinute(0), response.from());
+        assertEquals(to, response.to());
+        assertEquals(5, response.rows());
+        InOrder inOrder = inOrder(occupancyRepository);
+        inOrder.verify(occupancyRepository).lock(RESTAURANT_ID);
+        inOrder.verify(occupancyRepository).deleteBetween(RESTAURANT_ID, from.withMinute(0), to);
+        inOrder.verify(occupancyRepository).rebuildBetween(RESTAURANT_ID, from.withMinute(0), to);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    public void shouldBackfillOneDayPerTransaction() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(2).plusHours(12);
+
+        when(occupancyRepository.rebuildBetween(RESTAURANT_ID, from, from.plusDays(1))).thenReturn(3);
+        when(occupancyRepository.rebuildBetween(RESTAURANT_ID, from.plusDays(1), from.plusDays(2))).thenReturn(4);
+        when(occupancyRepository.rebuildBetween(RESTAURANT_ID, from.plusDays(2), to)).thenReturn(5);
+
+        OccupancyBackfillDTO response = occupancyService.backfill(RESTAURANT_ID, from, to);
+
+        assertEquals(12, response.rows());
+        InOrder inOrder = inOrder(occupancyRepository, transactionManager);
+        inOrder.verify(occupancyRepository).lock(RESTAURANT_ID);
+        inOrder.verify(occupancyRepository).deleteBetween(RESTAURANT_ID, from, from.plusDays(1));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(occupancyRepository).lock(RESTAURANT_ID);
+        inOrder.verify(occupancyRepository).deleteBetween(RESTAURANT_ID, from.plusDays(1), from.plusDays(2));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(occupancyRepository).lock(RESTAURANT_ID);
+        inOrder.verify(occupancyRepository).deleteBetween(RESTAURANT_ID, from.plusDays(2), to);
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void shouldNotBackfillArchivedRange() {
+        LocalDateTime archivedUntil = LocalDateTime.of(2024, 9, 1, 0, 0);
+
+        when(reservationArchive.getArchivedUntil()).thenReturn(Optional.of(archivedUntil));
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            occupancyService.backfill(RESTAURANT_ID, archivedUntil.minusHours(1), archivedUntil.plusHours(1));
+        });
+        assertEquals("Time range is archived", exception.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getErrorStatus());
+        verifyNoInteractions(occupancyRepository);
+    }
+}
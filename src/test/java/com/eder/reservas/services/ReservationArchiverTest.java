@@ -0,0 +1,138 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.infra.archive.ArchiveNodes;
+import com.eder.reservas.infra.archive.ArchivedReservation;
+import com.eder.reservas.infra.archive.ReservationArchive;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.infra.cluster.ClusterNotifier;
+import com.eder.reservas.repositories.ReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReservationArchiverTest {
+    private static final Duration RETENTION = Duration.ofDays(365);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Mock
+    private ReservationArchive reservationArchive;
+    @Mock
+    private ArchiveNodes archiveNodes;
+    @Mock
+    private ClusterNotifier clusterNotifier;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void shouldArchiveMonthsOlderThanRetentionAndDropTheirPartitions() {
+        ReservationArchiver archiver = new ReservationArchiver(reservationRepository, reservationArchive, archiveNodes, clusterNotifier, transactionManager, true, RETENTION);
+        YearMonth last = YearMonth.from(LocalDateTime.now().minus(RETENTION)).minusMonths(1);
+        YearMonth first = last.minusMonths(1);
+        LocalDateTime firstStart = first.atDay(1).atStartOfDay();
+        LocalDateTime lastStart = last.atDay(1).atStartOfDay();
+        ReservationRepository.ArchiveRow row = archiveRow(firstStart.plusDays(2));
+
+        when(reservationRepository.findOldestStartBefore(lastStart.plusMonths(1))).thenReturn(Optional.of(firstStart.plusDays(2)));
+        when(archiveNodes.confirmShared()).thenReturn(true);
+        when(reservationRepository.tryLockArchiver()).thenReturn(true);
+        when(reservationRepository.lockAllStartingBetween(firstStart, lastStart)).thenReturn(List.of(row));
+        when(reservationRepository.lockAllStartingBetween(lastStart, lastStart.plusMonths(1))).thenReturn(List.of());
+
+        archiver.archive();
+
+        verify(reservationArchive, times(1)).write(first, List.of(new ArchivedReservation(
+                row.getId(), row.getRestaurantId(), row.getUserId(), row.getTableId(), row.getStart(), row.getEnd(), 2, ReservationStatus.COMPLETED)));
+        verify(reservationArchive, never()).write(eq(last), anyList());
+        verify(clusterNotifier, times(1)).publish(new ClusterEvent.ArchiveChanged(first));
+        verify(reservationRepository, times(1)).dropPartition(firstStart.toLocalDate());
+        verify(reservationRepository, times(1)).dropPartition(lastStart.toLocalDate());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    public void shouldNotArchiveIfAnotherNodeIsArchiving() {
+        ReservationArchiver archiver = new ReservationArchiver(reservationRepository, reservationArchive, archiveNodes, clusterNotifier, transactionManager, true, RETENTION);
+        YearMonth last = YearMonth.from(LocalDateTime.now().minus(RETENTION)).minusMonths(1);
+        LocalDateTime firstStart = last.minusMonths(1).atDay(1).atStartOfDay();
+
+        when(reservationRepository.findOldestStartBefore(any(LocalDateTime.class))).thenReturn(Optional.of(firstStart));
+        when(archiveNodes.confirmShared()).thenReturn(true);
+        when(reservationRepository.tryLockArchiver()).thenReturn(false);
+
+        archiver.archive();
+
+        verify(reservationRepository, times(1)).tryLockArchiver();
+        verify(reservationRepository, never()).lockAllStartingBetween(any(), any());
+        verify(reservationRepository, never()).dropPartition(any());
+        verifyNoInteractions(reservationArchive);
+    }
+
+    @Test
+    public void shouldNotArchiveIfArchiveDirectoryIsNotShared() {
+        ReservationArchiver archiver = new ReservationArchiver(reservationRepository, reservationArchive, archiveNodes, clusterNotifier, transactionManager, true, RETENTION);
+        YearMonth last = YearMonth.from(LocalDateTime.now().minus(RETENTION)).minusMonths(1);
+
+        when(reservationRepository.findOldestStartBefore(any(LocalDateTime.class))).thenReturn(Optional.of(last.atDay(1).atStartOfDay()));
+        when(archiveNodes.confirmShared()).thenReturn(false);
+
+        archiver.archive();
+
+        verify(reservationRepository, never()).tryLockArchiver();
+        verify(reservationRepository, never()).dropPartition(any());
+        verifyNoInteractions(reservationArchive, transactionManager);
+    }
+
+    @Test
+    public void shouldNotArchiveIfNothingIsOldEnough() {
+        ReservationArchiver archiver = new ReservationArchiver(reservationRepository, reservationArchive, archiveNodes, clusterNotifier, transactionManager, true, RETENTION);
+
+        when(reservationRepository.findOldestStartBefore(any(LocalDateTime.class))).thenReturn(Optional.empty());
+
+        archiver.archive();
+
+        verify(reservationRepository, never()).lockAllStartingBetween(any(), any());
+        verify(reservationRepository, never()).dropPartition(any());
+        verifyNoInteractions(reservationArchive);
+    }
+
+    @Test
+    public void shouldNotArchiveIfDisabled() {
+        ReservationArchiver archiver = new ReservationArchiver(reservationRepository, reservationArchive, archiveNodes, clusterNotifier, transactionManager, false, RETENTION);
+
+        archiver.archive();
+
+        verifyNoInteractions(reservationRepository, reservationArchive, archiveNodes, transactionManager);
+    }
+
+    private ReservationRepository.ArchiveRow archiveRow(LocalDateTime start) {
+        ReservationRepository.ArchiveRow row = mock(ReservationRepository.ArchiveRow.class);
+        UUID id = UUID.randomUUID();
+        UUID restaurantId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        UUID tableId = UUID.randomUUID();
+
+        when(row.getId()).thenReturn(id);
+        when(row.getRestaurantId()).thenReturn(restaurantId);
+        when(row.getUserId()).thenReturn(userId);
+        when(row.getTableId()).thenReturn(tableId);
+        when(row.getStart()).thenReturn(start);
+        when(row.getEnd()).thenReturn(start.plusHours(2));
+        when(row.getPeople()).thenReturn(2);
+        when(row.getStatus()).thenReturn("COMPLETED");
+        return row;
+    }
+}
@@ -0,0 +1,84 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.domain.restaurant.Restaurant;
+import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.infra.archive.ReservationArchive;
+import com.eder.reservas.repositories.ReservationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReservationExportServiceTest {
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Mock
+    private ReservationArchive reservationArchive;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    @InjectMocks
+    private ReservationExportService reservationExportService;
+
+    @Test
+    public void shouldWriteOneJsonLinePerReservation() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        ReservationResponseDTO first = new ReservationResponseDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), timestamp, 2, ReservationStatus.ACTIVE);
+        ReservationResponseDTO second = new ReservationResponseDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), timestamp, 4, ReservationStatus.CANCELED);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        when(reservationRepository.streamAllForExport(Restaurant.DEFAULT_ID)).thenReturn(Stream.of(first, second));
+
+        reservationExportService.exportReservations(Restaurant.DEFAULT_ID, output);
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(first, objectMapper.readValue(lines[0], ReservationResponseDTO.class));
+        assertEquals(second, objectMapper.readValue(lines[1], ReservationResponseDTO.class));
+    }
+
+    @Test
+    public void shouldWriteArchivedReservationsFirstWithoutDuplicates() throws Exception {
+        LocalDateTime archivedUntil = LocalDateTime.of(2024, 9, 1, 0, 0);
+        ReservationResponseDTO archived = new ReservationResponseDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), archivedUntil.minusDays(1), 2, ReservationStatus.COMPLETED);
+        ReservationResponseDTO pending = new ReservationResponseDTO(archived.id(), archived.userId(), archived.tableId(), archived.dateTime(), 2, ReservationStatus.COMPLETED);
+        ReservationResponseDTO live = new ReservationResponseDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), archivedUntil.plusDays(1), 4, ReservationStatus.ACTIVE);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        when(reservationArchive.getArchivedUntil()).thenReturn(Optional.of(archivedUntil));
+        when(reservationArchive.streamAll(Restaurant.DEFAULT_ID)).thenReturn(Stream.of(archived));
+        when(reservationRepository.streamAllForExport(Restaurant.DEFAULT_ID)).thenReturn(Stream.of(pending, live));
+
+        reservationExportService.exportReservations(Restaurant.DEFAULT_ID, output);
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(archived, objectMapper.readValue(lines[0], ReservationResponseDTO.class));
+        assertEquals(live, objectMapper.readValue(lines[1], ReservationResponseDTO.class));
+    }
+
+    @Test
+    public void shouldWriteNothingWhenThereAreNoReservations() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        when(reservationRepository.streamAllForExport(Restaurant.DEFAULT_ID)).thenReturn(Stream.empty());
+
+        reservationExportService.exportReservations(Restaurant.DEFAULT_ID, output);
+
+        assertEquals(0, output.size());
+    }
+}
@@ -0,0 +1,26 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.repositories.ReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReservationPartitionManagerTest {
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Test
+    public void shouldCreatePartitionsAhead() {
+        ReservationPartitionManager partitionManager = new ReservationPartitionManager(reservationRepository, 12);
+
+        when(reservationRepository.createPartitions(12)).thenReturn(1);
+
+        partitionManager.createPartitions();
+
+        verify(reservationRepository, times(1)).createPartitions(12);
+    }
+}
@@ -2,24 +2,42 @@ package com.eder.reservas.services;
 
 import com.eder.reservas.domain.reservation.Reservation;
 import com.eder.reservas.domain.reservation.ReservationStatus;
+import com.eder.reservas.domain.reservation.WaitlistEntry;
 import com.eder.reservas.domain.table.Table;
 import com.eder.reservas.domain.table.TableStatus;
 import com.eder.reservas.domain.user.User;
 import com.eder.reservas.domain.user.UserRole;
+import com.eder.reservas.dtos.reservation.ReservationAssignDTO;
+import com.eder.reservas.dtos.reservation.ReservationPageDTO;
 import com.eder.reservas.dtos.reservation.ReservationRegisterDTO;
 import com.eder.reservas.dtos.reservation.ReservationResponseDTO;
+import com.eder.reservas.dtos.reservation.WaitlistEntryDTO;
+import com.eder.reservas.dtos.table.TableEventDTO;
+import com.eder.reservas.dtos.table.TableResponseDTO;
 import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.archive.ReservationArchive;
+import com.eder.reservas.infra.availability.AvailabilityIndex;
+import com.eder.reservas.infra.catalog.TableCatalog;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.infra.cluster.ClusterNotifier;
+import com.eder.reservas.infra.events.TableEventBroadcaster;
+import com.eder.reservas.infra.security.PrincipalCache;
 import com.eder.reservas.repositories.ReservationRepository;
 import com.eder.reservas.repositories.TableRepository;
 import com.eder.reservas.repositories.UserRepository;
+import com.eder.reservas.repositories.WaitlistEntryRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,12 +47,30 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 public class ReservationServiceTest {
+    private static final UUID RESTAURANT_ID = UUID.randomUUID();
+
     @Mock
     private ReservationRepository reservationRepository;
     @Mock
     private TableRepository tableRepository;
     @Mock
+    private TableCatalog tableCatalog;
+    @Mock
     private UserRepository userRepository;
+    @Mock
+    private PrincipalCache principalCache;
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+    @Mock
+    private WaitlistEntryRepository waitlistEntryRepository;
+    @Mock
+    private TableEventBroadcaster tableEventBroadcaster;
+    @Mock
+    private OccupancyService occupancyService;
+    @Mock
+    private ReservationArchive reservationArchive;
+    @Mock
+    private ClusterNotifier clusterNotifier;
 
     @InjectMocks
     private ReservationService reservationService;
@@ -43,9 +79,10 @@ public class ReservationServiceTest {
     public void shouldCreateReservation() {
         ReservationRegisterDTO newReservation = new ReservationRegisterDTO(
                 1,
-                LocalDateTime.now(),
+                LocalDateTime.of(2030, 1, 1, 19, 30, 0, 123_456_789),
                 2
         );
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 30, 0, 123_456_000);
 
         Table table = new Table();
         table.setNumber(1);
@@ -61,28 +98,90 @@ public class ReservationServiceTest {
         Reservation createdReservation = new Reservation();
         createdReservation.setUser(user);
         createdReservation.setTable(table);
-        createdReservation.setReservation_date_time(newReservation.dateTime());
-        createdReservation.setNumber_of_people(2);
+        createdReservation.setReservationDateTime(start);
+        createdReservation.setNumberOfPeople(2);
         createdReservation.setStatus(ReservationStatus.ACTIVE);
 
-        when(tableRepository.findByNumber(anyInt())).thenReturn(Optional.of(table));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
-        when(tableRepository.save(any(Table.class))).thenReturn(table);
-        when(reservationRepository.save(any(Reservation.class))).thenReturn(createdReservation);
+        when(tableCatalog.findByNumber(eq(RESTAURANT_ID), anyInt())).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(tableRepository.getReferenceById(any())).thenReturn(table);
+        when(principalCache.find(anyString())).thenReturn(Optional.of(user));
+        when(reservationRepository.saveAndFlush(any(Reservation.class))).thenReturn(createdReservation);
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.isFree(any(), eq(start), eq(start.plusHours(2)))).thenReturn(true);
 
-        ReservationResponseDTO response = reservationService.createReservation(newReservation, user.getEmail());
+        ReservationResponseDTO response = reservationService.createReservation(RESTAURANT_ID, newReservation, user.getEmail());
 
         assertNotNull(response);
-        assertEquals(TableStatus.UNAVAILABLE, table.getStatus());
+        assertEquals(TableStatus.AVAILABLE, table.getStatus());
         assertEquals(user.getId(), response.userId());
         assertEquals(table.getId(), response.tableId());
-        assertEquals(newReservation.dateTime(), response.dateTime());
+        assertEquals(start, response.dateTime());
         assertEquals(2, response.people());
         assertEquals(ReservationStatus.ACTIVE, response.status());
-        verify(tableRepository, times(1)).findByNumber(anyInt());
-        verify(userRepository, times(1)).findByEmail(anyString());
-        verify(tableRepository, times(1)).save(any(Table.class));
-        verify(reservationRepository, times(1)).save(any(Reservation.class));
+        verify(tableCatalog, times(1)).findByNumber(eq(RESTAURANT_ID), anyInt());
+        verify(principalCache, times(1)).find(anyString());
+        verify(tableRepository, never()).save(any(Table.class));
+        verify(reservationRepository, times(1)).saveAndFlush(any(Reservation.class));
+        verify(reservationRepository, never()).existsOverlapping(any(), any(), any());
+        verify(availabilityIndex, times(1)).reserve(any(), any(), eq(start), eq(start.plusHours(2)));
+        verify(clusterNotifier, times(1)).publish(new ClusterEvent.SlotReserved(RESTAURANT_ID, table.getId(), null, start, start.plusHours(2)));
+        verify(tableEventBroadcaster, times(1)).publish(RESTAURANT_ID, TableEventDTO.bookings(table.getId()));
+        verify(occupancyService, times(1)).recordCreated(any(Reservation.class));
+    }
+
+    @Test
+    public void shouldNotCreateReservationIfTimeSlotIsTaken() {
+        ReservationRegisterDTO newReservation = new ReservationRegisterDTO(
+                1,
+                LocalDateTime.now(),
+                2
+        );
+
+        Table table = new Table();
+        table.setNumber(1);
+        table.setCapacity(2);
+        table.setStatus(TableStatus.AVAILABLE);
+
+        User user = new User();
+        user.setEmail("test@email.com");
+
+        when(tableCatalog.findByNumber(eq(RESTAURANT_ID), anyInt())).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(tableRepository.getReferenceById(any())).thenReturn(table);
+        when(principalCache.find(anyString())).thenReturn(Optional.of(user));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.isFree(any(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(false);
+        when(reservationRepository.existsOverlapping(any(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.createReservation(RESTAURANT_ID, newReservation, user.getEmail());
+        });
+        assertEquals("Table is unavailable", exception.getMessage());
+        assertEquals(HttpStatus.CONFLICT, exception.getErrorStatus());
+        verify(tableRepository, never()).save(any(Table.class));
+        verify(reservationRepository, never()).saveAndFlush(any(Reservation.class));
+        verify(occupancyService, never()).recordCreated(any(Reservation.class));
+    }
+
+    @Test
+    public void shouldCreateReservationIfIndexIsStale() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+        Table table = new Table(UUID.randomUUID(), RESTAURANT_ID, 1, 2, TableStatus.AVAILABLE);
+
+        User user = new User();
+        user.setEmail("test@email.com");
+
+        when(tableCatalog.findByNumber(RESTAURANT_ID, 1)).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(tableRepository.getReferenceById(table.getId())).thenReturn(table);
+        when(principalCache.find(anyString())).thenReturn(Optional.of(user));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.isFree(table.getId(), start, start.plusHours(2))).thenReturn(false);
+        when(reservationRepository.existsOverlapping(table.getId(), start, start.plusHours(2))).thenReturn(false);
+
+        ReservationResponseDTO response = reservationService.createReservation(RESTAURANT_ID, new ReservationRegisterDTO(1, start, 2), user.getEmail());
+
+        assertEquals(table.getId(), response.tableId());
+        verify(reservationRepository, times(1)).saveAndFlush(any(Reservation.class));
+        verify(availabilityIndex, times(1)).reserve(eq(table.getId()), any(), eq(start), eq(start.plusHours(2)));
     }
 
     @Test
@@ -95,15 +194,15 @@ public class ReservationServiceTest {
 
         String email = "test@email.com";
 
-        when(tableRepository.findByNumber(anyInt())).thenReturn(Optional.empty());
+        when(tableCatalog.findByNumber(eq(RESTAURANT_ID), anyInt())).thenReturn(Optional.empty());
 
         ApiException exception = assertThrows(ApiException.class, () -> {
-            reservationService.createReservation(newReservation, email);
+            reservationService.createReservation(RESTAURANT_ID, newReservation, email);
         });
         assertEquals("Table does not exist", exception.getMessage());
         assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
-        verify(tableRepository, times(1)).findByNumber(anyInt());
-        verify(userRepository, never()).findByEmail(anyString());
+        verify(tableCatalog, times(1)).findByNumber(eq(RESTAURANT_ID), anyInt());
+        verify(principalCache, never()).find(anyString());
         verify(tableRepository, never()).save(any(Table.class));
         verify(reservationRepository, never()).save(any(Reservation.class));
     }
@@ -123,15 +222,15 @@ public class ReservationServiceTest {
         table.setCapacity(2);
         table.setStatus(TableStatus.UNAVAILABLE);
 
-        when(tableRepository.findByNumber(anyInt())).thenReturn(Optional.of(table));
+        when(tableCatalog.findByNumber(eq(RESTAURANT_ID), anyInt())).thenReturn(Optional.of(TableResponseDTO.from(table)));
 
         ApiException exception = assertThrows(ApiException.class, () -> {
-            reservationService.createReservation(newReservation, email);
+            reservationService.createReservation(RESTAURANT_ID, newReservation, email);
         });
         assertEquals("Table is unavailable", exception.getMessage());
         assertEquals(HttpStatus.CONFLICT, exception.getErrorStatus());
-        verify(tableRepository, times(1)).findByNumber(anyInt());
-        verify(userRepository, never()).findByEmail(anyString());
+        verify(tableCatalog, times(1)).findByNumber(eq(RESTAURANT_ID), anyInt());
+        verify(principalCache, never()).find(anyString());
         verify(tableRepository, never()).save(any(Table.class));
         verify(reservationRepository, never()).save(any(Reservation.class));
     }
@@ -151,15 +250,15 @@ public class ReservationServiceTest {
         table.setCapacity(2);
         table.setStatus(TableStatus.AVAILABLE);
 
-        when(tableRepository.findByNumber(anyInt())).thenReturn(Optional.of(table));
+        when(tableCatalog.findByNumber(eq(RESTAURANT_ID), anyInt())).thenReturn(Optional.of(TableResponseDTO.from(table)));
 
         ApiException exception = assertThrows(ApiException.class, () -> {
-            reservationService.createReservation(newReservation, email);
+            reservationService.createReservation(RESTAURANT_ID, newReservation, email);
         });
         assertEquals("Amount of people exceeded", exception.getMessage());
         assertEquals(HttpStatus.BAD_REQUEST, exception.getErrorStatus());
-        verify(tableRepository, times(1)).findByNumber(anyInt());
-        verify(userRepository, never()).findByEmail(anyString());
+        verify(tableCatalog, times(1)).findByNumber(eq(RESTAURANT_ID), anyInt());
+        verify(principalCache, never()).find(anyString());
         verify(tableRepository, never()).save(any(Table.class));
         verify(reservationRepository, never()).save(any(Reservation.class));
     }
@@ -179,69 +278,219 @@ public class ReservationServiceTest {
         table.setCapacity(2);
         table.setStatus(TableStatus.AVAILABLE);
 
-        when(tableRepository.findByNumber(anyInt())).thenReturn(Optional.of(table));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(tableCatalog.findByNumber(eq(RESTAURANT_ID), anyInt())).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(principalCache.find(anyString())).thenReturn(Optional.empty());
 
         ApiException exception = assertThrows(ApiException.class, () -> {
-            reservationService.createReservation(newReservation, email);
+            reservationService.createReservation(RESTAURANT_ID, newReservation, email);
         });
         assertEquals("User not found", exception.getMessage());
         assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
-        verify(tableRepository, times(1)).findByNumber(anyInt());
-        verify(userRepository, times(1)).findByEmail(anyString());
+        verify(tableCatalog, times(1)).findByNumber(eq(RESTAURANT_ID), anyInt());
+        verify(principalCache, times(1)).find(anyString());
         verify(tableRepository, never()).save(any(Table.class));
         verify(reservationRepository, never()).save(any(Reservation.class));
     }
 
     @Test
-    public void shouldGetAllUsersReservations() {
-        String email = "test@email.com";
+    public void shouldCreateReservationBatchWithoutTableQueries() {
+        LocalDateTime dateTime = LocalDateTime.now();
+        List<ReservationRegisterDTO> batch = List.of(
+                new ReservationRegisterDTO(1, dateTime, 2),
+                new ReservationRegisterDTO(2, dateTime, 4)
+        );
+
+        Table first = new Table(UUID.randomUUID(), RESTAURANT_ID, 1, 2, TableStatus.AVAILABLE);
+        Table second = new Table(UUID.randomUUID(), RESTAURANT_ID, 2, 4, TableStatus.AVAILABLE);
 
         User user = new User();
-        user.setName("name");
         user.setEmail("test@email.com");
-        user.setPassword("password");
-        user.setRole(UserRole.USER);
 
-        Table table = new Table();
-        table.setNumber(1);
-        table.setCapacity(2);
-        table.setStatus(TableStatus.AVAILABLE);
+        when(tableCatalog.findByNumber(RESTAURANT_ID, 1)).thenReturn(Optional.of(TableResponseDTO.from(first)));
+        when(tableCatalog.findByNumber(RESTAURANT_ID, 2)).thenReturn(Optional.of(TableResponseDTO.from(second)));
+        when(tableRepository.getReferenceById(first.getId())).thenReturn(first);
+        when(tableRepository.getReferenceById(second.getId())).thenReturn(second);
+        when(principalCache.find(anyString())).thenReturn(Optional.of(user));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.isFree(any(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+
+        List<ReservationResponseDTO> response = reservationService.createReservations(RESTAURANT_ID, batch, user.getEmail());
+
+        assertEquals(2, response.size());
+        assertEquals(first.getId(), response.get(0).tableId());
+        assertEquals(second.getId(), response.get(1).tableId());
+        verify(tableRepository, never()).findAll();
+        verify(tableRepository, never()).findById(any());
+        verify(principalCache, times(1)).find(anyString());
+        verify(reservationRepository, times(1)).saveAllAndFlush(anyList());
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
 
-        Reservation reservation = new Reservation();
-        reservation.setUser(user);
-        reservation.setTable(table);
-        reservation.setReservation_date_time(LocalDateTime.now());
-        reservation.setNumber_of_people(2);
-        reservation.setStatus(ReservationStatus.ACTIVE);
+    @Test
+    public void shouldNotCreateReservationBatchIfAnyTableDoesNotExist() {
+        LocalDateTime dateTime = LocalDateTime.now();
+        List<ReservationRegisterDTO> batch = List.of(
+                new ReservationRegisterDTO(1, dateTime, 2),
+                new ReservationRegisterDTO(9, dateTime, 2)
+        );
+
+        Table first = new Table(UUID.randomUUID(), RESTAURANT_ID, 1, 2, TableStatus.AVAILABLE);
 
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
-        when(reservationRepository.findAllByUser(any(User.class))).thenReturn(List.of(reservation));
+        when(tableCatalog.findByNumber(RESTAURANT_ID, 1)).thenReturn(Optional.of(TableResponseDTO.from(first)));
+        when(tableCatalog.findByNumber(RESTAURANT_ID, 9)).thenReturn(Optional.empty());
+        when(tableRepository.getReferenceById(first.getId())).thenReturn(first);
 
-        List<ReservationResponseDTO> response = reservationService.getAllReservations(email);
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.createReservations(RESTAURANT_ID, batch, "test@email.com");
+        });
+        assertEquals("Table does not exist", exception.getMessage());
+        assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
+        verify(principalCache, never()).find(anyString());
+        verify(reservationRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void shouldNotCreateEmptyReservationBatch() {
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.createReservations(RESTAURANT_ID, List.of(), "test@email.com");
+        });
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getErrorStatus());
+        verifyNoInteractions(tableRepository, reservationRepository);
+    }
+
+    @Test
+    public void shouldGetAllUsersReservations() {
+        String email = "test@email.com";
+        UUID userId = UUID.randomUUID();
+        UUID tableId = UUID.randomUUID();
+        LocalDateTime dateTime = LocalDateTime.now();
+
+        ReservationResponseDTO reservation = new ReservationResponseDTO(
+                UUID.randomUUID(),
+                userId,
+                tableId,
+                dateTime,
+                2,
+                ReservationStatus.ACTIVE
+        );
+
+        when(userRepository.findIdByEmail(anyString())).thenReturn(Optional.of(userId));
+        when(reservationRepository.findPageByUser(userId, Limit.of(21))).thenReturn(List.of(reservation));
+
+        ReservationPageDTO response = reservationService.getAllReservations(email, null, 20);
         assertNotNull(response);
-        assertEquals(user.getId(), response.get(0).userId());
-        assertEquals(table.getId(), response.get(0).tableId());
-        assertEquals(reservation.getReservation_date_time(), response.get(0).dateTime());
-        assertEquals(2, response.get(0).people());
-        assertEquals(ReservationStatus.ACTIVE, response.get(0).status());
-        verify(userRepository, times(1)).findByEmail(anyString());
-        verify(reservationRepository, times(1)).findAllByUser(any(User.class));
+        assertNull(response.nextCursor());
+        assertEquals(userId, response.content().get(0).userId());
+        assertEquals(tableId, response.content().get(0).tableId());
+        assertEquals(dateTime, response.content().get(0).dateTime());
+        assertEquals(2, response.content().get(0).people());
+        assertEquals(ReservationStatus.ACTIVE, response.content().get(0).status());
+        verify(userRepository, times(1)).findIdByEmail(anyString());
+        verify(reservationRepository, times(1)).findPageByUser(any(UUID.class), any(Limit.class));
+    }
+
+    @Test
+    public void shouldContinueReservationsFromCursor() {
+        UUID userId = UUID.randomUUID();
+
+        LocalDateTime dateTime = LocalDateTime.of(2025, 8, 1, 19, 30);
+        List<ReservationResponseDTO> reservations = new ArrayList<>();
+        for(int i = 0; i < 3; i++) {
+            reservations.add(new ReservationResponseDTO(
+                    UUID.randomUUID(),
+                    userId,
+                    UUID.randomUUID(),
+                    dateTime.plusDays(i),
+                    2,
+                    ReservationStatus.ACTIVE
+            ));
+        }
+
+        when(userRepository.findIdByEmail(anyString())).thenReturn(Optional.of(userId));
+        when(reservationRepository.findPageByUser(userId, Limit.of(3))).thenReturn(reservations);
+
+        ReservationPageDTO firstPage = reservationService.getAllReservations("test@email.com", null, 2);
+
+        assertEquals(2, firstPage.content().size());
+        assertNotNull(firstPage.nextCursor());
+
+        when(reservationRepository.findPageByUserAfter(any(UUID.class), any(LocalDateTime.class), any(UUID.class), eq(Limit.of(3))))
+                .thenReturn(reservations.subList(2, 3));
+
+        ReservationPageDTO secondPage = reservationService.getAllReservations("test@email.com", firstPage.nextCursor(), 2);
+
+        assertEquals(1, secondPage.content().size());
+        assertNull(secondPage.nextCursor());
+        verify(reservationRepository, times(1)).findPageByUserAfter(userId, reservations.get(1).dateTime(), reservations.get(1).id(), Limit.of(3));
+    }
+
+    @Test
+    public void shouldGetArchivedReservationsBeforeLiveOnes() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime archivedUntil = LocalDateTime.of(2024, 9, 1, 0, 0);
+        ReservationResponseDTO archived = new ReservationResponseDTO(UUID.randomUUID(), userId, UUID.randomUUID(), archivedUntil.minusDays(3), 2, ReservationStatus.COMPLETED);
+        ReservationResponseDTO live = new ReservationResponseDTO(UUID.randomUUID(), userId, UUID.randomUUID(), archivedUntil.plusDays(3), 4, ReservationStatus.ACTIVE);
+
+        when(userRepository.findIdByEmail(anyString())).thenReturn(Optional.of(userId));
+        when(reservationArchive.getArchivedUntil()).thenReturn(Optional.of(archivedUntil));
+        when(reservationArchive.findPageByUser(userId, null, null, 3)).thenReturn(List.of(archived));
+        when(reservationRepository.findPageByUserAfter(userId, archivedUntil, new UUID(0L, 0L), Limit.of(2))).thenReturn(List.of(live));
+
+        ReservationPageDTO response = reservationService.getAllReservations("test@email.com", null, 2);
+
+        assertEquals(List.of(archived, live), response.content());
+        assertNull(response.nextCursor());
+        verify(reservationRepository, never()).findPageByUser(any(UUID.class), any(Limit.class));
+    }
+
+    @Test
+    public void shouldNotReadArchiveIfCursorIsPastIt() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime archivedUntil = LocalDateTime.of(2024, 9, 1, 0, 0);
+        List<ReservationResponseDTO> reservations = new ArrayList<>();
+        for(int i = 0; i < 2; i++) {
+            reservations.add(new ReservationResponseDTO(UUID.randomUUID(), userId, UUID.randomUUID(), archivedUntil.plusDays(i + 1), 2, ReservationStatus.ACTIVE));
+        }
+
+        when(userRepository.findIdByEmail(anyString())).thenReturn(Optional.of(userId));
+        when(reservationArchive.getArchivedUntil()).thenReturn(Optional.of(archivedUntil));
+        when(reservationArchive.findPageByUser(userId, null, null, 2)).thenReturn(List.of());
+        when(reservationRepository.findPageByUserAfter(userId, archivedUntil, new UUID(0L, 0L), Limit.of(2))).thenReturn(reservations);
+
+        ReservationPageDTO firstPage = reservationService.getAllReservations("test@email.com", null, 1);
+
+        when(reservationRepository.findPageByUserAfter(userId, reservations.get(0).dateTime(), reservations.get(0).id(), Limit.of(2))).thenReturn(reservations.subList(1, 2));
+
+        ReservationPageDTO secondPage = reservationService.getAllReservations("test@email.com", firstPage.nextCursor(), 1);
+
+        assertEquals(List.of(reservations.get(1)), secondPage.content());
+        verify(reservationArchive, times(1)).findPageByUser(any(UUID.class), any(), any(), anyInt());
+    }
+
+    @Test
+    public void shouldNotGetReservationsIfCursorIsInvalid() {
+        when(userRepository.findIdByEmail(anyString())).thenReturn(Optional.of(UUID.randomUUID()));
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.getAllReservations("test@email.com", "not-a-cursor", 20);
+        });
+        assertEquals("Invalid cursor", exception.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getErrorStatus());
     }
 
     @Test
     public void shouldNotGetReservationsIfUserDoesNotExists() {
         String email = "test@email.com";
 
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findIdByEmail(anyString())).thenReturn(Optional.empty());
 
         ApiException exception = assertThrows(ApiException.class, () -> {
-            reservationService.getAllReservations(email);
+            reservationService.getAllReservations(email, null, 20);
         });
         assertEquals("User not found", exception.getMessage());
         assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
-        verify(userRepository, times(1)).findByEmail(anyString());
-        verify(reservationRepository, never()).findAllByUser(any(User.class));
+        verify(userRepository, times(1)).findIdByEmail(anyString());
+        verify(reservationRepository, never()).findPageByUser(any(UUID.class), any(Limit.class));
     }
 
     @Test
@@ -260,43 +509,440 @@ public class ReservationServiceTest {
         table.setStatus(TableStatus.UNAVAILABLE);
 
         Reservation reservation = new Reservation();
+        reservation.setRestaurantId(RESTAURANT_ID);
         reservation.setUser(user);
         reservation.setTable(table);
-        reservation.setReservation_date_time(LocalDateTime.now());
-        reservation.setNumber_of_people(2);
+        reservation.setId(id);
+        reservation.setReservationDateTime(LocalDateTime.of(2030, 1, 1, 19, 0));
+        reservation.setNumberOfPeople(2);
         reservation.setStatus(ReservationStatus.ACTIVE);
 
-        when(reservationRepository.findById(any(UUID.class))).thenReturn(Optional.of(reservation));
-        when(tableRepository.save(any(Table.class))).thenReturn(table);
-        when(reservationRepository.save(any(Reservation.class))).thenReturn(reservation);
+        when(reservationRepository.findByIdAndReservationDateTime(id, reservation.getReservationDateTime())).thenReturn(Optional.of(reservation));
+        when(reservationRepository.cancel(id, reservation.getReservationDateTime())).thenReturn(1);
 
-        ReservationResponseDTO response = reservationService.patchReservation(id);
+        ReservationResponseDTO response = reservationService.patchReservation(RESTAURANT_ID, id, reservation.getReservationDateTime());
 
         assertNotNull(response);
-        assertEquals(TableStatus.AVAILABLE, table.getStatus());
         assertEquals(user.getId(), response.userId());
         assertEquals(table.getId(), response.tableId());
-        assertEquals(reservation.getReservation_date_time(), response.dateTime());
+        assertEquals(reservation.getReservationDateTime(), response.dateTime());
         assertEquals(2, response.people());
         assertEquals(ReservationStatus.CANCELED, response.status());
-        verify(reservationRepository, times(1)).findById(any(UUID.class));
-        verify(tableRepository, times(1)).save(any(Table.class));
-        verify(reservationRepository, times(1)).save(any(Reservation.class));
+        verify(reservationRepository, times(1)).cancel(id, reservation.getReservationDateTime());
+        verify(reservationRepository, never()).saveAndFlush(any(Reservation.class));
+        verify(availabilityIndex, times(1)).release(table.getId(), reservation.getId(), reservation.getReservationDateTime());
+        verify(clusterNotifier, times(1)).publish(new ClusterEvent.SlotReleased(RESTAURANT_ID, table.getId(), reservation.getId(), reservation.getReservationDateTime()));
+        verify(tableEventBroadcaster, times(1)).publish(RESTAURANT_ID, TableEventDTO.bookings(table.getId()));
+        verify(occupancyService, times(1)).recordCanceled(reservation);
     }
 
     @Test
     public void shouldNotCancelReservationIfDoesNotExists() {
         UUID id = UUID.randomUUID();
 
-        when(reservationRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+        when(reservationRepository.findByIdAndReservationDateTime(any(UUID.class), any(LocalDateTime.class))).thenReturn(Optional.empty());
 
         ApiException exception = assertThrows(ApiException.class, () -> {
-            reservationService.patchReservation(id);
+            reservationService.patchReservation(RESTAURANT_ID, id, LocalDateTime.now());
         });
         assertEquals("Reservation not found", exception.getMessage());
         assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
-        verify(reservationRepository, times(1)).findById(any(UUID.class));
+        verify(reservationRepository, times(1)).findByIdAndReservationDateTime(any(UUID.class), any(LocalDateTime.class));
         verify(tableRepository, never()).save(any(Table.class));
         verify(reservationRepository, never()).save(any(Reservation.class));
     }
+
+    @Test
+    public void shouldNotCancelReservationOfAnotherRestaurant() {
+        Reservation reservation = new Reservation();
+        reservation.setRestaurantId(UUID.randomUUID());
+        reservation.setStatus(ReservationStatus.ACTIVE);
+
+        when(reservationRepository.findByIdAndReservationDateTime(any(UUID.class), any(LocalDateTime.class))).thenReturn(Optional.of(reservation));
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.patchReservation(RESTAURANT_ID, UUID.randomUUID(), LocalDateTime.now());
+        });
+        assertEquals("Reservation not found", exception.getMessage());
+        assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
+        verify(reservationRepository, never()).cancel(any(), any());
+        verify(availabilityIndex, never()).release(any(), any(), any());
+    }
+
+    @Test
+    public void shouldNotCancelReservationIfIsNotActive() {
+        Reservation reservation = new Reservation();
+        reservation.setRestaurantId(RESTAURANT_ID);
+        reservation.setStatus(ReservationStatus.COMPLETED);
+
+        when(reservationRepository.findByIdAndReservationDateTime(any(UUID.class), any(LocalDateTime.class))).thenReturn(Optional.of(reservation));
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.patchReservation(RESTAURANT_ID, UUID.randomUUID(), LocalDateTime.now());
+        });
+        assertEquals("Reservation is not active", exception.getMessage());
+        assertEquals(HttpStatus.CONFLICT, exception.getErrorStatus());
+        verify(reservationRepository, never()).cancel(any(), any());
+        verify(availabilityIndex, never()).release(any(), any(), any());
+    }
+
+    @Test
+    public void shouldNotCancelReservationCanceledConcurrently() {
+        Reservation reservation = new Reservation();
+        reservation.setId(UUID.randomUUID());
+        reservation.setRestaurantId(RESTAURANT_ID);
+        reservation.setReservationDateTime(LocalDateTime.of(2030, 1, 1, 19, 0));
+        reservation.setStatus(ReservationStatus.ACTIVE);
+
+        when(reservationRepository.findByIdAndReservationDateTime(reservation.getId(), reservation.getReservationDateTime())).thenReturn(Optional.of(reservation));
+        when(reservationRepository.cancel(reservation.getId(), reservation.getReservationDateTime())).thenReturn(0);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.patchReservation(RESTAURANT_ID, reservation.getId(), reservation.getReservationDateTime());
+        });
+        assertEquals("Reservation is not active", exception.getMessage());
+        assertEquals(HttpStatus.CONFLICT, exception.getErrorStatus());
+        verify(occupancyService, never()).recordCanceled(any());
+        verify(availabilityIndex, never()).release(any(), any(), any());
+    }
+
+    @Test
+    public void shouldPromoteWaitlistedEntryWhenReservationIsCanceled() {
+        Table table = new Table();
+        table.setId(UUID.randomUUID());
+        table.setNumber(1);
+        table.setCapacity(4);
+        table.setStatus(TableStatus.AVAILABLE);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+        Reservation reservation = new Reservation();
+        reservation.setRestaurantId(RESTAURANT_ID);
+        reservation.setId(UUID.randomUUID());
+        reservation.setUser(new User());
+        reservation.setTable(table);
+        reservation.setReservationDateTime(start);
+        reservation.setReservationEnd(start.plusHours(2));
+        reservation.setNumberOfPeople(2);
+        reservation.setStatus(ReservationStatus.ACTIVE);
+
+        User waitingUser = new User();
+        waitingUser.setId(UUID.randomUUID());
+        WaitlistEntry entry = new WaitlistEntry(UUID.randomUUID(), 1, RESTAURANT_ID, table.getId(), waitingUser.getId(), start, 3);
+
+        when(reservationRepository.findByIdAndReservationDateTime(reservation.getId(), start)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.cancel(reservation.getId(), start)).thenReturn(1);
+        when(tableCatalog.findById(RESTAURANT_ID, table.getId())).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(tableRepository.getReferenceById(table.getId())).thenReturn(table);
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(waitlistEntryRepository.findCandidates(table.getId(), start.minusHours(2), start.plusHours(2))).thenReturn(List.of(entry));
+        when(waitlistEntryRepository.deleteEntry(entry.getId())).thenReturn(1);
+        when(userRepository.getReferenceById(waitingUser.getId())).thenReturn(waitingUser);
+        when(reservationRepository.tryLockTable(table.getId())).thenReturn(true);
+        when(reservationRepository.existsOverlapping(table.getId(), start, start.plusHours(2))).thenReturn(false);
+
+        reservationService.patchReservation(RESTAURANT_ID, reservation.getId(), start);
+
+        ArgumentCaptor<Reservation> captor = ArgumentCaptor.forClass(Reservation.class);
+        verify(reservationRepository, times(1)).saveAndFlush(captor.capture());
+        assertEquals(waitingUser, captor.getValue().getUser());
+        assertEquals(RESTAURANT_ID, captor.getValue().getRestaurantId());
+        assertEquals(3, captor.getValue().getNumberOfPeople());
+        assertEquals(ReservationStatus.ACTIVE, captor.getValue().getStatus());
+        verify(availabilityIndex, times(1)).release(table.getId(), reservation.getId(), start);
+        verify(availabilityIndex, times(1)).reserve(eq(table.getId()), any(), eq(start), eq(start.plusHours(2)));
+    }
+
+    @Test
+    public void shouldNotPromoteWaitlistedEntryIfSlotIsTakenInDatabase() {
+        Table table = new Table(UUID.randomUUID(), RESTAURANT_ID, 1, 4, TableStatus.AVAILABLE);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+        Reservation reservation = new Reservation();
+        reservation.setRestaurantId(RESTAURANT_ID);
+        reservation.setId(UUID.randomUUID());
+        reservation.setUser(new User());
+        reservation.setTable(table);
+        reservation.setReservationDateTime(start);
+        reservation.setReservationEnd(start.plusHours(2));
+        reservation.setStatus(ReservationStatus.ACTIVE);
+
+        WaitlistEntry entry = new WaitlistEntry(UUID.randomUUID(), 1, RESTAURANT_ID, table.getId(), UUID.randomUUID(), start.plusHours(1), 2);
+
+        when(reservationRepository.findByIdAndReservationDateTime(reservation.getId(), start)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.cancel(reservation.getId(), start)).thenReturn(1);
+        when(tableCatalog.findById(RESTAURANT_ID, table.getId())).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(waitlistEntryRepository.findCandidates(any(), any(), any())).thenReturn(List.of(entry));
+        when(reservationRepository.tryLockTable(table.getId())).thenReturn(true);
+        when(reservationRepository.existsOverlapping(table.getId(), start.plusHours(1), start.plusHours(3))).thenReturn(true);
+
+        reservationService.patchReservation(RESTAURANT_ID, reservation.getId(), start);
+
+        verify(waitlistEntryRepository, never()).deleteEntry(any());
+        verify(reservationRepository, never()).saveAndFlush(any(Reservation.class));
+        verify(availabilityIndex, never()).reserve(any(), any(), any(), any());
+    }
+
+    @Test
+    public void shouldLeaveWaitlistedEntryToSweeperIfTableIsLocked() {
+        Table table = new Table(UUID.randomUUID(), RESTAURANT_ID, 1, 4, TableStatus.AVAILABLE);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+        WaitlistEntry entry = new WaitlistEntry(UUID.randomUUID(), 1, RESTAURANT_ID, table.getId(), UUID.randomUUID(), start, 2);
+
+        when(tableCatalog.findById(RESTAURANT_ID, table.getId())).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(waitlistEntryRepository.findCandidates(table.getId(), start.minusHours(1), start.plusHours(1))).thenReturn(List.of(entry));
+        when(reservationRepository.tryLockTable(table.getId())).thenReturn(false);
+
+        assertEquals(0, reservationService.promoteWaitlist(RESTAURANT_ID, table.getId(), start.minusHours(1), start.plusHours(1)));
+
+        verify(waitlistEntryRepository, never()).deleteEntry(any());
+        verify(reservationRepository, never()).saveAndFlush(any(Reservation.class));
+    }
+
+    @Test
+    public void shouldKeepWaitlistedEntryIfPartyDoesNotFit() {
+        Table table = new Table();
+        table.setId(UUID.randomUUID());
+        table.setCapacity(2);
+        table.setStatus(TableStatus.AVAILABLE);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+        Reservation reservation = new Reservation();
+        reservation.setRestaurantId(RESTAURANT_ID);
+        reservation.setId(UUID.randomUUID());
+        reservation.setUser(new User());
+        reservation.setTable(table);
+        reservation.setReservationDateTime(start);
+        reservation.setReservationEnd(start.plusHours(2));
+        reservation.setStatus(ReservationStatus.ACTIVE);
+
+        WaitlistEntry entry = new WaitlistEntry(UUID.randomUUID(), 1, RESTAURANT_ID, table.getId(), UUID.randomUUID(), start, 6);
+
+        when(reservationRepository.findByIdAndReservationDateTime(reservation.getId(), start)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.cancel(reservation.getId(), start)).thenReturn(1);
+        when(tableCatalog.findById(RESTAURANT_ID, table.getId())).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(waitlistEntryRepository.findCandidates(any(), any(), any())).thenReturn(List.of(entry));
+        when(reservationRepository.tryLockTable(table.getId())).thenReturn(true);
+
+        reservationService.patchReservation(RESTAURANT_ID, reservation.getId(), start);
+
+        verify(waitlistEntryRepository, never()).deleteEntry(any());
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    public void shouldPromoteLaterWaitlistedEntryIfEarlierOneDoesNotFit() {
+        Table table = new Table(UUID.randomUUID(), RESTAURANT_ID, 1, 2, TableStatus.AVAILABLE);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+        Reservation reservation = new Reservation();
+        reservation.setRestaurantId(RESTAURANT_ID);
+        reservation.setId(UUID.randomUUID());
+        reservation.setUser(new User());
+        reservation.setTable(table);
+        reservation.setReservationDateTime(start);
+        reservation.setReservationEnd(start.plusHours(2));
+        reservation.setStatus(ReservationStatus.ACTIVE);
+
+        User waitingUser = new User();
+        waitingUser.setId(UUID.randomUUID());
+        WaitlistEntry family = new WaitlistEntry(UUID.randomUUID(), 1, RESTAURANT_ID, table.getId(), UUID.randomUUID(), start, 6);
+        WaitlistEntry couple = new WaitlistEntry(UUID.randomUUID(), 2, RESTAURANT_ID, table.getId(), waitingUser.getId(), start, 2);
+
+        when(reservationRepository.findByIdAndReservationDateTime(reservation.getId(), start)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.cancel(reservation.getId(), start)).thenReturn(1);
+        when(tableCatalog.findById(RESTAURANT_ID, table.getId())).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(tableRepository.getReferenceById(table.getId())).thenReturn(table);
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(waitlistEntryRepository.findCandidates(any(), any(), any())).thenReturn(List.of(family, couple));
+        when(waitlistEntryRepository.deleteEntry(couple.getId())).thenReturn(1);
+        when(userRepository.getReferenceById(waitingUser.getId())).thenReturn(waitingUser);
+        when(reservationRepository.tryLockTable(table.getId())).thenReturn(true);
+
+        reservationService.patchReservation(RESTAURANT_ID, reservation.getId(), start);
+
+        ArgumentCaptor<Reservation> captor = ArgumentCaptor.forClass(Reservation.class);
+        verify(reservationRepository, times(1)).saveAndFlush(captor.capture());
+        assertEquals(waitingUser, captor.getValue().getUser());
+        assertEquals(2, captor.getValue().getNumberOfPeople());
+        verify(waitlistEntryRepository, never()).deleteEntry(family.getId());
+    }
+
+    @Test
+    public void shouldJoinWaitlistWhenSlotIsTaken() {
+        Table table = new Table();
+        table.setId(UUID.randomUUID());
+        table.setNumber(1);
+        table.setCapacity(4);
+        table.setStatus(TableStatus.AVAILABLE);
+
+        UUID userId = UUID.randomUUID();
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+        ReservationRegisterDTO data = new ReservationRegisterDTO(1, start, 2);
+
+        when(tableCatalog.findByNumber(RESTAURANT_ID, 1)).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(userRepository.findIdByEmail("test@email.com")).thenReturn(Optional.of(userId));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.isFree(table.getId(), start, start.plusHours(2))).thenReturn(false);
+        when(waitlistEntryRepository.insert(any(UUID.class), eq(RESTAURANT_ID), eq(table.getId()), eq(userId), eq(start), eq(2))).thenReturn(1);
+        when(waitlistEntryRepository.countAhead(any(UUID.class))).thenReturn(2L);
+
+        WaitlistEntryDTO response = reservationService.joinWaitlist(RESTAURANT_ID, data, "test@email.com");
+
+        assertEquals(1, response.tableNumber());
+        assertEquals(start, response.dateTime());
+        assertEquals(3, response.position());
+        verify(waitlistEntryRepository, times(1)).insert(eq(response.id()), any(), any(), any(), any(), anyInt());
+        verify(waitlistEntryRepository, times(1)).countAhead(response.id());
+    }
+
+    @Test
+    public void shouldNotJoinWaitlistTwiceForTheSameSlot() {
+        Table table = new Table(UUID.randomUUID(), RESTAURANT_ID, 1, 4, TableStatus.AVAILABLE);
+
+        when(tableCatalog.findByNumber(RESTAURANT_ID, 1)).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(userRepository.findIdByEmail(anyString())).thenReturn(Optional.of(UUID.randomUUID()));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.isFree(any(), any(), any())).thenReturn(false);
+        when(waitlistEntryRepository.insert(any(), any(), any(), any(), any(), anyInt())).thenReturn(0);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.joinWaitlist(RESTAURANT_ID, new ReservationRegisterDTO(1, LocalDateTime.now(), 2), "test@email.com");
+        });
+        assertEquals("Already on the waitlist", exception.getMessage());
+        assertEquals(HttpStatus.CONFLICT, exception.getErrorStatus());
+        verify(waitlistEntryRepository, never()).countAhead(any());
+    }
+
+    @Test
+    public void shouldNotJoinWaitlistWhenTableIsAvailable() {
+        Table table = new Table();
+        table.setId(UUID.randomUUID());
+        table.setNumber(1);
+        table.setCapacity(4);
+        table.setStatus(TableStatus.AVAILABLE);
+
+        when(tableCatalog.findByNumber(RESTAURANT_ID, 1)).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(userRepository.findIdByEmail(anyString())).thenReturn(Optional.of(UUID.randomUUID()));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.isFree(any(), any(), any())).thenReturn(true);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.joinWaitlist(RESTAURANT_ID, new ReservationRegisterDTO(1, LocalDateTime.now(), 2), "test@email.com");
+        });
+        assertEquals("Table is available", exception.getMessage());
+        assertEquals(HttpStatus.CONFLICT, exception.getErrorStatus());
+        verify(reservationRepository, times(1)).existsOverlapping(any(), any(), any());
+        verify(waitlistEntryRepository, never()).insert(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    public void shouldJoinWaitlistIfIndexIsStale() {
+        Table table = new Table(UUID.randomUUID(), RESTAURANT_ID, 1, 4, TableStatus.AVAILABLE);
+
+        UUID userId = UUID.randomUUID();
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+
+        when(tableCatalog.findByNumber(RESTAURANT_ID, 1)).thenReturn(Optional.of(TableResponseDTO.from(table)));
+        when(userRepository.findIdByEmail("test@email.com")).thenReturn(Optional.of(userId));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.isFree(table.getId(), start, start.plusHours(2))).thenReturn(true);
+        when(reservationRepository.existsOverlapping(table.getId(), start, start.plusHours(2))).thenReturn(true);
+        when(waitlistEntryRepository.insert(any(UUID.class), eq(RESTAURANT_ID), eq(table.getId()), eq(userId), eq(start), eq(2))).thenReturn(1);
+
+        WaitlistEntryDTO response = reservationService.joinWaitlist(RESTAURANT_ID, new ReservationRegisterDTO(1, start, 2), "test@email.com");
+
+        assertEquals(1, response.position());
+    }
+
+    @Test
+    public void shouldLeaveOwnWaitlistEntry() {
+        UUID id = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        when(waitlistEntryRepository.deleteEntryOfUser(id, userId)).thenReturn(1);
+
+        reservationService.leaveWaitlist(id, userId);
+
+        verify(waitlistEntryRepository, times(1)).deleteEntryOfUser(id, userId);
+    }
+
+    @Test
+    public void shouldNotLeaveWaitlistEntryOfAnotherUser() {
+        UUID id = UUID.randomUUID();
+
+        when(waitlistEntryRepository.deleteEntryOfUser(eq(id), any(UUID.class))).thenReturn(0);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.leaveWaitlist(id, UUID.randomUUID());
+        });
+        assertEquals("Waitlist entry not found", exception.getMessage());
+        assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
+    }
+
+    @Test
+    public void shouldAssignSmallestFreeTable() {
+        User user = new User();
+        user.setEmail("test@email.com");
+
+        Table small = new Table();
+        small.setId(UUID.randomUUID());
+        small.setNumber(3);
+        small.setCapacity(2);
+        small.setStatus(TableStatus.AVAILABLE);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+        TableResponseDTO candidate = new TableResponseDTO(small.getId(), 3, 2, TableStatus.AVAILABLE);
+
+        when(principalCache.find("test@email.com")).thenReturn(Optional.of(user));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.findBestFit(RESTAURANT_ID, start, start.plusHours(2), 2)).thenReturn(List.of(candidate));
+        when(tableRepository.getReferenceById(small.getId())).thenReturn(small);
+        when(reservationRepository.tryLockTable(small.getId())).thenReturn(true);
+
+        ReservationResponseDTO response = reservationService.assignReservation(RESTAURANT_ID, new ReservationAssignDTO(start, 2), "test@email.com");
+
+        assertEquals(small.getId(), response.tableId());
+        assertEquals(start, response.dateTime());
+        verify(reservationRepository, times(1)).saveAndFlush(any(Reservation.class));
+        verify(availabilityIndex, times(1)).reserve(eq(small.getId()), any(), eq(start), eq(start.plusHours(2)));
+    }
+
+    @Test
+    public void shouldAssignNextTableIfBestFitWasTaken() {
+        User user = new User();
+        user.setEmail("test@email.com");
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 19, 0);
+        TableResponseDTO first = new TableResponseDTO(UUID.randomUUID(), 3, 2, TableStatus.AVAILABLE);
+        TableResponseDTO second = new TableResponseDTO(UUID.randomUUID(), 1, 4, TableStatus.AVAILABLE);
+        Table secondTable = new Table(second.id(), RESTAURANT_ID, 1, 4, TableStatus.AVAILABLE);
+
+        when(principalCache.find("test@email.com")).thenReturn(Optional.of(user));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.findBestFit(RESTAURANT_ID, start, start.plusHours(2), 2)).thenReturn(List.of(first, second));
+        when(tableRepository.getReferenceById(second.id())).thenReturn(secondTable);
+        when(reservationRepository.tryLockTable(any())).thenReturn(true);
+        when(reservationRepository.existsOverlapping(first.id(), start, start.plusHours(2))).thenReturn(true);
+
+        ReservationResponseDTO response = reservationService.assignReservation(RESTAURANT_ID, new ReservationAssignDTO(start, 2), "test@email.com");
+
+        assertEquals(second.id(), response.tableId());
+        verify(reservationRepository, times(1)).saveAndFlush(any(Reservation.class));
+    }
+
+    @Test
+    public void shouldNotAssignReservationIfNoTableFits() {
+        when(principalCache.find(anyString())).thenReturn(Optional.of(new User()));
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(availabilityIndex.findBestFit(any(), any(), any(), anyInt())).thenReturn(List.of());
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            reservationService.assignReservation(RESTAURANT_ID, new ReservationAssignDTO(LocalDateTime.now(), 12), "test@email.com");
+        });
+        assertEquals("No table available", exception.getMessage());
+        assertEquals(HttpStatus.CONFLICT, exception.getErrorStatus());
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
 }
@@ -0,0 +1,102 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.infra.availability.AvailabilityIndex;
+import com.eder.reservas.repositories.IdempotencyKeyRepository;
+import com.eder.reservas.repositories.ReservationRepository;
+import com.eder.reservas.repositories.WaitlistEntryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReservationSweeperTest {
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+    @Mock
+    private WaitlistEntryRepository waitlistEntryRepository;
+    @Mock
+    private ReservationService reservationService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReservationSweeper reservationSweeper;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reservationSweeper = new ReservationSweeper(reservationRepository, idempotencyKeyRepository, availabilityIndex, waitlistEntryRepository, reservationService, meterRegistry, 100, Duration.ofDays(1));
+    }
+
+    @Test
+    public void shouldCompleteReservationsInBatchesUntilExhausted() {
+        when(reservationRepository.completeEndedBefore(any(LocalDateTime.class), eq(100))).thenReturn(100, 100, 42);
+
+        reservationSweeper.sweep();
+
+        verify(reservationRepository, times(3)).completeEndedBefore(any(LocalDateTime.class), eq(100));
+        verify(availabilityIndex, times(1)).removeEndedBefore(any(LocalDateTime.class));
+        verify(idempotencyKeyRepository, times(1)).deleteCreatedBefore(any(LocalDateTime.class));
+        verify(waitlistEntryRepository, times(1)).deleteStartingBefore(any(LocalDateTime.class));
+        assertEquals(242, meterRegistry.counter("reservations.sweeper.completed").count());
+        assertEquals(3, meterRegistry.counter("reservations.sweeper.batches").count());
+    }
+
+    @Test
+    public void shouldRunSingleBatchWhenNothingHasEnded() {
+        when(reservationRepository.completeEndedBefore(any(LocalDateTime.class), eq(100))).thenReturn(0);
+
+        reservationSweeper.sweep();
+
+        verify(reservationRepository, times(1)).completeEndedBefore(any(LocalDateTime.class), eq(100));
+        assertEquals(0, meterRegistry.counter("reservations.sweeper.completed").count());
+        assertEquals(1, meterRegistry.timer("reservations.sweeper.runs").count());
+    }
+
+    @Test
+    public void shouldRetryWaitlistPromotionOfEveryWaitlistedTable() {
+        LocalDateTime lastStart = LocalDateTime.of(2030, 1, 1, 19, 0);
+        UUID restaurantId = UUID.randomUUID();
+        UUID failingTableId = UUID.randomUUID();
+        UUID tableId = UUID.randomUUID();
+        List<WaitlistEntryRepository.WaitlistedTable> tables = List.of(
+                waitlistedTable(restaurantId, failingTableId, lastStart),
+                waitlistedTable(restaurantId, tableId, lastStart));
+
+        when(availabilityIndex.getReservationDuration()).thenReturn(Duration.ofHours(2));
+        when(waitlistEntryRepository.findWaitlistedTables(any(LocalDateTime.class))).thenReturn(tables);
+        when(reservationService.promoteWaitlist(eq(restaurantId), eq(failingTableId), any(LocalDateTime.class), eq(lastStart.plusHours(2))))
+                .thenThrow(new IllegalStateException("connection reset"));
+        when(reservationService.promoteWaitlist(eq(restaurantId), eq(tableId), any(LocalDateTime.class), eq(lastStart.plusHours(2))))
+                .thenReturn(1);
+
+        reservationSweeper.sweep();
+
+        verify(reservationService, times(1)).promoteWaitlist(eq(restaurantId), eq(tableId), any(LocalDateTime.class), eq(lastStart.plusHours(2)));
+        assertEquals(1, meterRegistry.timer("reservations.sweeper.runs").count());
+    }
+
+    private WaitlistEntryRepository.WaitlistedTable waitlistedTable(UUID restaurantId, UUID tableId, LocalDateTime lastStart) {
+        WaitlistEntryRepository.WaitlistedTable table = mock(WaitlistEntryRepository.WaitlistedTable.class);
+
+        when(table.getRestaurantId()).thenReturn(restaurantId);
+        when(table.getTableId()).thenReturn(tableId);
+        when(table.getLastStart()).thenReturn(lastStart);
+        return table;
+    }
+}
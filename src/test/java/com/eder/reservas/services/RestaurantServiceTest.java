@@ -0,0 +1,58 @@
+package com.eder.reservas.services;
+
+import com.eder.reservas.domain.restaurant.Restaurant;
+import com.eder.reservas.domain.restaurant.RestaurantMember;
+import com.eder.reservas.domain.user.User;
+import com.eder.reservas.dtos.restaurant.RestaurantRegisterDTO;
+import com.eder.reservas.dtos.restaurant.RestaurantResponseDTO;
+import com.eder.reservas.repositories.RestaurantMemberRepository;
+import com.eder.reservas.repositories.RestaurantRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RestaurantServiceTest {
+    @Mock
+    private RestaurantRepository restaurantRepository;
+    @Mock
+    private RestaurantMemberRepository restaurantMemberRepository;
+    @InjectMocks
+    private RestaurantService restaurantService;
+
+    @Test
+    public void shouldCreateRestaurantAndAddOwnerAsMember() {
+        UUID id = UUID.randomUUID();
+        User owner = new User();
+        owner.setId(UUID.randomUUID());
+
+        when(restaurantRepository.save(any(Restaurant.class))).thenReturn(new Restaurant(id, "Centro"));
+
+        RestaurantResponseDTO response = restaurantService.createRestaurant(new RestaurantRegisterDTO("Centro"), owner);
+
+        assertEquals(id, response.id());
+        assertEquals("Centro", response.name());
+        verify(restaurantRepository, times(1)).save(argThat(r -> r.getId() == null && r.getName().equals("Centro")));
+        verify(restaurantMemberRepository, times(1)).save(argThat((RestaurantMember m) -> m.getUserId().equals(owner.getId()) && m.getRestaurantId().equals(id)));
+    }
+
+    @Test
+    public void shouldGetAllRestaurantsSortedByName() {
+        Restaurant restaurant = new Restaurant(Restaurant.DEFAULT_ID, "Default");
+
+        when(restaurantRepository.findAll(Sort.by("name"))).thenReturn(List.of(restaurant));
+
+        List<RestaurantResponseDTO> response = restaurantService.getAllRestaurants();
+
+        assertEquals(List.of(RestaurantResponseDTO.from(restaurant)), response);
+    }
+}
@@ -1,11 +1,20 @@
 package com.eder.reservas.services;
 
 import com.eder.reservas.domain.table.Table;
+import com.eder.reservas.domain.table.TableEventType;
 import com.eder.reservas.domain.table.TableStatus;
+import com.eder.reservas.dtos.table.TableEventDTO;
+import com.eder.reservas.dtos.table.TableImportDTO;
 import com.eder.reservas.dtos.table.TablePatchDTO;
 import com.eder.reservas.dtos.table.TableRegisterDTO;
 import com.eder.reservas.dtos.table.TableResponseDTO;
 import com.eder.reservas.exceptions.ApiException;
+import com.eder.reservas.infra.availability.AvailabilityIndex;
+import com.eder.reservas.infra.catalog.TableCatalog;
+import com.eder.reservas.infra.cluster.ClusterEvent;
+import com.eder.reservas.infra.cluster.ClusterNotifier;
+import com.eder.reservas.infra.events.TableEventBroadcaster;
+import com.eder.reservas.repositories.RestaurantRepository;
 import com.eder.reservas.repositories.TableRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +23,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,28 +34,60 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class TableServiceTest {
+    private static final UUID RESTAURANT_ID = UUID.randomUUID();
+
     @Mock
     private TableRepository tableRepository;
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+    @Mock
+    private TableEventBroadcaster tableEventBroadcaster;
+    @Mock
+    private TableCatalog tableCatalog;
+    @Mock
+    private RestaurantRepository restaurantRepository;
+    @Mock
+    private ClusterNotifier clusterNotifier;
     @InjectMocks
     private TableService tableService;
 
     @Test
-    public void shouldGetAllTables() {
-        Table table = new Table();
-        table.setNumber(1);
-        table.setCapacity(2);
-        table.setStatus(TableStatus.AVAILABLE);
-        List<Table> tables = List.of(table);
+    public void shouldGetAllTablesFromCatalog() {
+        byte[] json = "[]".getBytes();
 
-        when(tableRepository.findAll()).thenReturn(tables);
+        when(tableCatalog.getJson(RESTAURANT_ID)).thenReturn(json);
 
-        List<TableResponseDTO> response = tableService.getAllTables();
+        byte[] response = tableService.getAllTablesJson(RESTAURANT_ID);
 
-        assertNotNull(response);
-        assertEquals(1, response.get(0).number());
-        assertEquals(2, response.get(0).capacity());
-        assertEquals(TableStatus.AVAILABLE, response.get(0).status());
-        verify(tableRepository, times(1)).findAll();
+        assertSame(json, response);
+        verifyNoInteractions(tableRepository);
+    }
+
+    @Test
+    public void shouldGetAvailableTablesFromIndex() {
+        LocalDateTime from = LocalDateTime.now();
+        LocalDateTime to = from.plusHours(2);
+        List<TableResponseDTO> tables = List.of(new TableResponseDTO(UUID.randomUUID(), 1, 4, TableStatus.AVAILABLE));
+
+        when(availabilityIndex.findAvailable(RESTAURANT_ID, from, to, 2)).thenReturn(tables);
+
+        List<TableResponseDTO> response = tableService.getAvailableTables(RESTAURANT_ID, from, to, 2);
+
+        assertEquals(tables, response);
+        verify(availabilityIndex, times(1)).findAvailable(RESTAURANT_ID, from, to, 2);
+        verifyNoInteractions(tableRepository);
+    }
+
+    @Test
+    public void shouldNotGetAvailableTablesIfRangeIsInvalid() {
+        LocalDateTime from = LocalDateTime.now();
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            tableService.getAvailableTables(RESTAURANT_ID, from, from.minusHours(1), 2);
+        });
+        assertEquals("Invalid time range", exception.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getErrorStatus());
+        verifyNoInteractions(availabilityIndex);
     }
 
     @Test
@@ -54,10 +97,11 @@ public class TableServiceTest {
         existingTable.setCapacity(2);
         existingTable.setStatus(TableStatus.AVAILABLE);
 
-        when(tableRepository.findByNumber(anyInt())).thenReturn(Optional.empty());
+        when(restaurantRepository.existsById(RESTAURANT_ID)).thenReturn(true);
+        when(tableCatalog.findByNumber(eq(RESTAURANT_ID), anyInt())).thenReturn(Optional.empty());
         when(tableRepository.save(any(Table.class))).thenReturn(existingTable);
 
-        TableResponseDTO response = tableService.createTable(new TableRegisterDTO(
+        TableResponseDTO response = tableService.createTable(RESTAURANT_ID, new TableRegisterDTO(
                 existingTable.getNumber(),
                 existingTable.getCapacity(),
                 existingTable.getStatus()
@@ -67,8 +111,10 @@ public class TableServiceTest {
         assertEquals(1, response.number());
         assertEquals(2, response.capacity());
         assertEquals(TableStatus.AVAILABLE, response.status());
-        verify(tableRepository, times(1)).findByNumber(anyInt());
+        verify(tableCatalog, times(1)).findByNumber(eq(RESTAURANT_ID), anyInt());
         verify(tableRepository, times(1)).save(any(Table.class));
+        verify(tableCatalog, times(1)).put(RESTAURANT_ID, response);
+        verify(clusterNotifier, times(1)).publish(new ClusterEvent.TablesChanged(RESTAURANT_ID));
     }
 
     @Test
@@ -78,10 +124,11 @@ public class TableServiceTest {
         existingTable.setCapacity(2);
         existingTable.setStatus(TableStatus.AVAILABLE);
 
-        when(tableRepository.findByNumber(anyInt())).thenReturn(Optional.of(existingTable));
+        when(restaurantRepository.existsById(RESTAURANT_ID)).thenReturn(true);
+        when(tableCatalog.findByNumber(eq(RESTAURANT_ID), anyInt())).thenReturn(Optional.of(TableResponseDTO.from(existingTable)));
 
         ApiException exception = assertThrows(ApiException.class, () -> {
-            tableService.createTable(new TableRegisterDTO(
+            tableService.createTable(RESTAURANT_ID, new TableRegisterDTO(
                     existingTable.getNumber(),
                     existingTable.getCapacity(),
                     existingTable.getStatus()
@@ -89,8 +136,88 @@ public class TableServiceTest {
         });
         assertEquals("Table number already used", exception.getMessage());
         assertEquals(HttpStatus.CONFLICT, exception.getErrorStatus());
-        verify(tableRepository, times(1)).findByNumber(anyInt());
+        verify(tableCatalog, times(1)).findByNumber(eq(RESTAURANT_ID), anyInt());
         verify(tableRepository, never()).save(any(Table.class));
+        verify(tableCatalog, never()).put(any(), any());
+    }
+
+    @Test
+    public void shouldNotCreateTableIfRestaurantDoesNotExist() {
+        when(restaurantRepository.existsById(RESTAURANT_ID)).thenReturn(false);
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            tableService.createTable(RESTAURANT_ID, new TableRegisterDTO(1, 2, TableStatus.AVAILABLE));
+        });
+        assertEquals("Restaurant not found", exception.getMessage());
+        assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
+        verifyNoInteractions(tableRepository, tableCatalog);
+    }
+
+    @Test
+    public void shouldImportTablesCheckingNumbersInOneQuery() {
+        String csv = """
+                number,capacity,status
+                1,2,AVAILABLE
+                2, 4, unavailable
+
+                3,6,AVAILABLE
+                """;
+
+        when(restaurantRepository.existsById(RESTAURANT_ID)).thenReturn(true);
+        when(tableRepository.findNumbersIn(RESTAURANT_ID, List.of(1, 2, 3))).thenReturn(List.of());
+
+        TableImportDTO response = tableService.importTables(RESTAURANT_ID, tableService.readImport(new ByteArrayInputStream(csv.getBytes())));
+
+        assertEquals(3, response.imported());
+        verify(tableRepository, times(1)).findNumbersIn(eq(RESTAURANT_ID), anyCollection());
+        verify(tableRepository, times(1)).saveAll(argThat((List<Table> tables) -> tables.size() == 3
+                && tables.stream().allMatch(t -> RESTAURANT_ID.equals(t.getRestaurantId()))
+                && tables.get(1).getCapacity() == 4 && tables.get(1).getStatus() == TableStatus.UNAVAILABLE));
+        verify(availabilityIndex, times(3)).putTable(any(Table.class));
+        verify(tableCatalog, times(1)).putAll(eq(RESTAURANT_ID), argThat(tables -> tables.size() == 3));
+        verify(tableEventBroadcaster, times(1)).resync(RESTAURANT_ID);
+    }
+
+    @Test
+    public void shouldNotImportTablesIfNumbersAreAlreadyUsed() {
+        String csv = "number,capacity,status\n1,2,AVAILABLE\n2,4,AVAILABLE\n";
+
+        List<TableRegisterDTO> data = tableService.readImport(new ByteArrayInputStream(csv.getBytes()));
+
+        when(restaurantRepository.existsById(RESTAURANT_ID)).thenReturn(true);
+        when(tableRepository.findNumbersIn(RESTAURANT_ID, List.of(1, 2))).thenReturn(List.of(2));
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            tableService.importTables(RESTAURANT_ID, data);
+        });
+        assertEquals("Table numbers already used: 2", exception.getMessage());
+        assertEquals(HttpStatus.CONFLICT, exception.getErrorStatus());
+        verify(tableRepository, never()).saveAll(anyList());
+        verify(tableCatalog, never()).putAll(any(), any());
+    }
+
+    @Test
+    public void shouldNotImportTablesIfRowIsInvalid() {
+        String csv = "number,capacity,status\n1,2,AVAILABLE\n2,many,AVAILABLE\n";
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            tableService.readImport(new ByteArrayInputStream(csv.getBytes()));
+        });
+        assertEquals("Invalid table at line 3", exception.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getErrorStatus());
+        verifyNoInteractions(tableRepository, restaurantRepository);
+    }
+
+    @Test
+    public void shouldNotImportTablesIfNumberIsRepeated() {
+        String csv = "number,capacity,status\n1,2,AVAILABLE\n1,4,AVAILABLE\n";
+
+        ApiException exception = assertThrows(ApiException.class, () -> {
+            tableService.readImport(new ByteArrayInputStream(csv.getBytes()));
+        });
+        assertEquals("Duplicate table number 1 at line 3", exception.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getErrorStatus());
+        verifyNoInteractions(tableRepository, restaurantRepository);
     }
 
     @Test
@@ -107,17 +234,19 @@ public class TableServiceTest {
         existingTable.setCapacity(2);
         existingTable.setStatus(TableStatus.AVAILABLE);
 
-        when(tableRepository.findById(any(UUID.class))).thenReturn(Optional.of(existingTable));
+        when(tableRepository.findByIdAndRestaurantId(any(UUID.class), eq(RESTAURANT_ID))).thenReturn(Optional.of(existingTable));
         when(tableRepository.save(any(Table.class))).thenReturn(existingTable);
 
-        TableResponseDTO response = tableService.patchTable(id, data);
+        TableResponseDTO response = tableService.patchTable(RESTAURANT_ID, id, data);
 
         assertNotNull(response);
         assertEquals(4, response.capacity());
         assertEquals(1, response.number());
         assertEquals(TableStatus.AVAILABLE, response.status());
-        verify(tableRepository, times(1)).findById(any(UUID.class));
+        verify(tableRepository, times(1)).findByIdAndRestaurantId(any(UUID.class), eq(RESTAURANT_ID));
         verify(tableRepository, times(1)).save(any(Table.class));
+        verify(tableEventBroadcaster, times(1)).publish(eq(RESTAURANT_ID), argThat(e -> e.type() == TableEventType.UPDATED && e.capacity() == 4));
+        verify(tableCatalog, times(1)).put(RESTAURANT_ID, response);
     }
 
     @Test
@@ -129,40 +258,45 @@ public class TableServiceTest {
                 Optional.empty()
         );
 
-        when(tableRepository.findById(id)).thenReturn(Optional.empty());
+        when(tableRepository.findByIdAndRestaurantId(id, RESTAURANT_ID)).thenReturn(Optional.empty());
 
         ApiException exception = assertThrows(ApiException.class, () -> {
-            tableService.patchTable(id, data);
+            tableService.patchTable(RESTAURANT_ID, id, data);
         });
         assertEquals("Table does not exist", exception.getMessage());
         assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
-        verify(tableRepository,times(1)).findById(any(UUID.class));
+        verify(tableRepository,times(1)).findByIdAndRestaurantId(any(UUID.class), eq(RESTAURANT_ID));
         verify(tableRepository, never()).save(any(Table.class));
+        verify(tableCatalog, never()).put(any(), any());
+        verify(tableEventBroadcaster, never()).publish(any(), any());
     }
 
     @Test
     public void shouldDeleteTableIfExists(){
         UUID id = UUID.randomUUID();
 
-        when(tableRepository.existsById(any(UUID.class))).thenReturn(true);
+        when(tableRepository.existsByIdAndRestaurantId(any(UUID.class), eq(RESTAURANT_ID))).thenReturn(true);
 
-        assertDoesNotThrow(() -> tableService.deleteTable(id));
-        verify(tableRepository, times(1)).existsById(any(UUID.class));
+        assertDoesNotThrow(() -> tableService.deleteTable(RESTAURANT_ID, id));
+        verify(tableRepository, times(1)).existsByIdAndRestaurantId(any(UUID.class), eq(RESTAURANT_ID));
         verify(tableRepository, times(1)).deleteById(any(UUID.class));
+        verify(tableEventBroadcaster, times(1)).publish(RESTAURANT_ID, TableEventDTO.deleted(id));
+        verify(tableCatalog, times(1)).remove(RESTAURANT_ID, id);
+        verify(clusterNotifier, times(1)).publish(new ClusterEvent.TablesChanged(RESTAURANT_ID));
     }
 
     @Test
     public void shouldThrowErrorIfCanNotDelete() {
         UUID id = UUID.randomUUID();
 
-        when(tableRepository.existsById(any(UUID.class))).thenReturn(false);
+        when(tableRepository.existsByIdAndRestaurantId(any(UUID.class), eq(RESTAURANT_ID))).thenReturn(false);
 
         ApiException exception = assertThrows(ApiException.class, () -> {
-            tableService.deleteTable(id);
+            tableService.deleteTable(RESTAURANT_ID, id);
         });
         assertEquals("Table does not exist", exception.getMessage());
         assertEquals(HttpStatus.NOT_FOUND, exception.getErrorStatus());
-        verify(tableRepository, times(1)).existsById(any(UUID.class));
+        verify(tableRepository, times(1)).existsByIdAndRestaurantId(any(UUID.class), eq(RESTAURANT_ID));
         verify(tableRepository, never()).deleteById(any(UUID.class));
     }
 }